@@ -0,0 +1,17 @@
+package org.oldvabik.userservice.common.cache;
+
+import java.io.Serializable;
+
+/**
+ * Cached value together with the time it was written, used to refresh entries ahead of expiry.
+ */
+public record CacheEntry<T>(T value, long writtenAt) implements Serializable {
+
+    public static <T> CacheEntry<T> of(T value) {
+        return new CacheEntry<>(value, System.currentTimeMillis());
+    }
+
+    public long ageMillis() {
+        return System.currentTimeMillis() - writtenAt;
+    }
+}
@@ -0,0 +1,149 @@
+package org.oldvabik.userservice.common.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary cache value format: one version byte, one flags byte, the write time as an
+ * 8-byte epoch millis value and a Smile payload written for a fixed value type, so no
+ * class names are stored per entry. Payloads larger than the compression threshold are deflated.
+ * Version 1 entries carry no write time and are read as written at epoch zero, so they
+ * are refreshed on first hit; entries with an unknown version are treated as cache misses.
+ */
+@Slf4j
+public class SmileCacheSerializer<T> implements RedisSerializer<CacheEntry<T>> {
+    static final byte FORMAT_VERSION = 2;
+    static final byte FLAG_DEFLATED = 1;
+    private static final byte LEGACY_FORMAT_VERSION = 1;
+    private static final int LEGACY_HEADER_LENGTH = 2;
+    private static final int HEADER_LENGTH = 10;
+
+    private static final ObjectMapper MAPPER = SmileMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final Class<T> type;
+    private final int compressionThreshold;
+
+    public SmileCacheSerializer(Class<T> type, int compressionThreshold) {
+        this.type = type;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(CacheEntry<T> entry) throws SerializationException {
+        if (entry == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] payload = MAPPER.writeValueAsBytes(entry.value());
+            byte flags = 0;
+            if (payload.length > compressionThreshold) {
+                payload = deflate(payload);
+                flags |= FLAG_DEFLATED;
+            }
+            byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+            bytes[0] = FORMAT_VERSION;
+            bytes[1] = flags;
+            writeLong(bytes, 2, entry.writtenAt());
+            System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+            return bytes;
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + type.getSimpleName() + " cache value", e);
+        }
+    }
+
+    @Override
+    public CacheEntry<T> deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < LEGACY_HEADER_LENGTH) {
+            return null;
+        }
+        int headerLength;
+        long writtenAt;
+        if (bytes[0] == FORMAT_VERSION && bytes.length >= HEADER_LENGTH) {
+            headerLength = HEADER_LENGTH;
+            writtenAt = readLong(bytes, 2);
+        } else if (bytes[0] == LEGACY_FORMAT_VERSION) {
+            headerLength = LEGACY_HEADER_LENGTH;
+            writtenAt = 0;
+        } else {
+            log.debug("[Cache] skipping {} cache value with unsupported format version {}", type.getSimpleName(), bytes[0]);
+            return null;
+        }
+        try {
+            if ((bytes[1] & FLAG_DEFLATED) != 0) {
+                byte[] payload = inflate(bytes, headerLength);
+                return new CacheEntry<>(MAPPER.readValue(payload, type), writtenAt);
+            }
+            return new CacheEntry<>(MAPPER.readValue(bytes, headerLength, bytes.length - headerLength, type), writtenAt);
+        } catch (IOException | DataFormatException e) {
+            throw new SerializationException("Could not read " + type.getSimpleName() + " cache value", e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return CacheEntry.class;
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("truncated deflate stream");
+                }
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.oldvabik.userservice.common.web;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldset requested through {@code fields=} plus a flag for one expandable field, such as
+ * {@code cards=}. The expandable field is loaded only when it is part of the selection; other fields are
+ * always loaded and only left out of the response. The response type has to carry
+ * {@code @JsonFilter(FieldSelection.FILTER)}, usually through a mixin.
+ */
+public final class FieldSelection {
+    public static final String FILTER = "userFields";
+    private static final ClassValue<Set<String>> FIELDS = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            return Arrays.stream(type.getDeclaredFields())
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                    .map(Field::getName)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    };
+
+    private final String expandable;
+    private final Set<String> selected;
+
+    private FieldSelection(String expandable, Set<String> selected) {
+        this.expandable = expandable;
+        this.selected = selected;
+    }
+
+    public static FieldSelection of(Class<?> type, String expandable, String fields, boolean expand) {
+        Set<String> allowed = FIELDS.get(type);
+        if (fields == null || fields.isBlank()) {
+            if (expand) {
+                return new FieldSelection(expandable, null);
+            }
+            Set<String> selected = new LinkedHashSet<>(allowed);
+            selected.remove(expandable);
+            return new FieldSelection(expandable, selected);
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                throw new UnknownFieldException("unknown field '" + name + "', allowed: " + String.join(", ", allowed));
+            }
+            selected.add(name);
+        }
+        if (!expand) {
+            selected.remove(expandable);
+        }
+        return new FieldSelection(expandable, selected);
+    }
+
+    public boolean expands() {
+        return selected == null || selected.contains(expandable);
+    }
+
+    public MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(FILTER, selected == null
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(selected)));
+        return value;
+    }
+}
@@ -0,0 +1,7 @@
+package org.oldvabik.userservice.common.web;
+
+public class UnknownFieldException extends IllegalArgumentException {
+    public UnknownFieldException(String message) {
+        super(message);
+    }
+}
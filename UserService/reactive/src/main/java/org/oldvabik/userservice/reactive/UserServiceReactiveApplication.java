@@ -0,0 +1,11 @@
+package org.oldvabik.userservice.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class UserServiceReactiveApplication {
+	public static void main(String[] args) {
+		SpringApplication.run(UserServiceReactiveApplication.class, args);
+	}
+}
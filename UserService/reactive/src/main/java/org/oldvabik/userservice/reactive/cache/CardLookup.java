@@ -0,0 +1,39 @@
+package org.oldvabik.userservice.reactive.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.reactive.exception.NotFoundException;
+import org.oldvabik.userservice.reactive.repository.CardRepository;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached card reads keyed by id only. The cached view carries the owner's email so the
+ * caller can check access without another query.
+ */
+@Slf4j
+@Component
+public class CardLookup {
+    private final CardRepository cardRepository;
+    private final ReactiveCache<CardView> cardsCache;
+
+    public CardLookup(CardRepository cardRepository, @Qualifier("cardsCache") ReactiveCache<CardView> cardsCache) {
+        this.cardRepository = cardRepository;
+        this.cardsCache = cardsCache;
+    }
+
+    public Mono<CardView> findById(Long id) {
+        return cardsCache.get(id, () -> cardRepository.findViewById(id)
+                .switchIfEmpty(Mono.error(() -> {
+                    log.warn("[CardLookup] findById: card not found id={}", id);
+                    return new NotFoundException("card with id " + id + " not found");
+                })));
+    }
+
+    public Mono<Map<Long, CardView>> findAllById(List<Long> ids) {
+        return cardsCache.getAll(ids, missing -> cardRepository.findViewsByIds(missing).collectMap(CardView::id));
+    }
+}
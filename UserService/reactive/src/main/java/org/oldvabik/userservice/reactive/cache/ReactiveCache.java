@@ -0,0 +1,141 @@
+package org.oldvabik.userservice.reactive.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One Redis cache shared with userservice: keys are {@code <name>::<key>} and values use the
+ * {@link SmileCacheSerializer} format, so entries written by either service are read by the other.
+ * Writes and evictions stay with userservice; this side only backfills misses, which then expire
+ * normally without refresh-ahead.
+ * <p>
+ * Concurrent misses for the same key within this node share one load. Batch misses are written
+ * with {@code SET NX}, so a value written meanwhile by a single-key load is kept.
+ */
+@Slf4j
+public class ReactiveCache<T> {
+    private static final String KEY_SEPARATOR = "::";
+
+    private final String name;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final SmileCacheSerializer<T> serializer;
+    private final Duration timeToLive;
+    private final ConcurrentMap<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public ReactiveCache(String name,
+                         ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                         SmileCacheSerializer<T> serializer,
+                         Duration timeToLive,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.serializer = serializer;
+        this.timeToLive = timeToLive;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Mono<T> get(Object key, Supplier<Mono<T>> loader) {
+        String redisKey = redisKey(key);
+        return redisTemplate.opsForValue().get(redisKey)
+                .mapNotNull(this::read)
+                .doOnNext(value -> hits.increment())
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    return load(redisKey, loader);
+                }));
+    }
+
+    /**
+     * Resolves many ids with one {@code MGET}; misses are loaded with one call to the loader.
+     * Ids that do not exist are absent from the result.
+     */
+    public Mono<Map<Long, T>> getAll(List<Long> ids, Function<List<Long>, Mono<Map<Long, T>>> loader) {
+        List<String> keys = ids.stream().map(this::redisKey).toList();
+        return redisTemplate.opsForValue().multiGet(keys)
+                .flatMap(values -> {
+                    Map<Long, T> found = new HashMap<>(ids.size() * 2);
+                    List<Long> missing = new ArrayList<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        T value = read(values.get(i));
+                        if (value != null) {
+                            found.put(ids.get(i), value);
+                        } else {
+                            missing.add(ids.get(i));
+                        }
+                    }
+                    hits.increment(found.size());
+                    misses.increment(missing.size());
+                    log.debug("[ReactiveCache] getAll: cache={}, hits={}, misses={}", name, found.size(), missing.size());
+                    if (missing.isEmpty()) {
+                        return Mono.just(found);
+                    }
+                    return loader.apply(missing)
+                            .flatMap(loaded -> backfill(loaded).then(Mono.fromSupplier(() -> {
+                                found.putAll(loaded);
+                                return found;
+                            })));
+                });
+    }
+
+    private Mono<T> load(String redisKey, Supplier<Mono<T>> loader) {
+        Mono<T> load = Mono.defer(loader)
+                .flatMap(value -> redisTemplate.opsForValue().set(redisKey, write(value), timeToLive)
+                        .thenReturn(value))
+                .cache();
+        Mono<T> leader = inFlight.putIfAbsent(redisKey, load);
+        if (leader != null) {
+            return leader;
+        }
+        return load.doFinally(signal -> inFlight.remove(redisKey, load));
+    }
+
+    private Mono<Void> backfill(Map<Long, T> loaded) {
+        return Flux.fromIterable(loaded.entrySet())
+                .flatMap(entry -> redisTemplate.opsForValue()
+                        .setIfAbsent(redisKey(entry.getKey()), write(entry.getValue()), timeToLive))
+                .then();
+    }
+
+    private T read(byte[] bytes) {
+        CacheEntry<T> entry = serializer.deserialize(bytes);
+        return entry == null ? null : entry.value();
+    }
+
+    private byte[] write(T value) {
+        return serializer.serialize(CacheEntry.of(value));
+    }
+
+    private String redisKey(Object key) {
+        return name + KEY_SEPARATOR + key;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.gets")
+                .description("Cache lookups")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
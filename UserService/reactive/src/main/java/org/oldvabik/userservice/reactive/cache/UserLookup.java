@@ -0,0 +1,104 @@
+package org.oldvabik.userservice.reactive.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.exception.NotFoundException;
+import org.oldvabik.userservice.reactive.mapper.UserMapper;
+import org.oldvabik.userservice.reactive.repository.UserRepository;
+import org.oldvabik.userservice.reactive.repository.projection.UserCardView;
+import org.oldvabik.userservice.reactive.repository.projection.UserView;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached user reads keyed by id or email only, with the same keys as userservice. Access checks are
+ * left to the caller.
+ */
+@Slf4j
+@Component
+public class UserLookup {
+    private static final String EMAIL_KEY_PREFIX = "email:";
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ReactiveCache<UserDto> usersCache;
+    private final ReactiveCache<UserDto> userProfilesCache;
+
+    public UserLookup(UserRepository userRepository,
+                      UserMapper userMapper,
+                      @Qualifier("usersCache") ReactiveCache<UserDto> usersCache,
+                      @Qualifier("userProfilesCache") ReactiveCache<UserDto> userProfilesCache) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.usersCache = usersCache;
+        this.userProfilesCache = userProfilesCache;
+    }
+
+    public Mono<UserDto> findById(Long id) {
+        return usersCache.get(id, () -> userRepository.findViewById(id)
+                .collectList()
+                .flatMap(rows -> fromRows(rows, "user with id " + id + " not found")));
+    }
+
+    public Mono<UserDto> findByEmail(String email) {
+        return usersCache.get(EMAIL_KEY_PREFIX + email, () -> userRepository.findViewByEmail(email)
+                .collectList()
+                .flatMap(rows -> fromRows(rows, "user with email " + email + " not found")));
+    }
+
+    public Mono<Map<Long, UserDto>> findAllById(List<Long> ids) {
+        return usersCache.getAll(ids, this::loadAll);
+    }
+
+    public Mono<UserDto> findProfileById(Long id) {
+        return userProfilesCache.get(id, () -> userRepository.findProfileById(id)
+                .map(userMapper::fromView)
+                .switchIfEmpty(notFound("user with id " + id + " not found")));
+    }
+
+    public Mono<UserDto> findProfileByEmail(String email) {
+        return userProfilesCache.get(EMAIL_KEY_PREFIX + email, () -> userRepository.findProfileByEmail(email)
+                .map(userMapper::fromView)
+                .switchIfEmpty(notFound("user with email " + email + " not found")));
+    }
+
+    public Mono<Map<Long, UserDto>> findAllProfilesById(List<Long> ids) {
+        return userProfilesCache.getAll(ids, missing -> userRepository.findProfilesByIds(missing)
+                .collectMap(UserView::id, userMapper::fromView));
+    }
+
+    /**
+     * Loads users with their cards, keyed by id in the order of the query.
+     */
+    public Mono<Map<Long, UserDto>> loadAll(List<Long> ids) {
+        return userRepository.findViewsByIds(ids)
+                .collect(LinkedHashMap<Long, List<UserCardView>>::new,
+                        (rowsById, row) -> rowsById.computeIfAbsent(row.id(), id -> new ArrayList<>()).add(row))
+                .map(rowsById -> {
+                    Map<Long, UserDto> users = new HashMap<>(rowsById.size() * 2);
+                    rowsById.forEach((id, rows) -> users.put(id, userMapper.fromRows(rows)));
+                    log.debug("[UserLookup] loadAll: loaded {} of {} users", users.size(), ids.size());
+                    return users;
+                });
+    }
+
+    private Mono<UserDto> fromRows(List<UserCardView> rows, String notFoundMessage) {
+        if (rows.isEmpty()) {
+            return notFound(notFoundMessage);
+        }
+        return Mono.just(userMapper.fromRows(rows));
+    }
+
+    private static <T> Mono<T> notFound(String message) {
+        return Mono.error(() -> {
+            log.warn("[UserLookup] {}", message);
+            return new NotFoundException(message);
+        });
+    }
+}
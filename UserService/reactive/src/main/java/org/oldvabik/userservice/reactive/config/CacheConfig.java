@@ -0,0 +1,67 @@
+package org.oldvabik.userservice.reactive.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.oldvabik.userservice.reactive.cache.ReactiveCache;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import java.time.Duration;
+
+/**
+ * Cache names, key layout, TTLs and value format match the userservice cache configuration.
+ */
+@Configuration
+public class CacheConfig {
+    public static final String USERS_CACHE = "users";
+    public static final String USER_PROFILES_CACHE = "userProfiles";
+    public static final String CARDS_CACHE = "cards";
+
+    @Value("${app.cache.ttl.users:600000}")
+    private long usersTimeToLive;
+
+    @Value("${app.cache.ttl.cards:600000}")
+    private long cardsTimeToLive;
+
+    @Value("${app.cache.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> cacheRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public ReactiveCache<UserDto> usersCache(ReactiveRedisTemplate<String, byte[]> cacheRedisTemplate,
+                                             MeterRegistry meterRegistry) {
+        return new ReactiveCache<>(USERS_CACHE, cacheRedisTemplate,
+                new SmileCacheSerializer<>(UserDto.class, compressionThreshold),
+                Duration.ofMillis(usersTimeToLive), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<UserDto> userProfilesCache(ReactiveRedisTemplate<String, byte[]> cacheRedisTemplate,
+                                                    MeterRegistry meterRegistry) {
+        return new ReactiveCache<>(USER_PROFILES_CACHE, cacheRedisTemplate,
+                new SmileCacheSerializer<>(UserDto.class, compressionThreshold),
+                Duration.ofMillis(usersTimeToLive), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<CardView> cardsCache(ReactiveRedisTemplate<String, byte[]> cacheRedisTemplate,
+                                              MeterRegistry meterRegistry) {
+        return new ReactiveCache<>(CARDS_CACHE, cacheRedisTemplate,
+                new SmileCacheSerializer<>(CardView.class, compressionThreshold),
+                Duration.ofMillis(cardsTimeToLive), meterRegistry);
+    }
+}
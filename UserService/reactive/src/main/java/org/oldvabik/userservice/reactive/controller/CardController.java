@@ -0,0 +1,46 @@
+package org.oldvabik.userservice.reactive.controller;
+
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.oldvabik.userservice.reactive.service.CardService;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/cards")
+public class CardController {
+    private final CardService cardService;
+
+    public CardController(CardService cardService) {
+        this.cardService = cardService;
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CardInfoDto>> getCardById(Authentication auth,
+                                                         @PathVariable Long id) {
+        return cardService.getCardById(auth, id)
+                .map(card -> ResponseEntity.ok().eTag(ETags.of(card.getVersion())).body(card));
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<List<CardInfoDto>>> getCardsByIds(Authentication auth,
+                                                                 @RequestParam List<Long> ids) {
+        return cardService.getCardsByIds(auth, ids)
+                .map(cards -> new ResponseEntity<>(cards, HttpStatus.OK));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Mono<ResponseEntity<Page<CardInfoDto>>> getAllCards(@RequestParam(defaultValue = "0") Integer page,
+                                                               @RequestParam(defaultValue = "5") Integer size) {
+        return cardService.getAllCards(page, size)
+                .map(cards -> new ResponseEntity<>(cards, HttpStatus.OK));
+    }
+}
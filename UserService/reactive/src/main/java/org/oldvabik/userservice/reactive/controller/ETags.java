@@ -0,0 +1,14 @@
+package org.oldvabik.userservice.reactive.controller;
+
+/**
+ * Strong entity tags derived from the version column of a resource, as issued by userservice.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,73 @@
+package org.oldvabik.userservice.reactive.controller;
+
+import org.oldvabik.userservice.common.web.FieldSelection;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.service.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import java.util.List;
+
+/**
+ * Read-only counterpart of the userservice user API. A matching {@code If-None-Match} is answered with
+ * 304 by the response entity handler from the ETag of the loaded user.
+ */
+@RestController
+@RequestMapping("/api/v1/users")
+public class UserController {
+    private static final String CARDS = "cards";
+
+    private final UserService userService;
+
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<MappingJacksonValue>> getUserById(Authentication auth,
+                                                                 @PathVariable Long id,
+                                                                 @RequestParam(required = false) String fields,
+                                                                 @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        return userService.getUserById(auth, id, selection.expands())
+                .map(user -> ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(selection.apply(user)));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Mono<ResponseEntity<MappingJacksonValue>> getUsers(@RequestParam(defaultValue = "0") Integer page,
+                                                              @RequestParam(defaultValue = "5") Integer size,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        return userService.getAllUsers(page, size, selection.expands())
+                .map(users -> new ResponseEntity<>(selection.apply(users), HttpStatus.OK));
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<MappingJacksonValue>> getUsersByIds(Authentication auth,
+                                                                   @RequestParam List<Long> ids,
+                                                                   @RequestParam(required = false) String fields,
+                                                                   @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        return userService.getUsersByIds(auth, ids, selection.expands())
+                .map(users -> new ResponseEntity<>(selection.apply(users), HttpStatus.OK));
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/search", params = "email")
+    public Mono<ResponseEntity<MappingJacksonValue>> getUserByEmail(Authentication auth,
+                                                                    @RequestParam String email,
+                                                                    @RequestParam(required = false) String fields,
+                                                                    @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        return userService.getUserByEmail(auth, email, selection.expands())
+                .map(user -> new ResponseEntity<>(selection.apply(user), HttpStatus.OK));
+    }
+}
@@ -0,0 +1,21 @@
+package org.oldvabik.userservice.reactive.dto;
+
+import lombok.Data;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class UserDto implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private String surname;
+    private LocalDate birthDate;
+    private String email;
+    private Long version;
+    private List<CardInfoDto> cards;
+}
@@ -0,0 +1,7 @@
+package org.oldvabik.userservice.reactive.exception;
+
+public class NotFoundException extends RuntimeException {
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package org.oldvabik.userservice.reactive.mapper;
+
+import org.mapstruct.Mapper;
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+
+@Mapper(componentModel = "spring")
+public interface CardMapper {
+    CardInfoDto toDto(CardView view);
+}
@@ -0,0 +1,39 @@
+package org.oldvabik.userservice.reactive.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.repository.projection.UserCardView;
+import org.oldvabik.userservice.reactive.repository.projection.UserView;
+import java.util.ArrayList;
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface UserMapper {
+    @Mapping(target = "cards", ignore = true)
+    UserDto fromRow(UserCardView row);
+
+    @Mapping(target = "cards", ignore = true)
+    UserDto fromView(UserView view);
+
+    @Mapping(target = "id", source = "cardId")
+    @Mapping(target = "number", source = "cardNumber")
+    @Mapping(target = "holder", source = "cardHolder")
+    @Mapping(target = "expirationDate", source = "cardExpirationDate")
+    @Mapping(target = "userId", source = "id")
+    @Mapping(target = "version", source = "cardVersion")
+    CardInfoDto cardFromRow(UserCardView row);
+
+    default UserDto fromRows(List<UserCardView> rows) {
+        UserDto dto = fromRow(rows.get(0));
+        List<CardInfoDto> cards = new ArrayList<>(rows.size());
+        for (UserCardView row : rows) {
+            if (row.cardId() != null) {
+                cards.add(cardFromRow(row));
+            }
+        }
+        dto.setCards(cards);
+        return dto;
+    }
+}
@@ -0,0 +1,56 @@
+package org.oldvabik.userservice.reactive.repository;
+
+import io.r2dbc.spi.Readable;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.LocalDate;
+import java.util.Collection;
+
+@Repository
+public class CardRepository {
+    private static final String VIEWS = "SELECT c.id, c.number, c.holder, c.expiration_date, c.version, "
+            + "u.id AS user_id, u.email AS owner_email FROM card_info c JOIN users u ON u.id = c.user_id ";
+
+    private final DatabaseClient databaseClient;
+
+    public CardRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<CardView> findViewById(Long id) {
+        return databaseClient.sql(VIEWS + "WHERE c.id = :id")
+                .bind("id", id)
+                .map(CardRepository::cardView)
+                .one();
+    }
+
+    public Flux<CardView> findViewsByIds(Collection<Long> ids) {
+        return databaseClient.sql(VIEWS + "WHERE c.id IN (:ids)")
+                .bind("ids", ids)
+                .map(CardRepository::cardView)
+                .all();
+    }
+
+    public Flux<CardView> findViewsPage(long offset, int limit) {
+        return databaseClient.sql(VIEWS + "ORDER BY c.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(CardRepository::cardView)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("SELECT count(*) FROM card_info")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static CardView cardView(Readable row) {
+        return new CardView(row.get("id", Long.class), row.get("number", String.class), row.get("holder", String.class),
+                row.get("expiration_date", LocalDate.class), row.get("version", Long.class),
+                row.get("user_id", Long.class), row.get("owner_email", String.class));
+    }
+}
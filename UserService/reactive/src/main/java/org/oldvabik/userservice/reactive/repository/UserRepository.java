@@ -0,0 +1,98 @@
+package org.oldvabik.userservice.reactive.repository;
+
+import io.r2dbc.spi.Readable;
+import org.oldvabik.userservice.reactive.repository.projection.UserCardView;
+import org.oldvabik.userservice.reactive.repository.projection.UserView;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * The same read projections as the JPA repository of userservice, written as SQL against the shared schema.
+ */
+@Repository
+public class UserRepository {
+    private static final String PROFILE_COLUMNS = "u.id, u.name, u.surname, u.birth_date, u.email, u.version";
+    private static final String WITH_CARDS = "SELECT " + PROFILE_COLUMNS + ", c.id AS card_id, "
+            + "c.number AS card_number, c.holder AS card_holder, c.expiration_date AS card_expiration_date, "
+            + "c.version AS card_version FROM users u LEFT JOIN card_info c ON c.user_id = u.id ";
+    private static final String PROFILES = "SELECT " + PROFILE_COLUMNS + " FROM users u ";
+
+    private final DatabaseClient databaseClient;
+
+    public UserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<UserCardView> findViewById(Long id) {
+        return databaseClient.sql(WITH_CARDS + "WHERE u.id = :id ORDER BY c.id")
+                .bind("id", id)
+                .map(UserRepository::userCardView)
+                .all();
+    }
+
+    public Flux<UserCardView> findViewByEmail(String email) {
+        return databaseClient.sql(WITH_CARDS + "WHERE u.email = :email ORDER BY c.id")
+                .bind("email", email)
+                .map(UserRepository::userCardView)
+                .all();
+    }
+
+    public Flux<UserCardView> findViewsByIds(Collection<Long> ids) {
+        return databaseClient.sql(WITH_CARDS + "WHERE u.id IN (:ids) ORDER BY u.id, c.id")
+                .bind("ids", ids)
+                .map(UserRepository::userCardView)
+                .all();
+    }
+
+    public Mono<UserView> findProfileById(Long id) {
+        return databaseClient.sql(PROFILES + "WHERE u.id = :id")
+                .bind("id", id)
+                .map(UserRepository::userView)
+                .one();
+    }
+
+    public Mono<UserView> findProfileByEmail(String email) {
+        return databaseClient.sql(PROFILES + "WHERE u.email = :email")
+                .bind("email", email)
+                .map(UserRepository::userView)
+                .one();
+    }
+
+    public Flux<UserView> findProfilesByIds(Collection<Long> ids) {
+        return databaseClient.sql(PROFILES + "WHERE u.id IN (:ids)")
+                .bind("ids", ids)
+                .map(UserRepository::userView)
+                .all();
+    }
+
+    public Flux<UserView> findProfilesPage(long offset, int limit) {
+        return databaseClient.sql(PROFILES + "ORDER BY u.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(UserRepository::userView)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("SELECT count(*) FROM users")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static UserView userView(Readable row) {
+        return new UserView(row.get("id", Long.class), row.get("name", String.class), row.get("surname", String.class),
+                row.get("birth_date", LocalDate.class), row.get("email", String.class), row.get("version", Long.class));
+    }
+
+    private static UserCardView userCardView(Readable row) {
+        return new UserCardView(row.get("id", Long.class), row.get("name", String.class),
+                row.get("surname", String.class), row.get("birth_date", LocalDate.class),
+                row.get("email", String.class), row.get("version", Long.class), row.get("card_id", Long.class),
+                row.get("card_number", String.class), row.get("card_holder", String.class),
+                row.get("card_expiration_date", LocalDate.class), row.get("card_version", Long.class));
+    }
+}
@@ -0,0 +1,13 @@
+package org.oldvabik.userservice.reactive.repository.projection;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public record CardView(Long id,
+                       String number,
+                       String holder,
+                       LocalDate expirationDate,
+                       Long version,
+                       Long userId,
+                       String ownerEmail) implements Serializable {
+}
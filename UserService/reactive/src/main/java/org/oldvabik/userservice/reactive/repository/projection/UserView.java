@@ -0,0 +1,11 @@
+package org.oldvabik.userservice.reactive.repository.projection;
+
+import java.time.LocalDate;
+
+public record UserView(Long id,
+                       String name,
+                       String surname,
+                       LocalDate birthDate,
+                       String email,
+                       Long version) {
+}
@@ -0,0 +1,19 @@
+package org.oldvabik.userservice.reactive.security;
+
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AccessChecker {
+    public boolean canAccessUser(Authentication auth, UserDto user) {
+        return canAccessOwner(auth, user.getEmail());
+    }
+
+    public boolean canAccessOwner(Authentication auth, String email) {
+        if (auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return true;
+        }
+        return auth.getName().equals(email);
+    }
+}
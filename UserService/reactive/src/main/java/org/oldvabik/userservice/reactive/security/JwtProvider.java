@@ -0,0 +1,34 @@
+package org.oldvabik.userservice.reactive.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates tokens issued by AuthService with the same secret as userservice. The token is parsed once per
+ * request, since parsing runs on an event loop thread.
+ */
+@Component
+public class JwtProvider {
+
+    private final JwtParser parser;
+
+    public JwtProvider(@Value("${jwt.secret}") String secret) {
+        this.parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secret.getBytes())).build();
+    }
+
+    /**
+     * Returns the claims of a valid token, or {@code null} when the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.oldvabik.userservice.reactive.service;
+
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.springframework.data.domain.Page;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+import java.util.List;
+
+public interface CardService {
+    Mono<CardInfoDto> getCardById(Authentication auth, Long id);
+    Mono<List<CardInfoDto>> getCardsByIds(Authentication auth, List<Long> ids);
+    Mono<Page<CardInfoDto>> getAllCards(Integer page, Integer size);
+}
@@ -0,0 +1,14 @@
+package org.oldvabik.userservice.reactive.service;
+
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.springframework.data.domain.Page;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+import java.util.List;
+
+public interface UserService {
+    Mono<UserDto> getUserById(Authentication auth, Long id, boolean withCards);
+    Mono<List<UserDto>> getUsersByIds(Authentication auth, List<Long> ids, boolean withCards);
+    Mono<Page<UserDto>> getAllUsers(Integer page, Integer size, boolean withCards);
+    Mono<UserDto> getUserByEmail(Authentication auth, String email, boolean withCards);
+}
@@ -0,0 +1,110 @@
+package org.oldvabik.userservice.reactive.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.reactive.cache.CardLookup;
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.oldvabik.userservice.reactive.exception.BadRequestException;
+import org.oldvabik.userservice.reactive.mapper.CardMapper;
+import org.oldvabik.userservice.reactive.repository.CardRepository;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import org.oldvabik.userservice.reactive.security.AccessChecker;
+import org.oldvabik.userservice.reactive.service.CardService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Slf4j
+@Service
+public class CardServiceImpl implements CardService {
+    private final CardRepository cardRepository;
+    private final CardMapper cardMapper;
+    private final CardLookup cardLookup;
+    private final AccessChecker accessChecker;
+
+    @Value("${app.multi-get.max-ids:100}")
+    private int maxIds;
+
+    public CardServiceImpl(CardRepository cardRepository,
+                           CardMapper cardMapper,
+                           CardLookup cardLookup,
+                           AccessChecker accessChecker) {
+        this.cardRepository = cardRepository;
+        this.cardMapper = cardMapper;
+        this.cardLookup = cardLookup;
+        this.accessChecker = accessChecker;
+    }
+
+    @Override
+    public Mono<CardInfoDto> getCardById(Authentication auth, Long id) {
+        log.debug("[CardService] getCardById: id={}", id);
+        return cardLookup.findById(id).flatMap(card -> {
+            if (!accessChecker.canAccessOwner(auth, card.ownerEmail())) {
+                log.warn("[CardService] getCardById: access denied for user {}", auth.getName());
+                return Mono.error(new AccessDeniedException("Access denied"));
+            }
+            log.info("[CardService] getCardById: found id={}", id);
+            return Mono.just(cardMapper.toDto(card));
+        });
+    }
+
+    @Override
+    public Mono<List<CardInfoDto>> getCardsByIds(Authentication auth, List<Long> ids) {
+        return Mono.fromCallable(() -> distinctIds(ids)).flatMap(distinctIds -> {
+            log.debug("[CardService] getCardsByIds: {} ids", distinctIds.size());
+            return cardLookup.findAllById(distinctIds).map(found -> {
+                List<CardInfoDto> cards = new ArrayList<>(found.size());
+                int denied = 0;
+                for (Long id : distinctIds) {
+                    CardView card = found.get(id);
+                    if (card == null) {
+                        continue;
+                    }
+                    if (accessChecker.canAccessOwner(auth, card.ownerEmail())) {
+                        cards.add(cardMapper.toDto(card));
+                    } else {
+                        denied++;
+                    }
+                }
+                if (denied > 0) {
+                    log.warn("[CardService] getCardsByIds: access denied to {} cards for user {}", denied, auth.getName());
+                }
+                log.info("[CardService] getCardsByIds: returned {} of {} cards", cards.size(), distinctIds.size());
+                return cards;
+            });
+        });
+    }
+
+    @Override
+    public Mono<Page<CardInfoDto>> getAllCards(Integer page, Integer size) {
+        log.debug("[CardService] getAllCards: page={}, size={}", page, size);
+        Pageable pageable = PageRequest.of(page, size);
+        return Mono.zip(cardRepository.findViewsPage(pageable.getOffset(), pageable.getPageSize())
+                                .map(cardMapper::toDto)
+                                .collectList(),
+                        cardRepository.count())
+                .map(result -> {
+                    log.info("[CardService] getAllCards: fetched {} cards", result.getT1().size());
+                    return new PageImpl<>(result.getT1(), pageable, result.getT2());
+                });
+    }
+
+    private List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
+        }
+        if (distinctIds.size() > maxIds) {
+            throw new BadRequestException("at most " + maxIds + " ids can be requested at once");
+        }
+        return distinctIds;
+    }
+}
@@ -0,0 +1,145 @@
+package org.oldvabik.userservice.reactive.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.reactive.cache.UserLookup;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.exception.BadRequestException;
+import org.oldvabik.userservice.reactive.mapper.UserMapper;
+import org.oldvabik.userservice.reactive.repository.UserRepository;
+import org.oldvabik.userservice.reactive.repository.projection.UserView;
+import org.oldvabik.userservice.reactive.security.AccessChecker;
+import org.oldvabik.userservice.reactive.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Slf4j
+@Service
+public class UserServiceImpl implements UserService {
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final UserLookup userLookup;
+    private final AccessChecker accessChecker;
+
+    @Value("${app.multi-get.max-ids:100}")
+    private int maxIds;
+
+    public UserServiceImpl(UserRepository userRepository,
+                           UserMapper userMapper,
+                           UserLookup userLookup,
+                           AccessChecker accessChecker) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.userLookup = userLookup;
+        this.accessChecker = accessChecker;
+    }
+
+    @Override
+    public Mono<UserDto> getUserById(Authentication auth, Long id, boolean withCards) {
+        log.debug("[UserService] getUserById: id={}, withCards={}", id, withCards);
+        Mono<UserDto> user = withCards ? userLookup.findById(id) : userLookup.findProfileById(id);
+        return user.flatMap(found -> {
+            if (!accessChecker.canAccessUser(auth, found)) {
+                log.warn("[UserService] getUserById: access denied for email={}", auth.getName());
+                return Mono.error(new AccessDeniedException("Access denied"));
+            }
+            log.info("[UserService] getUserById: found id={}", id);
+            return Mono.just(found);
+        });
+    }
+
+    @Override
+    public Mono<List<UserDto>> getUsersByIds(Authentication auth, List<Long> ids, boolean withCards) {
+        return Mono.fromCallable(() -> distinctIds(ids)).flatMap(distinctIds -> {
+            log.debug("[UserService] getUsersByIds: {} ids, withCards={}", distinctIds.size(), withCards);
+            Mono<Map<Long, UserDto>> found = withCards
+                    ? userLookup.findAllById(distinctIds)
+                    : userLookup.findAllProfilesById(distinctIds);
+            return found.map(usersById -> {
+                List<UserDto> users = new ArrayList<>(usersById.size());
+                int denied = 0;
+                for (Long id : distinctIds) {
+                    UserDto user = usersById.get(id);
+                    if (user == null) {
+                        continue;
+                    }
+                    if (accessChecker.canAccessUser(auth, user)) {
+                        users.add(user);
+                    } else {
+                        denied++;
+                    }
+                }
+                if (denied > 0) {
+                    log.warn("[UserService] getUsersByIds: access denied to {} users for email={}", denied, auth.getName());
+                }
+                log.info("[UserService] getUsersByIds: returned {} of {} users", users.size(), distinctIds.size());
+                return users;
+            });
+        });
+    }
+
+    /**
+     * Reads the page of users first and their cards with a second query, so the page is limited in SQL.
+     */
+    @Override
+    public Mono<Page<UserDto>> getAllUsers(Integer page, Integer size, boolean withCards) {
+        log.debug("[UserService] getAllUsers: page={}, size={}, withCards={}", page, size, withCards);
+        Pageable pageable = PageRequest.of(page, size);
+        Mono<List<UserView>> profiles = userRepository.findProfilesPage(pageable.getOffset(), pageable.getPageSize())
+                .collectList();
+        Mono<List<UserDto>> users = withCards
+                ? profiles.flatMap(this::withCards)
+                : profiles.map(views -> views.stream().map(userMapper::fromView).toList());
+        return Mono.zip(users, userRepository.count())
+                .map(result -> {
+                    log.info("[UserService] getAllUsers: fetched {} users", result.getT1().size());
+                    return new PageImpl<>(result.getT1(), pageable, result.getT2());
+                });
+    }
+
+    @Override
+    public Mono<UserDto> getUserByEmail(Authentication auth, String email, boolean withCards) {
+        log.debug("[UserService] getUserByEmail: email={}, withCards={}", email, withCards);
+        Mono<UserDto> user = withCards ? userLookup.findByEmail(email) : userLookup.findProfileByEmail(email);
+        return user.flatMap(found -> {
+            if (!accessChecker.canAccessUser(auth, found)) {
+                log.warn("[UserService] getUserByEmail: access denied for email={}", auth.getName());
+                return Mono.error(new AccessDeniedException("Access denied"));
+            }
+            log.info("[UserService] getUserByEmail: found email={}", email);
+            return Mono.just(found);
+        });
+    }
+
+    private Mono<List<UserDto>> withCards(List<UserView> views) {
+        if (views.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return userLookup.loadAll(views.stream().map(UserView::id).toList())
+                .map(usersById -> views.stream()
+                        .map(view -> usersById.get(view.id()))
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+
+    private List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
+        }
+        if (distinctIds.size() > maxIds) {
+            throw new BadRequestException("at most " + maxIds + " ids can be requested at once");
+        }
+        return distinctIds;
+    }
+}
@@ -0,0 +1,132 @@
+package org.oldvabik.userservice.reactive.unit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.reactive.cache.ReactiveCache;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.reactive.exception.NotFoundException;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCacheTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    @Mock
+    private ReactiveValueOperations<String, byte[]> valueOperations;
+
+    private final SmileCacheSerializer<CardView> serializer = new SmileCacheSerializer<>(CardView.class, 1024);
+    private ReactiveCache<CardView> cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cache = new ReactiveCache<>("cards", redisTemplate, serializer, TTL, new SimpleMeterRegistry());
+    }
+
+    private static CardView card(Long id) {
+        return new CardView(id, "4000" + id, "John Doe", null, 0L, 1L, "john@example.com");
+    }
+
+    private byte[] bytes(CardView card) {
+        return serializer.serialize(CacheEntry.of(card));
+    }
+
+    @Test
+    void get_hit_readsSharedKeyWithoutLoading() {
+        when(valueOperations.get("cards::7")).thenReturn(Mono.just(bytes(card(7L))));
+
+        StepVerifier.create(cache.get(7L, () -> Mono.error(new AssertionError("loader called"))))
+                .assertNext(card -> assertEquals("40007", card.number()))
+                .verifyComplete();
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void get_miss_loadsAndWritesWithTtl() {
+        when(valueOperations.get("cards::7")).thenReturn(Mono.empty());
+        when(valueOperations.set(eq("cards::7"), any(), eq(TTL))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(cache.get(7L, () -> Mono.just(card(7L))))
+                .assertNext(card -> assertEquals(7L, card.id()))
+                .verifyComplete();
+        verify(valueOperations).set(eq("cards::7"), any(), eq(TTL));
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneLoad() {
+        when(valueOperations.get("cards::7")).thenReturn(Mono.empty());
+        when(valueOperations.set(eq("cards::7"), any(), eq(TTL))).thenReturn(Mono.just(true));
+        Sinks.One<CardView> result = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+
+        List<CardView> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            cache.get(7L, () -> {
+                loads.incrementAndGet();
+                return result.asMono();
+            }).subscribe(received::add);
+        }
+        result.tryEmitValue(card(7L));
+
+        assertEquals(1, loads.get());
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    void get_loaderError_isNotCached() {
+        when(valueOperations.get("cards::7")).thenReturn(Mono.empty());
+
+        StepVerifier.create(cache.get(7L, () -> Mono.error(new NotFoundException("card with id 7 not found"))))
+                .verifyError(NotFoundException.class);
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void getAll_loadsOnlyMissesAndBackfillsThemIfAbsent() {
+        when(valueOperations.multiGet(List.of("cards::1", "cards::2", "cards::3")))
+                .thenReturn(Mono.just(Arrays.asList(bytes(card(1L)), null, null)));
+        when(valueOperations.setIfAbsent(eq("cards::2"), any(), eq(TTL))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(cache.getAll(List.of(1L, 2L, 3L), missing -> {
+                    assertEquals(List.of(2L, 3L), missing);
+                    return Mono.just(Map.of(2L, card(2L)));
+                }))
+                .assertNext(found -> assertEquals(Map.of(1L, card(1L), 2L, card(2L)), found))
+                .verifyComplete();
+        verify(valueOperations, never()).setIfAbsent(eq("cards::3"), any(), any(Duration.class));
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void getAll_allHits_skipsLoader() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(bytes(card(1L)))));
+
+        StepVerifier.create(cache.getAll(List.of(1L), missing -> Mono.error(new AssertionError("loader called"))))
+                .assertNext(found -> assertEquals(Map.of(1L, card(1L)), found))
+                .verifyComplete();
+    }
+}
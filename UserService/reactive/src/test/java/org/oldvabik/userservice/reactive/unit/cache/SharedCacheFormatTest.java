@@ -0,0 +1,71 @@
+package org.oldvabik.userservice.reactive.unit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.reactive.dto.CardInfoDto;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.repository.projection.CardView;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads cache entries written by userservice. The fixtures are the bytes pinned in its
+ * {@code SmileCacheSerializerTest}; both copies have to change together.
+ */
+class SharedCacheFormatTest {
+    private static final String USER_FIXTURE =
+            "02000000018bcfe5687b3a290a01fa816964ce836e616d65434a6f686e867375726e616d6542446f65886269" +
+            "72746844617465f8243e8cc2c2f984656d61696c4f6a6f686e406578616d706c652e636f6d8676657273696f" +
+            "6ec6846361726473f8fa40d6856e756d6265724f3430303030303030303030303030313185686f6c64657247" +
+            "4a6f686e20446f658d65787069726174696f6e44617465f8243f9cc2c2f985757365724964ce45c0fbf9fb";
+    private static final String CARD_FIXTURE =
+            "02000000018bcfe5687b3a290a01fa816964d6856e756d6265724f3430303030303030303030303030313185" +
+            "686f6c646572474a6f686e20446f658d65787069726174696f6e44617465f8243f9cc2c2f98676657273696f" +
+            "6ec085757365724964ce896f776e6572456d61696c4f6a6f686e406578616d706c652e636f6dfb";
+    private static final long FIXTURE_WRITTEN_AT = 1_700_000_000_123L;
+
+    private static UserDto user() {
+        CardInfoDto card = new CardInfoDto();
+        card.setId(11L);
+        card.setNumber("4000000000000011");
+        card.setHolder("John Doe");
+        card.setExpirationDate(LocalDate.of(2030, 1, 1));
+        card.setUserId(7L);
+        card.setVersion(0L);
+        UserDto user = new UserDto();
+        user.setId(7L);
+        user.setName("John");
+        user.setSurname("Doe");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail("john@example.com");
+        user.setVersion(3L);
+        user.setCards(List.of(card));
+        return user;
+    }
+
+    @Test
+    void deserialize_userWrittenByUserService() {
+        SmileCacheSerializer<UserDto> serializer = new SmileCacheSerializer<>(UserDto.class, 1024);
+
+        CacheEntry<UserDto> entry = serializer.deserialize(HexFormat.of().parseHex(USER_FIXTURE));
+
+        assertEquals(new CacheEntry<>(user(), FIXTURE_WRITTEN_AT), entry);
+        assertEquals(USER_FIXTURE, HexFormat.of().formatHex(serializer.serialize(entry)));
+    }
+
+    @Test
+    void deserialize_cardWrittenByUserService() {
+        SmileCacheSerializer<CardView> serializer = new SmileCacheSerializer<>(CardView.class, 1024);
+        CardView card = new CardView(11L, "4000000000000011", "John Doe", LocalDate.of(2030, 1, 1),
+                0L, 7L, "john@example.com");
+
+        CacheEntry<CardView> entry = serializer.deserialize(HexFormat.of().parseHex(CARD_FIXTURE));
+
+        assertEquals(new CacheEntry<>(card, FIXTURE_WRITTEN_AT), entry);
+        assertEquals(CARD_FIXTURE, HexFormat.of().formatHex(serializer.serialize(entry)));
+    }
+}
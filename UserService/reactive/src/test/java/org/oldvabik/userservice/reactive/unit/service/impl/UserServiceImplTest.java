@@ -0,0 +1,161 @@
+package org.oldvabik.userservice.reactive.unit.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.reactive.cache.UserLookup;
+import org.oldvabik.userservice.reactive.dto.UserDto;
+import org.oldvabik.userservice.reactive.exception.BadRequestException;
+import org.oldvabik.userservice.reactive.exception.NotFoundException;
+import org.oldvabik.userservice.reactive.mapper.UserMapper;
+import org.oldvabik.userservice.reactive.repository.UserRepository;
+import org.oldvabik.userservice.reactive.repository.projection.UserView;
+import org.oldvabik.userservice.reactive.security.AccessChecker;
+import org.oldvabik.userservice.reactive.service.impl.UserServiceImpl;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private UserLookup userLookup;
+    @Mock
+    private AccessChecker accessChecker;
+    @Mock
+    private Authentication auth;
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private static UserDto user(Long id, String email) {
+        UserDto user = new UserDto();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+
+    @Test
+    void getUserById_found() {
+        UserDto user = user(1L, "test@example.com");
+
+        when(userLookup.findById(1L)).thenReturn(Mono.just(user));
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(true);
+
+        StepVerifier.create(userService.getUserById(auth, 1L, true))
+                .expectNext(user)
+                .verifyComplete();
+    }
+
+    @Test
+    void getUserById_withoutCards_usesProfileLookup() {
+        UserDto user = user(1L, "test@example.com");
+
+        when(userLookup.findProfileById(1L)).thenReturn(Mono.just(user));
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(true);
+
+        StepVerifier.create(userService.getUserById(auth, 1L, false))
+                .expectNext(user)
+                .verifyComplete();
+        verify(userLookup, never()).findById(any());
+    }
+
+    @Test
+    void getUserById_accessDenied() {
+        UserDto user = user(1L, "other@example.com");
+
+        when(userLookup.findById(1L)).thenReturn(Mono.just(user));
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(false);
+
+        StepVerifier.create(userService.getUserById(auth, 1L, true))
+                .verifyError(AccessDeniedException.class);
+    }
+
+    @Test
+    void getUserById_notFound() {
+        when(userLookup.findById(1L)).thenReturn(Mono.error(new NotFoundException("user with id 1 not found")));
+
+        StepVerifier.create(userService.getUserById(auth, 1L, true))
+                .verifyError(NotFoundException.class);
+    }
+
+    @Test
+    void getUsersByIds_keepsRequestOrderAndSkipsMissingAndDenied() {
+        ReflectionTestUtils.setField(userService, "maxIds", 100);
+        UserDto first = user(1L, "first@example.com");
+        UserDto denied = user(2L, "denied@example.com");
+        UserDto third = user(3L, "third@example.com");
+
+        when(userLookup.findAllById(List.of(3L, 2L, 1L, 4L)))
+                .thenReturn(Mono.just(Map.of(1L, first, 2L, denied, 3L, third)));
+        when(accessChecker.canAccessUser(auth, first)).thenReturn(true);
+        when(accessChecker.canAccessUser(auth, denied)).thenReturn(false);
+        when(accessChecker.canAccessUser(auth, third)).thenReturn(true);
+
+        StepVerifier.create(userService.getUsersByIds(auth, Arrays.asList(3L, 2L, null, 1L, 3L, 4L), true))
+                .expectNext(List.of(third, first))
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersByIds_tooManyIds_failsWithBadRequest() {
+        ReflectionTestUtils.setField(userService, "maxIds", 2);
+
+        StepVerifier.create(userService.getUsersByIds(auth, List.of(1L, 2L, 3L), true))
+                .verifyError(BadRequestException.class);
+        StepVerifier.create(userService.getUsersByIds(auth, List.of(), true))
+                .verifyError(BadRequestException.class);
+        verifyNoInteractions(userLookup);
+    }
+
+    @Test
+    void getAllUsers_withCards_loadsCardsForThePageOnly() {
+        UserView second = new UserView(2L, "B", "B", null, "b@example.com", 0L);
+        UserView first = new UserView(1L, "A", "A", null, "a@example.com", 0L);
+        UserDto firstUser = user(1L, "a@example.com");
+        UserDto secondUser = user(2L, "b@example.com");
+
+        when(userRepository.findProfilesPage(0, 2)).thenReturn(Flux.just(second, first));
+        when(userRepository.count()).thenReturn(Mono.just(5L));
+        when(userLookup.loadAll(List.of(2L, 1L))).thenReturn(Mono.just(Map.of(1L, firstUser, 2L, secondUser)));
+
+        StepVerifier.create(userService.getAllUsers(0, 2, true))
+                .assertNext(page -> {
+                    assertEquals(List.of(secondUser, firstUser), page.getContent());
+                    assertEquals(5L, page.getTotalElements());
+                })
+                .verifyComplete();
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void getAllUsers_withoutCards_skipsCardQuery() {
+        UserView view = new UserView(1L, "A", "A", null, "a@example.com", 0L);
+        UserDto user = user(1L, "a@example.com");
+
+        when(userRepository.findProfilesPage(0, 5)).thenReturn(Flux.just(view));
+        when(userRepository.count()).thenReturn(Mono.just(1L));
+        when(userMapper.fromView(view)).thenReturn(user);
+
+        StepVerifier.create(userService.getAllUsers(0, 5, false))
+                .assertNext(page -> assertEquals(List.of(user), page.getContent()))
+                .verifyComplete();
+        verify(userLookup, never()).loadAll(any());
+    }
+}
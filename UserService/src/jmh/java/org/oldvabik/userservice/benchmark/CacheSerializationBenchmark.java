@@ -0,0 +1,78 @@
+package org.oldvabik.userservice.benchmark;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.dto.CardInfoDto;
+import org.oldvabik.userservice.dto.UserDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CacheSerializationBenchmark {
+
+    @Param({"smile", "jdk", "json"})
+    public String format;
+
+    @Param({"0", "10", "1000"})
+    public int cardCount;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        serializer = switch (format) {
+            case "smile" -> (RedisSerializer<Object>) (RedisSerializer<?>) new SmileCacheSerializer<>(UserDto.class, 1024);
+            case "jdk" -> new JdkSerializationRedisSerializer();
+            case "json" -> new GenericJackson2JsonRedisSerializer().configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+            default -> throw new IllegalArgumentException("unknown format " + format);
+        };
+        value = "json".equals(format) ? user(cardCount) : CacheEntry.of(user(cardCount));
+        encoded = serializer.serialize(value);
+        System.out.printf("%n[size] format=%s cards=%d bytes=%d%n", format, cardCount, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    static UserDto user(int cardCount) {
+        UserDto user = new UserDto();
+        user.setId(1L);
+        user.setName("John");
+        user.setSurname("Doe");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail("john.doe@example.com");
+        List<CardInfoDto> cards = new ArrayList<>(cardCount);
+        for (int i = 0; i < cardCount; i++) {
+            CardInfoDto card = new CardInfoDto();
+            card.setId((long) i);
+            card.setNumber(String.format("4000%012d", i));
+            card.setHolder("John Doe");
+            card.setExpirationDate(LocalDate.of(2030, 1, 1).plusMonths(i % 120));
+            card.setUserId(1L);
+            cards.add(card);
+        }
+        user.setCards(cards);
+        return user;
+    }
+}
@@ -0,0 +1,50 @@
+package org.oldvabik.userservice.benchmark;
+
+import org.oldvabik.userservice.dto.CardInfoDto;
+import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.mapper.CardMapper;
+import org.oldvabik.userservice.mapper.CardMapperImpl;
+import org.oldvabik.userservice.repository.projection.CardView;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CardMapperBenchmark {
+
+    private CardMapper cardMapper;
+    private CardInfo card;
+    private CardView cardView;
+
+    @Setup
+    public void setUp() {
+        cardMapper = new CardMapperImpl();
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("john.doe@example.com");
+
+        card = new CardInfo();
+        card.setId(1L);
+        card.setNumber("4000000000000001");
+        card.setHolder("John Doe");
+        card.setExpirationDate(LocalDate.of(2030, 1, 1));
+        card.setUser(user);
+        cardView = new CardView(1L, card.getNumber(), card.getHolder(), card.getExpirationDate(), 0L, 1L, user.getEmail());
+    }
+
+    @Benchmark
+    public CardInfoDto entityToDto() {
+        return cardMapper.toDto(card);
+    }
+
+    @Benchmark
+    public CardInfoDto viewToDto() {
+        return cardMapper.toDto(cardView);
+    }
+}
@@ -0,0 +1,69 @@
+package org.oldvabik.userservice.benchmark;
+
+import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.mapper.CardMapperImpl;
+import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.mapper.UserMapperImpl;
+import org.oldvabik.userservice.repository.projection.UserCardView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserMapperBenchmark {
+
+    @Param({"0", "10", "1000"})
+    public int cardCount;
+
+    private UserMapper userMapper;
+    private User user;
+    private List<UserCardView> rows;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapperImpl();
+        ReflectionTestUtils.setField(userMapper, "cardMapper", new CardMapperImpl());
+
+        user = new User();
+        user.setId(1L);
+        user.setName("John");
+        user.setSurname("Doe");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail("john.doe@example.com");
+        rows = new ArrayList<>(Math.max(1, cardCount));
+        for (int i = 0; i < cardCount; i++) {
+            CardInfo info = new CardInfo();
+            info.setId((long) i);
+            info.setNumber(String.format("4000%012d", i));
+            info.setHolder("John Doe");
+            info.setExpirationDate(LocalDate.of(2030, 1, 1).plusMonths(i % 120));
+            info.setUser(user);
+            user.getCards().add(info);
+            rows.add(new UserCardView(1L, "John", "Doe", user.getBirthDate(), user.getEmail(), 0L,
+                    info.getId(), info.getNumber(), info.getHolder(), info.getExpirationDate(), 0L));
+        }
+        if (rows.isEmpty()) {
+            rows.add(new UserCardView(1L, "John", "Doe", user.getBirthDate(), user.getEmail(), 0L,
+                    null, null, null, null, null));
+        }
+    }
+
+    @Benchmark
+    public UserDto userToDto() {
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public UserDto userFromRows() {
+        return userMapper.fromRows(rows);
+    }
+}
@@ -0,0 +1,78 @@
+package org.oldvabik.userservice.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects per-operation latencies of one phase. Latency runs from the time a request was
+ * scheduled to be sent, not from when it was sent, so a stalled server shows up as queueing
+ * delay instead of silently lowering the offered load.
+ */
+final class LatencyRecorder {
+    private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            samples.put(operation, new Samples());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, int status) {
+        samples.get(operation).add(latencyNanos, status);
+    }
+
+    void failed(Operation operation, long latencyNanos) {
+        samples.get(operation).add(latencyNanos, 0);
+    }
+
+    void dropped(Operation operation) {
+        samples.get(operation).drop();
+    }
+
+    Map<Operation, Samples> samples() {
+        return samples;
+    }
+
+    static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long dropped;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void add(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        synchronized void drop() {
+            dropped++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long dropped() {
+            return dropped;
+        }
+
+        synchronized Map<Integer, Long> statuses() {
+            return new TreeMap<>(statuses);
+        }
+    }
+}
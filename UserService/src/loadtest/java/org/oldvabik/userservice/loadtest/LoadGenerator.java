@@ -0,0 +1,78 @@
+package org.oldvabik.userservice.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are started on a fixed schedule at the phase's target rate whether
+ * or not earlier ones have completed. Requests are built on the pacing thread from a seeded
+ * {@link Random}, so the same scenario and seed always produce the same request sequence.
+ */
+final class LoadGenerator {
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final int maxInFlight;
+
+    LoadGenerator(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    PhaseRun run(Scenario.Phase phase, Workload workload, Random random) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = TimeUnit.SECONDS.toNanos(1) / phase.rps();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(phase.durationSeconds());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+                Operation operation = phase.pick(random);
+                HttpRequest request = operation.build(workload, random);
+                waitUntil(intended);
+
+                if (inFlight.get() >= maxInFlight) {
+                    recorder.dropped(operation);
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.record(operation, System.nanoTime() - intended, response.statusCode());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        recorder.failed(operation, System.nanoTime() - intended);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        }
+        return new PhaseRun(phase, recorder, System.nanoTime() - start);
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    record PhaseRun(Scenario.Phase phase, LatencyRecorder recorder, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,167 @@
+package org.oldvabik.userservice.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.UserServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Postgres, Redis and an in-process UserService for one load test run. Containers are started
+ * unless external services are given; either way the users and cards tables are reset and
+ * reseeded, so never point this at a database whose data matters.
+ */
+@Slf4j
+final class LoadTestEnvironment implements AutoCloseable {
+    static final String JWT_SECRET = "loadtest-secret-loadtest-secret-loadtest-secret-0123";
+
+    private static final String STATEMENTS_SQL = """
+            SELECT calls, query
+            FROM pg_stat_statements
+            WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database())
+              AND query NOT ILIKE '%pg_stat_statements%'
+            ORDER BY calls DESC, query
+            """;
+
+    private final PostgreSQLContainer<?> postgres;
+    private final GenericContainer<?> redis;
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean statementsAvailable;
+
+    private LoadTestEnvironment(PostgreSQLContainer<?> postgres,
+                                GenericContainer<?> redis,
+                                ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.redis = redis;
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.statementsAvailable = enableStatements();
+    }
+
+    static LoadTestEnvironment start(LoadTestOptions options) {
+        PostgreSQLContainer<?> postgres = null;
+        GenericContainer<?> redis = null;
+        String url = options.postgresUrl();
+        String username = options.postgresUser();
+        String password = options.postgresPassword();
+        String redisHost = options.redisHost();
+        int redisPort = options.redisPort();
+
+        if (!options.externalServices()) {
+            postgres = new PostgreSQLContainer<>("postgres:15")
+                    .withDatabaseName("marketplace")
+                    .withUsername("postgres")
+                    .withPassword("postgres")
+                    .withCommand("postgres", "-c", "fsync=off", "-c", "shared_preload_libraries=pg_stat_statements");
+            redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+            postgres.start();
+            redis.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+            redisHost = redis.getHost();
+            redisPort = redis.getMappedPort(6379);
+        }
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.data.redis.host=" + redisHost,
+                "--spring.data.redis.port=" + redisPort,
+                "--jwt.secret=" + JWT_SECRET,
+                "--app.cache.warmup.enabled=false",
+                "--app.cards.archive.cron=-",
+                "--logging.level.root=WARN"));
+        args.addAll(options.appArgs());
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .run(args.toArray(String[]::new));
+        return new LoadTestEnvironment(postgres, redis, context);
+    }
+
+    URI baseUri() {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return URI.create("http://localhost:" + port);
+    }
+
+    void seed(Scenario.Dataset dataset) {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute("TRUNCATE card_info, card_number, card_info_archive, card_expiration_stats, users RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("""
+                INSERT INTO users (name, surname, birth_date, email)
+                SELECT 'Load', 'User' || g, DATE '1960-01-01' + (g * 7919 % 15000), 'load' || g || '@example.com'
+                FROM generate_series(1, ?) g
+                """, dataset.users());
+        jdbcTemplate.update("""
+                INSERT INTO card_info (user_id, number, holder, expiration_date)
+                SELECT u.id, '4' || lpad((u.id * 100 + c)::text, 15, '0'), u.name || ' ' || u.surname,
+                       DATE '2027-01-01' + ((u.id * 31 + c * 97) % 1500)::int
+                FROM users u, generate_series(0, ? - 1) c
+                ORDER BY u.id, c
+                """, dataset.cardsPerUser());
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE card_info");
+        flushCache();
+        log.warn("[LoadTest] seed: {} users with {} cards each in {} ms",
+                dataset.users(), dataset.cardsPerUser(), System.currentTimeMillis() - start);
+    }
+
+    void flushCache() {
+        context.getBean(StringRedisTemplate.class).execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+    }
+
+    void resetStatements() {
+        if (statementsAvailable) {
+            jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+        }
+    }
+
+    /**
+     * Statements executed since the last reset, most frequent first, or {@code null} when
+     * {@code pg_stat_statements} is not loaded on the server.
+     */
+    List<Map<String, Object>> statements() {
+        if (!statementsAvailable) {
+            return null;
+        }
+        return jdbcTemplate.queryForList(STATEMENTS_SQL);
+    }
+
+    private boolean enableStatements() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+            jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("[LoadTest] pg_stat_statements unavailable, DB statement counts are not reported: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (redis != null) {
+            redis.stop();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
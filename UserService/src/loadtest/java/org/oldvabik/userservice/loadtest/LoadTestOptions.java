@@ -0,0 +1,83 @@
+package org.oldvabik.userservice.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of {@link LoadTestRunner}. Options it does not know are passed to the
+ * application unchanged, so one run can be compared against another with a single setting flipped,
+ * e.g. {@code --app.cache.serializer=jdk}. {@code --compare-url} names a second, already running
+ * service that is measured with the same requests; it must use the same external Postgres and Redis.
+ */
+record LoadTestOptions(String scenario,
+                       Integer rps,
+                       Integer durationSeconds,
+                       Integer users,
+                       Integer cardsPerUser,
+                       Long seed,
+                       int maxInFlight,
+                       Path report,
+                       String postgresUrl,
+                       String postgresUser,
+                       String postgresPassword,
+                       String redisHost,
+                       int redisPort,
+                       URI compareUrl,
+                       List<String> appArgs) {
+
+    private static final Set<String> KNOWN = Set.of("scenario", "rps", "duration", "users", "cards-per-user",
+            "seed", "max-in-flight", "report", "postgres-url", "postgres-user", "postgres-password",
+            "redis-host", "redis-port", "compare-url");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (KNOWN.contains(name)) {
+                values.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+
+        String scenario = values.getOrDefault("scenario", "mixed");
+        LoadTestOptions options = new LoadTestOptions(
+                scenario,
+                integer(values.get("rps")),
+                integer(values.get("duration")),
+                integer(values.get("users")),
+                integer(values.get("cards-per-user")),
+                values.containsKey("seed") ? Long.valueOf(values.get("seed")) : null,
+                Integer.parseInt(values.getOrDefault("max-in-flight", "512")),
+                Path.of(values.getOrDefault("report", "target/loadtest/" + scenario + ".json")),
+                values.get("postgres-url"),
+                values.getOrDefault("postgres-user", "postgres"),
+                values.getOrDefault("postgres-password", "postgres"),
+                values.get("redis-host"),
+                Integer.parseInt(values.getOrDefault("redis-port", "6379")),
+                values.containsKey("compare-url") ? URI.create(values.get("compare-url")) : null,
+                List.copyOf(appArgs));
+        if (options.compareUrl() != null && !options.externalServices()) {
+            throw new IllegalArgumentException("--compare-url needs --postgres-url and --redis-host, "
+                    + "the compared service must read the same data");
+        }
+        return options;
+    }
+
+    boolean externalServices() {
+        return postgresUrl != null && redisHost != null;
+    }
+
+    private static Integer integer(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+}
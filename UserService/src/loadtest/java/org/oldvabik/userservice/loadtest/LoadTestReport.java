@@ -0,0 +1,140 @@
+package org.oldvabik.userservice.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of one run. It holds only values derived from the measurements, rounded and in a
+ * fixed order, so reports of two runs can be compared with a plain diff.
+ */
+record LoadTestReport(String scenario,
+                      long seed,
+                      Scenario.Dataset dataset,
+                      Scenario.HotKeys hotKeys,
+                      List<PhaseReport> phases) {
+    private static final int TOP_STATEMENTS = 10;
+    private static final int MAX_QUERY_LENGTH = 160;
+
+    record PhaseReport(String name,
+                       String target,
+                       int durationSeconds,
+                       int targetRps,
+                       long requests,
+                       double throughput,
+                       long errors,
+                       long dropped,
+                       Latency latencyMs,
+                       Long dbStatements,
+                       Double dbStatementsPerRequest,
+                       Map<Operation, OperationReport> operations,
+                       List<StatementReport> topStatements) {
+    }
+
+    record OperationReport(long requests, long errors, long dropped, Map<Integer, Long> statuses, Latency latencyMs) {
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(long[] sorted) {
+            return new Latency(percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length == 0 ? 0 : millis(sorted[sorted.length - 1]));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+            return millis(sorted[Math.max(0, rank)]);
+        }
+    }
+
+    record StatementReport(long calls, String query) {
+    }
+
+    static PhaseReport phase(String target, LoadGenerator.PhaseRun run, List<Map<String, Object>> statements) {
+        Map<Operation, OperationReport> operations = new EnumMap<>(Operation.class);
+        long[] all = new long[0];
+        long errors = 0;
+        long dropped = 0;
+
+        for (Map.Entry<Operation, LatencyRecorder.Samples> entry : run.recorder().samples().entrySet()) {
+            LatencyRecorder.Samples samples = entry.getValue();
+            long[] sorted = samples.sorted();
+            if (sorted.length == 0 && samples.dropped() == 0) {
+                continue;
+            }
+            operations.put(entry.getKey(), new OperationReport(sorted.length, samples.errors(), samples.dropped(),
+                    samples.statuses(), Latency.of(sorted)));
+            all = concat(all, sorted);
+            errors += samples.errors();
+            dropped += samples.dropped();
+        }
+        Arrays.sort(all);
+
+        Long dbStatements = null;
+        Double perRequest = null;
+        List<StatementReport> top = List.of();
+        if (statements != null) {
+            dbStatements = statements.stream().mapToLong(row -> ((Number) row.get("calls")).longValue()).sum();
+            perRequest = all.length == 0 ? 0 : round(dbStatements / (double) all.length, 2);
+            top = statements.stream()
+                    .limit(TOP_STATEMENTS)
+                    .map(row -> new StatementReport(((Number) row.get("calls")).longValue(),
+                            compact((String) row.get("query"))))
+                    .toList();
+        }
+
+        double seconds = run.elapsedNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        Scenario.Phase phase = run.phase();
+        return new PhaseReport(phase.name(), target, phase.durationSeconds(), phase.rps(), all.length,
+                round(all.length / seconds, 1), errors, dropped, Latency.of(all), dbStatements, perRequest,
+                operations, top);
+    }
+
+    String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%nscenario=%s seed=%d users=%d cardsPerUser=%d%n",
+                scenario, seed, dataset.users(), dataset.cardsPerUser()));
+        out.append(String.format("%-10s %-8s %-18s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n", "phase", "target",
+                "operation", "requests", "rps", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "max ms", "db/req"));
+        for (PhaseReport phase : phases) {
+            out.append(row(phase.name(), phase.target(), "ALL", phase.requests(), phase.throughput(), phase.errors(),
+                    phase.dropped(), phase.latencyMs(), phase.dbStatementsPerRequest()));
+            phase.operations().forEach((operation, report) -> out.append(row("", "", operation.name(),
+                    report.requests(), null, report.errors(), report.dropped(), report.latencyMs(), null)));
+        }
+        return out.toString();
+    }
+
+    private static String row(String phase, String target, String operation, long requests, Double rps,
+                              long errors, long dropped, Latency latency, Double dbPerRequest) {
+        return String.format("%-10s %-8s %-18s %9d %9s %7d %7d %9.2f %9.2f %9.2f %9.2f %9s%n", phase, target,
+                operation, requests, rps == null ? "" : rps.toString(), errors, dropped, latency.p50(), latency.p90(),
+                latency.p99(), latency.max(), dbPerRequest == null ? "" : dbPerRequest.toString());
+    }
+
+    private static long[] concat(long[] left, long[] right) {
+        long[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static String compact(String query) {
+        String single = query.replaceAll("\\s+", " ").trim();
+        return single.length() > MAX_QUERY_LENGTH ? single.substring(0, MAX_QUERY_LENGTH) + "..." : single;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0, 2);
+    }
+
+    private static double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+}
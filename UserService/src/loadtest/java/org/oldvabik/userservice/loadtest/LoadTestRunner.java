@@ -0,0 +1,94 @@
+package org.oldvabik.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs a load test scenario against a freshly seeded UserService and writes a JSON report.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--scenario=mixed --rps=300"
+ * </pre>
+ * With {@code --compare-url} every phase is run a second time, with the same request sequence, against
+ * another service that serves the same read API from the same database and cache, e.g. the WebFlux
+ * variant in {@code reactive/} started with {@code JWT_SECRET} set to {@link LoadTestEnvironment#JWT_SECRET}:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--scenario=concurrency --max-in-flight=8192
+ *     --postgres-url=jdbc:postgresql://localhost:5432/marketplace --redis-host=localhost
+ *     --compare-url=http://localhost:8081"
+ * </pre>
+ */
+@Slf4j
+public final class LoadTestRunner {
+    private static final String MVC_TARGET = "mvc";
+    private static final String COMPARE_TARGET = "compare";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ObjectMapper mapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        Scenario scenario = Scenario.load(options.scenario(), mapper).withOverrides(options);
+        if (options.compareUrl() != null && scenario.writes()) {
+            throw new IllegalArgumentException("--compare-url needs a read-only scenario such as concurrency, "
+                    + scenario.name() + " also writes");
+        }
+
+        LoadTestReport report;
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(options)) {
+            environment.seed(scenario.dataset());
+            Map<String, Target> targets = new LinkedHashMap<>();
+            targets.put(MVC_TARGET, new Target(environment.baseUri(), scenario));
+            if (options.compareUrl() != null) {
+                targets.put(COMPARE_TARGET, new Target(options.compareUrl(), scenario));
+            }
+            LoadGenerator generator = new LoadGenerator(options.maxInFlight());
+
+            List<LoadTestReport.PhaseReport> phases = new ArrayList<>();
+            for (Scenario.Phase phase : scenario.phases()) {
+                for (Map.Entry<String, Target> entry : targets.entrySet()) {
+                    if (phase.flushCache()) {
+                        environment.flushCache();
+                    }
+                    environment.resetStatements();
+                    log.warn("[LoadTest] phase {} on {}: {} rps for {} s", phase.name(), entry.getKey(), phase.rps(),
+                            phase.durationSeconds());
+                    Target target = entry.getValue();
+                    LoadGenerator.PhaseRun run = generator.run(phase, target.workload(), target.random());
+                    if (!phase.warmup()) {
+                        phases.add(LoadTestReport.phase(entry.getKey(), run, environment.statements()));
+                    }
+                }
+            }
+            report = new LoadTestReport(scenario.name(), scenario.seed(), scenario.dataset(), scenario.hotKeys(),
+                    phases);
+        }
+
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        mapper.writeValue(options.report().toFile(), report);
+        System.out.print(report.summary());
+        System.out.println("report written to " + options.report().toAbsolutePath());
+    }
+
+    /**
+     * Each target gets its own {@link Random} from the scenario seed, so all targets receive the same
+     * request sequence.
+     */
+    private record Target(Workload workload, Random random) {
+
+        Target(URI baseUri, Scenario scenario) {
+            this(new Workload(baseUri, scenario.dataset(), scenario.hotKeys(), LoadTestEnvironment.JWT_SECRET),
+                    new Random(scenario.seed()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.oldvabik.userservice.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+
+/**
+ * Request types a scenario can mix. Reads and writes act as the owning user, listings as an admin.
+ */
+enum Operation {
+    GET_USER(false) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            return workload.get("/api/v1/users/" + userId, workload.userToken(userId));
+        }
+    },
+    GET_USER_BY_EMAIL(false) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            return workload.get("/api/v1/users/search?email=" + Workload.email(userId), workload.userToken(userId));
+        }
+    },
+    GET_CARD(false) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            return workload.get("/api/v1/cards/" + workload.pickCard(userId, random), workload.userToken(userId));
+        }
+    },
+    LIST_USERS(false) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            int page = workload.pick(random, workload.pages(PAGE_SIZE));
+            return workload.get("/api/v1/users?page=" + page + "&size=" + PAGE_SIZE, workload.adminToken());
+        }
+    },
+    LIST_CARDS(false) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            int page = workload.pick(random, workload.pages(PAGE_SIZE));
+            return workload.get("/api/v1/cards?page=" + page + "&size=" + PAGE_SIZE, workload.adminToken());
+        }
+    },
+    UPDATE_USER(true) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            String body = "{\"name\":\"Name" + workload.pick(random, 1000) + "\"}";
+            return workload.put("/api/v1/users/" + userId, workload.userToken(userId), body);
+        }
+    },
+    CREATE_CARD(true) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            String body = "{\"userId\":" + userId + ",\"number\":\"" + workload.nextCardNumber()
+                    + "\",\"expirationDate\":\"2030-06-01\"}";
+            return workload.post("/api/v1/cards", workload.userToken(userId), body);
+        }
+    },
+    UPDATE_CARD(true) {
+        @Override
+        HttpRequest build(Workload workload, Random random) {
+            long userId = workload.pickUser(random);
+            String body = "{\"expirationDate\":\"20" + (30 + workload.pick(random, 10)) + "-01-01\"}";
+            return workload.put("/api/v1/cards/" + workload.pickCard(userId, random),
+                    workload.userToken(userId), body);
+        }
+    };
+
+    private static final int PAGE_SIZE = 20;
+
+    private final boolean write;
+
+    Operation(boolean write) {
+        this.write = write;
+    }
+
+    boolean write() {
+        return write;
+    }
+
+    abstract HttpRequest build(Workload workload, Random random);
+}
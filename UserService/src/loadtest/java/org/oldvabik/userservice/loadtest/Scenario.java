@@ -0,0 +1,76 @@
+package org.oldvabik.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A scripted load profile read from {@code scenarios/<name>.json}: the dataset to seed, how
+ * strongly reads concentrate on hot users, and the phases to run one after another.
+ */
+record Scenario(String name, long seed, Dataset dataset, HotKeys hotKeys, List<Phase> phases) {
+
+    record Dataset(int users, int cardsPerUser) {
+    }
+
+    /**
+     * {@code share} of the picks go to the first {@code fraction} of users.
+     */
+    record HotKeys(double share, double fraction) {
+    }
+
+    /**
+     * A {@code warmup} phase runs like any other but is left out of the report; it lets the JIT
+     * and connection pools settle before the measured phases.
+     */
+    record Phase(String name, int durationSeconds, int rps, boolean flushCache, boolean warmup,
+                 Map<Operation, Integer> mix) {
+
+        Operation pick(Random random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = random.nextInt(total);
+            for (Map.Entry<Operation, Integer> entry : new EnumMap<>(mix).entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("empty mix in phase " + name);
+        }
+    }
+
+    boolean writes() {
+        return phases.stream().anyMatch(phase -> phase.mix().keySet().stream().anyMatch(Operation::write));
+    }
+
+    static Scenario load(String name, ObjectMapper mapper) throws IOException {
+        try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("unknown scenario " + name);
+            }
+            return mapper.readValue(in, Scenario.class);
+        }
+    }
+
+    Scenario withOverrides(LoadTestOptions options) {
+        Dataset data = new Dataset(
+                options.users() != null ? options.users() : dataset.users(),
+                options.cardsPerUser() != null ? options.cardsPerUser() : dataset.cardsPerUser());
+        if (data.cardsPerUser() < 1 || data.cardsPerUser() > 99) {
+            throw new IllegalArgumentException("cards-per-user must be between 1 and 99");
+        }
+        List<Phase> overridden = phases.stream()
+                .map(p -> new Phase(p.name(),
+                        options.durationSeconds() != null ? options.durationSeconds() : p.durationSeconds(),
+                        options.rps() != null ? options.rps() : p.rps(),
+                        p.flushCache(),
+                        p.warmup(),
+                        p.mix()))
+                .toList();
+        return new Scenario(name, options.seed() != null ? options.seed() : seed, data, hotKeys, overridden);
+    }
+}
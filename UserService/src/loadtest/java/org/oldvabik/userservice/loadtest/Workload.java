@@ -0,0 +1,106 @@
+package org.oldvabik.userservice.loadtest;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds requests against the seeded dataset. Users are seeded with ids {@code 1..users} and
+ * card {@code k} of user {@code u} gets id {@code (u - 1) * cardsPerUser + k + 1}, so targets
+ * can be picked without asking the database. Only the pacing thread uses this class.
+ */
+final class Workload {
+    static final String ADMIN_EMAIL = "loadtest-admin@example.com";
+    private static final Duration TOKEN_TTL = Duration.ofHours(12);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final URI baseUri;
+    private final Scenario.Dataset dataset;
+    private final Scenario.HotKeys hotKeys;
+    private final Key key;
+    private final Map<Long, String> tokens = new HashMap<>();
+    private final String adminToken;
+    private long cardSequence;
+
+    Workload(URI baseUri, Scenario.Dataset dataset, Scenario.HotKeys hotKeys, String jwtSecret) {
+        this.baseUri = baseUri;
+        this.dataset = dataset;
+        this.hotKeys = hotKeys;
+        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.adminToken = mint(ADMIN_EMAIL, "ADMIN");
+    }
+
+    static String email(long userId) {
+        return "load" + userId + "@example.com";
+    }
+
+    long pickUser(Random random) {
+        int hot = Math.max(1, (int) (dataset.users() * hotKeys.fraction()));
+        int index = random.nextDouble() < hotKeys.share() ? random.nextInt(hot) : random.nextInt(dataset.users());
+        return index + 1L;
+    }
+
+    long pickCard(long userId, Random random) {
+        return (userId - 1) * dataset.cardsPerUser() + random.nextInt(dataset.cardsPerUser()) + 1;
+    }
+
+    int pick(Random random, int bound) {
+        return random.nextInt(bound);
+    }
+
+    int pages(int size) {
+        return Math.max(1, dataset.users() / size);
+    }
+
+    String nextCardNumber() {
+        return "5" + String.format("%015d", ++cardSequence);
+    }
+
+    String userToken(long userId) {
+        return tokens.computeIfAbsent(userId, id -> mint(email(id), "USER"));
+    }
+
+    String adminToken() {
+        return adminToken;
+    }
+
+    HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    HttpRequest put(String path, String token, String json) {
+        return request(path, token).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    HttpRequest post(String path, String token, String json) {
+        return request(path, token).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private String mint(String email, String role) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(email)
+                .claim("role", role)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + TOKEN_TTL.toMillis()))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,15 @@
+package org.oldvabik.userservice.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller method in an endpoint class whose concurrent requests are capped by {@link Bulkheads}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    BulkheadType value();
+}
@@ -0,0 +1,50 @@
+package org.oldvabik.userservice.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.exception.ServiceUnavailableException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Takes a permit from the bulkhead named by the handler's {@link Bulkhead} annotation before the request is
+ * handled and gives it back once the response is complete; a full bulkhead answers 503 right away.
+ */
+@Slf4j
+public class BulkheadInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final Bulkheads bulkheads;
+
+    public BulkheadInterceptor(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Bulkhead bulkhead = method.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            return true;
+        }
+        BulkheadType type = bulkhead.value();
+        if (!bulkheads.tryAcquire(type)) {
+            log.warn("[BulkheadInterceptor] preHandle: {} bulkhead full, rejecting {} {}",
+                    type.getName(), request.getMethod(), request.getRequestURI());
+            throw new ServiceUnavailableException("too many concurrent " + type.getName() + " requests, retry later");
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, type);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof BulkheadType type) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            bulkheads.release(type);
+        }
+    }
+}
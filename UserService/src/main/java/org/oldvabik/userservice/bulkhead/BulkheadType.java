@@ -0,0 +1,17 @@
+package org.oldvabik.userservice.bulkhead;
+
+public enum BulkheadType {
+    ADMIN_LISTING("admin-listing"),
+    WRITE("write"),
+    POINT_READ("point-read");
+
+    private final String name;
+
+    BulkheadType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
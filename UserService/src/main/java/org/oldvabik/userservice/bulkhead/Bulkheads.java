@@ -0,0 +1,70 @@
+package org.oldvabik.userservice.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps concurrent requests per endpoint class, so a burst of heavy admin listings cannot hold the Tomcat
+ * threads and pooled connections that cheap point reads need. A request that finds its class at capacity
+ * is turned away after at most {@code maxWaitMillis} instead of queueing; a class without a positive
+ * limit is not capped.
+ */
+public class Bulkheads {
+    private final Map<BulkheadType, Semaphore> permits = new EnumMap<>(BulkheadType.class);
+    private final Map<BulkheadType, Counter> rejected = new EnumMap<>(BulkheadType.class);
+    private final long maxWaitMillis;
+
+    public Bulkheads(Map<BulkheadType, Integer> limits, long maxWaitMillis, MeterRegistry meterRegistry) {
+        this.maxWaitMillis = maxWaitMillis;
+        limits.forEach((type, limit) -> {
+            if (limit == null || limit <= 0) {
+                return;
+            }
+            Semaphore semaphore = new Semaphore(limit);
+            permits.put(type, semaphore);
+            Gauge.builder("bulkhead.active", semaphore, s -> limit - s.availablePermits())
+                    .tag("bulkhead", type.getName())
+                    .description("Requests currently holding a bulkhead permit")
+                    .register(meterRegistry);
+            Gauge.builder("bulkhead.limit", () -> limit)
+                    .tag("bulkhead", type.getName())
+                    .register(meterRegistry);
+            rejected.put(type, Counter.builder("bulkhead.rejected")
+                    .tag("bulkhead", type.getName())
+                    .description("Requests turned away because the bulkhead was full")
+                    .register(meterRegistry));
+        });
+    }
+
+    public boolean tryAcquire(BulkheadType type) {
+        Semaphore semaphore = permits.get(type);
+        if (semaphore == null) {
+            return true;
+        }
+        boolean acquired;
+        try {
+            acquired = maxWaitMillis <= 0
+                    ? semaphore.tryAcquire()
+                    : semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.get(type).increment();
+        }
+        return acquired;
+    }
+
+    public void release(BulkheadType type) {
+        Semaphore semaphore = permits.get(type);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.oldvabik.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.datasource.DataSourceRouting;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads many entries of one cache with a single {@code MGET}, loads the misses with one call to the
+ * supplied loader and writes them back in one pipeline. Entries are read and written with the cache's
+ * own key prefix and value serializer, so they are shared with the single-key lookups.
+ * <p>
+ * Backfills use {@code SET NX}, so a value written meanwhile by a single-key load is kept. Batch hits do
+ * not trigger refresh-ahead; those entries expire normally. Caches that are not backed by Redis fall
+ * back to the loader for every id.
+ */
+@Slf4j
+@Component
+public class CacheBatchReader {
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public CacheBatchReader(CacheManager cacheManager, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <V> Map<Long, V> getAll(String cacheName, List<Long> ids, Function<List<Long>, Map<Long, V>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        RedisCache redisCache = RedisCacheEntries.redisCache(cache);
+        if (redisCache == null) {
+            return load(cache, ids, loader);
+        }
+
+        List<byte[]> keys = ids.stream().map(id -> RedisCacheEntries.rawKey(redisCache, id)).toList();
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(keys.toArray(new byte[0][])));
+
+        Map<Long, V> found = new HashMap<>(ids.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            V value = values == null ? null : read(redisCache, values.get(i));
+            if (value != null) {
+                found.put(ids.get(i), value);
+            } else {
+                misses.add(ids.get(i));
+            }
+        }
+        counter(cacheName, "hit").increment(found.size());
+        counter(cacheName, "miss").increment(misses.size());
+        log.debug("[CacheBatchReader] getAll: cache={}, hits={}, misses={}", cacheName, found.size(), misses.size());
+
+        if (!misses.isEmpty()) {
+            Map<Long, V> loaded = load(cache, misses, loader);
+            backfill(redisCache, loaded);
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    private <V> Map<Long, V> load(Cache cache, List<Long> ids, Function<List<Long>, Map<Long, V>> loader) {
+        boolean primary = cache instanceof SingleFlightCache singleFlightCache
+                && singleFlightCache.anyEvictedRecently(ids);
+        if (!primary) {
+            return loader.apply(ids);
+        }
+        try {
+            return DataSourceRouting.onPrimary(() -> loader.apply(ids));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <V> void backfill(RedisCache redisCache, Map<Long, V> loaded) {
+        if (loaded.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<Long, V> entry : loaded.entrySet()) {
+                CacheEntry<V> cacheEntry = CacheEntry.of(entry.getValue());
+                connection.stringCommands().set(RedisCacheEntries.rawKey(redisCache, entry.getKey()),
+                        RedisCacheEntries.rawValue(redisCache, cacheEntry),
+                        RedisCacheEntries.expiration(redisCache, entry.getKey(), cacheEntry), SetOption.ifAbsent());
+            }
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V read(RedisCache redisCache, byte[] bytes) {
+        Object value = RedisCacheEntries.readValue(redisCache, bytes);
+        return (V) (value instanceof CacheEntry<?> entry ? entry.value() : value);
+    }
+
+    private Counter counter(String cacheName, String result) {
+        return Counter.builder("cache.multiget.keys")
+                .description("Keys requested through batch cache reads")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
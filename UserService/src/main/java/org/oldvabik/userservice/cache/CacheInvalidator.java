@@ -0,0 +1,48 @@
+package org.oldvabik.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+
+/**
+ * Evicts the exact entries written by {@link UserLookup} and {@link CardLookup}. Inside a
+ * transaction the evictions run after commit.
+ */
+@Slf4j
+@Component
+public class CacheInvalidator {
+    private final CacheManager cacheManager;
+
+    public CacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public void evictUser(Long id, String email) {
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (users != null) {
+            users.evict(id);
+            users.evict("email:" + email);
+            log.debug("[CacheInvalidator] evictUser: id={}, email={}", id, email);
+        }
+        Cache profiles = cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE);
+        if (profiles != null) {
+            profiles.evict(id);
+            profiles.evict("email:" + email);
+        }
+        Cache versions = cacheManager.getCache(CacheConfig.USER_VERSIONS_CACHE);
+        if (versions != null) {
+            versions.evict(id);
+        }
+    }
+
+    public void evictCards(Collection<Long> cardIds) {
+        Cache cards = cacheManager.getCache(CacheConfig.CARDS_CACHE);
+        if (cards != null) {
+            cardIds.forEach(cards::evict);
+            log.debug("[CacheInvalidator] evictCards: {} cards", cardIds.size());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.oldvabik.userservice.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Persists the hottest user and card ids to Redis sorted sets and, on startup, loads the
+ * top entries back into the cache before the application reports ready. Each node adds the
+ * counts of its last window, so the sorted sets rank ids across the whole deployment.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${spring.cache.type:}' == 'redis' and ${app.cache.warmup.enabled:true}")
+public class CacheWarmup implements ApplicationRunner {
+    static final String USERS_KEY = "hotkeys:" + CacheConfig.USERS_CACHE;
+    static final String CARDS_KEY = "hotkeys:" + CacheConfig.CARDS_CACHE;
+    private static final Duration HOT_KEYS_TTL = Duration.ofDays(7);
+
+    private final HotKeyTracker hotKeyTracker;
+    private final UserLookup userLookup;
+    private final CardLookup cardLookup;
+    private final StringRedisTemplate redisTemplate;
+    private final AtomicLong lastDurationMs = new AtomicLong();
+    private final AtomicLong lastUsers = new AtomicLong();
+    private final AtomicLong lastCards = new AtomicLong();
+
+    @Value("${app.cache.warmup.top-k:500}")
+    private int topK;
+
+    @Value("${app.cache.warmup.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.cache.warmup.threads:4}")
+    private int threads;
+
+    @Value("${app.cache.warmup.timeout:30000}")
+    private long timeout;
+
+    public CacheWarmup(HotKeyTracker hotKeyTracker,
+                       UserLookup userLookup,
+                       CardLookup cardLookup,
+                       StringRedisTemplate redisTemplate,
+                       MeterRegistry meterRegistry) {
+        this.hotKeyTracker = hotKeyTracker;
+        this.userLookup = userLookup;
+        this.cardLookup = cardLookup;
+        this.redisTemplate = redisTemplate;
+
+        TimeGauge.builder("cache.warmup.duration", lastDurationMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time spent prefetching hot entries on startup")
+                .register(meterRegistry);
+        Gauge.builder("cache.warmup.entries", lastUsers, AtomicLong::get)
+                .tag("cache", CacheConfig.USERS_CACHE)
+                .description("Entries prefetched on startup")
+                .register(meterRegistry);
+        Gauge.builder("cache.warmup.entries", lastCards, AtomicLong::get)
+                .tag("cache", CacheConfig.CARDS_CACHE)
+                .description("Entries prefetched on startup")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        try {
+            lastUsers.set(warm(USERS_KEY, userLookup::findById));
+            lastCards.set(warm(CARDS_KEY, cardLookup::findById));
+        } catch (RuntimeException e) {
+            log.warn("[CacheWarmup] run: warmup skipped: {}", e.getMessage());
+        }
+        lastDurationMs.set(System.currentTimeMillis() - start);
+        log.info("[CacheWarmup] run: prefetched {} users and {} cards in {} ms",
+                lastUsers.get(), lastCards.get(), lastDurationMs.get());
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.warmup.persist-interval:60000}",
+            initialDelayString = "${app.cache.warmup.persist-interval:60000}")
+    public void persistHotKeys() {
+        try {
+            persist(USERS_KEY, hotKeyTracker.users());
+            persist(CARDS_KEY, hotKeyTracker.cards());
+        } catch (RuntimeException e) {
+            log.warn("[CacheWarmup] persistHotKeys: failed: {}", e.getMessage());
+        }
+    }
+
+    private void persist(String key, FrequencySketch sketch) {
+        List<Map.Entry<Long, Long>> top = sketch.top();
+        sketch.reset();
+        if (top.isEmpty()) {
+            return;
+        }
+
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<Long, Long> entry : top) {
+                connection.zSetCommands().zIncrBy(rawKey, entry.getValue(),
+                        entry.getKey().toString().getBytes(StandardCharsets.UTF_8));
+            }
+            trim(connection, rawKey);
+            return null;
+        });
+        log.debug("[CacheWarmup] persistHotKeys: persisted {} ids to {}", top.size(), key);
+    }
+
+    private void trim(RedisConnection connection, byte[] rawKey) {
+        connection.zSetCommands().zRemRange(rawKey, 0, -(4L * topK) - 1);
+        connection.keyCommands().expire(rawKey, HOT_KEYS_TTL.getSeconds());
+    }
+
+    private int warm(String key, LongConsumer loader) {
+        Set<String> members = redisTemplate.opsForZSet().reverseRange(key, 0, topK - 1);
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = members.stream().map(Long::valueOf).toList();
+        List<Callable<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            batches.add(() -> {
+                int loaded = 0;
+                for (Long id : batch) {
+                    try {
+                        loader.accept(id);
+                        loaded++;
+                    } catch (NotFoundException e) {
+                        log.debug("[CacheWarmup] warm: {} id={} no longer exists", key, id);
+                    }
+                }
+                return loaded;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, batches.size()));
+        int loaded = 0;
+        try {
+            for (Future<Integer> future : executor.invokeAll(batches, timeout, TimeUnit.MILLISECONDS)) {
+                if (future.isCancelled()) {
+                    log.warn("[CacheWarmup] warm: {} batch timed out", key);
+                    continue;
+                }
+                try {
+                    loaded += future.get();
+                } catch (ExecutionException e) {
+                    log.warn("[CacheWarmup] warm: {} batch failed: {}", key, e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,54 @@
+package org.oldvabik.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.projection.CardView;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached card reads keyed by id only. The cached view carries the owner's email so the
+ * caller can check access without another query. Cards are read from their owner's shard.
+ */
+@Slf4j
+@Component
+public class CardLookup {
+    private final CardRepository cardRepository;
+    private final CacheBatchReader cacheBatchReader;
+    private final UserShards userShards;
+
+    public CardLookup(CardRepository cardRepository, CacheBatchReader cacheBatchReader, UserShards userShards) {
+        this.cardRepository = cardRepository;
+        this.cacheBatchReader = cacheBatchReader;
+        this.userShards = userShards;
+    }
+
+    @Cacheable(value = CacheConfig.CARDS_CACHE, key = "#id", sync = true)
+    public CardView findById(Long id) {
+        return userShards.onShard(userShards.shardOf(id), () -> cardRepository.findViewById(id))
+                .orElseThrow(() -> {
+                    log.warn("[CardLookup] findById: card not found id={}", id);
+                    return new NotFoundException("card with id " + id + " not found");
+                });
+    }
+
+    /**
+     * Resolves many cards in one round trip; misses are loaded with one query and cached.
+     * Ids that do not exist are absent from the result.
+     */
+    public Map<Long, CardView> findAllById(List<Long> ids) {
+        return cacheBatchReader.getAll(CacheConfig.CARDS_CACHE, ids, missing -> {
+            Map<Long, CardView> cards = new HashMap<>(missing.size() * 2);
+            userShards.partition(missing).forEach((shard, shardIds) -> userShards
+                    .onShard(shard, () -> cardRepository.findViewsByIds(shardIds))
+                    .forEach(card -> cards.put(card.id(), card)));
+            return cards;
+        });
+    }
+}
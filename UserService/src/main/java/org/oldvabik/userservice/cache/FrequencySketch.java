@@ -0,0 +1,89 @@
+package org.oldvabik.userservice.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate access counter for ids: a count-min sketch bounds the memory used for counting,
+ * and a small map keeps the ids with the highest estimates seen in the current window.
+ */
+public class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int width;
+    private final int capacity;
+    private final AtomicLongArray counters;
+    private final Map<Long, Long> top = new ConcurrentHashMap<>();
+    private volatile long admissionThreshold;
+
+    public FrequencySketch(int width, int capacity) {
+        this.width = Integer.highestOneBit(Math.max(width, 16));
+        this.capacity = capacity;
+        this.counters = new AtomicLongArray(this.width * DEPTH);
+    }
+
+    public void record(long id) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * width + index(id, row)));
+        }
+
+        if (top.replace(id, estimate) != null) {
+            return;
+        }
+        if (top.size() < capacity) {
+            top.put(id, estimate);
+        } else if (estimate > admissionThreshold) {
+            admit(id, estimate);
+        }
+    }
+
+    public long estimate(long id) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + index(id, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Ids with the highest estimated counts in the current window, most frequent first.
+     */
+    public List<Map.Entry<Long, Long>> top() {
+        return top.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .toList();
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        top.clear();
+        admissionThreshold = 0;
+    }
+
+    private synchronized void admit(long id, long estimate) {
+        Map.Entry<Long, Long> coldest = top.entrySet().stream()
+                .min(Comparator.comparingLong(Map.Entry::getValue))
+                .orElse(null);
+        if (coldest != null && estimate > coldest.getValue()) {
+            top.remove(coldest.getKey());
+            top.put(id, estimate);
+        }
+        admissionThreshold = top.values().stream().mapToLong(Long::longValue).min().orElse(0);
+    }
+
+    private int index(long id, int row) {
+        long h = id * SEEDS[row];
+        h ^= h >>> 31;
+        return (int) (h & (width - 1));
+    }
+}
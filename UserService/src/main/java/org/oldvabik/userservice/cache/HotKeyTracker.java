@@ -0,0 +1,36 @@
+package org.oldvabik.userservice.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts user and card reads so the most requested ids can be persisted and prefetched
+ * into the cache after a restart.
+ */
+@Component
+public class HotKeyTracker {
+    private final FrequencySketch users;
+    private final FrequencySketch cards;
+
+    public HotKeyTracker(@Value("${app.cache.warmup.sketch-width:4096}") int sketchWidth,
+                         @Value("${app.cache.warmup.top-k:500}") int topK) {
+        this.users = new FrequencySketch(sketchWidth, topK);
+        this.cards = new FrequencySketch(sketchWidth, topK);
+    }
+
+    public void recordUser(Long id) {
+        users.record(id);
+    }
+
+    public void recordCard(Long id) {
+        cards.record(id);
+    }
+
+    public FrequencySketch users() {
+        return users;
+    }
+
+    public FrequencySketch cards() {
+        return cards;
+    }
+}
@@ -0,0 +1,59 @@
+package org.oldvabik.userservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.types.Expiration;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Raw keys, values and expirations of {@link RedisCache} entries, for commands the cache abstraction
+ * has no operation for. They use the cache's own key prefix, serializer and time to live, so entries
+ * written this way are shared with the regular cache operations.
+ */
+final class RedisCacheEntries {
+
+    private RedisCacheEntries() {
+    }
+
+    /**
+     * The Redis cache behind the single-flight and transaction-aware decorators, or {@code null}.
+     */
+    static RedisCache redisCache(Cache cache) {
+        Cache target = cache instanceof SingleFlightCache singleFlightCache ? singleFlightCache.getDelegate() : cache;
+        if (target instanceof TransactionAwareCacheDecorator decorator) {
+            target = decorator.getTargetCache();
+        }
+        return target instanceof RedisCache redisCache ? redisCache : null;
+    }
+
+    static byte[] rawKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String name = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + key : String.valueOf(key);
+        return bytes(config.getKeySerializationPair().write(name));
+    }
+
+    static byte[] rawValue(RedisCache cache, Object value) {
+        return bytes(cache.getCacheConfiguration().getValueSerializationPair().write(value));
+    }
+
+    static Object readValue(RedisCache cache, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return cache.getCacheConfiguration().getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+    }
+
+    static Expiration expiration(RedisCache cache, Object key, Object value) {
+        Duration ttl = cache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        return ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+package org.oldvabik.userservice.cache;
+
+import org.springframework.stereotype.Component;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent calls for the same key within this node: the first caller runs
+ * the loader and the others wait for its result. A waiter that times out runs the loader itself.
+ */
+@Component
+public class SingleFlight {
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, long waitTimeoutMs, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            try {
+                return (T) leader.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (TimeoutException e) {
+                return loader.call();
+            }
+        }
+
+        try {
+            T value = loader.call();
+            own.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static Exception rethrow(Throwable cause) {
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return (Exception) cause;
+    }
+}
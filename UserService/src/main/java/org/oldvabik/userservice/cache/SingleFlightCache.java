@@ -0,0 +1,339 @@
+package org.oldvabik.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.datasource.DataSourceRouting;
+import org.oldvabik.userservice.logging.MdcPropagation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Cache decorator that lets one caller per key load a missing value. Other callers on this
+ * node wait for that load; with {@code distributedLock}, callers on other nodes wait for
+ * the value to appear in the cache while a short Redis lock is held, and load it themselves
+ * once the lock timeout passes.
+ * <p>
+ * Values are stored as {@link CacheEntry} with their write time. A hit on an entry older than
+ * {@code refreshAfterMs} is served as is and reloaded on {@code refreshExecutor}; when the
+ * executor is saturated the refresh is skipped and the entry expires normally. The reloaded
+ * value replaces the entry only while it is still the one that was found stale, and in Redis
+ * only with {@code SET XX}, so a refresh never brings back an entry evicted meanwhile.
+ * <p>
+ * Loads of a key evicted within the last {@code primaryReadAfterEvictMs} read from the
+ * primary database, so a lagging replica cannot put the pre-write value back into the cache.
+ * With {@code sharedEvictions}, each eviction also leaves a marker in Redis for that long
+ * once its transaction commits, so loads on other nodes go to the primary as well.
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final Cache delegate;
+    private final SingleFlight singleFlight;
+    private final StringRedisTemplate redisTemplate;
+    private final Executor refreshExecutor;
+    private final Settings settings;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<Object, Long> recentEvictions = new ConcurrentHashMap<>();
+
+    public record Settings(long lockTimeoutMs,
+                           long pollIntervalMs,
+                           long refreshAfterMs,
+                           long primaryReadAfterEvictMs,
+                           boolean distributedLock,
+                           boolean sharedEvictions) {
+    }
+
+    public SingleFlightCache(Cache delegate,
+                             SingleFlight singleFlight,
+                             StringRedisTemplate redisTemplate,
+                             Executor refreshExecutor,
+                             Settings settings) {
+        this.delegate = delegate;
+        this.singleFlight = singleFlight;
+        this.redisTemplate = redisTemplate;
+        this.refreshExecutor = refreshExecutor;
+        this.settings = settings;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            if (cached.get() instanceof CacheEntry<?> entry) {
+                refreshIfStale(key, entry, valueLoader);
+            }
+            return (T) unwrap(cached.get());
+        }
+        try {
+            return singleFlight.execute(flightKey(key), settings.lockTimeoutMs(), () -> load(key, valueLoader, null));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void refreshIfStale(Object key, CacheEntry<?> stale, Callable<?> valueLoader) {
+        if (refreshExecutor == null || settings.refreshAfterMs() <= 0 || stale.ageMillis() < settings.refreshAfterMs()) {
+            return;
+        }
+        String flightKey = flightKey(key);
+        if (!refreshing.add(flightKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(MdcPropagation.wrap(() -> {
+                try {
+                    singleFlight.execute(flightKey, settings.lockTimeoutMs(), () -> load(key, valueLoader, stale));
+                    log.debug("[Cache] refreshed {} ahead of expiry", flightKey);
+                } catch (Exception e) {
+                    log.warn("[Cache] refresh failed for {}: {}", flightKey, e.getMessage());
+                } finally {
+                    refreshing.remove(flightKey);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(flightKey);
+            log.debug("[Cache] refresh queue full, skipping {}", flightKey);
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader, CacheEntry<?> stale) throws Exception {
+        if (!settings.distributedLock()) {
+            return loadAndPut(key, valueLoader, stale);
+        }
+
+        String lockKey = "lock:" + flightKey(key);
+        String token = UUID.randomUUID().toString();
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, Duration.ofMillis(settings.lockTimeoutMs())))) {
+            try {
+                return loadAndPut(key, valueLoader, stale);
+            } finally {
+                redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + settings.lockTimeoutMs();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(settings.pollIntervalMs());
+            ValueWrapper loaded = delegate.get(key);
+            if (loaded != null) {
+                @SuppressWarnings("unchecked")
+                T value = (T) unwrap(loaded.get());
+                return value;
+            }
+        }
+        log.debug("[Cache] lock wait timed out for {}, loading directly", flightKey(key));
+        return loadAndPut(key, valueLoader, stale);
+    }
+
+    /**
+     * Loads a value and caches it: unconditionally for a miss, and for a refresh of {@code stale}
+     * only if the entry was neither evicted nor rewritten while the value was loading.
+     */
+    private <T> T loadAndPut(Object key, Callable<T> valueLoader, CacheEntry<?> stale) throws Exception {
+        T value = evictedRecently(key) ? DataSourceRouting.onPrimary(valueLoader) : valueLoader.call();
+        if (value == null) {
+            return value;
+        }
+        if (stale == null) {
+            delegate.put(key, CacheEntry.of(value));
+        } else if (!replaceIfUnchanged(key, stale, CacheEntry.of(value))) {
+            log.debug("[Cache] {} changed while refreshing, dropping the refreshed value", flightKey(key));
+        }
+        return value;
+    }
+
+    private boolean replaceIfUnchanged(Object key, CacheEntry<?> stale, CacheEntry<?> fresh) {
+        ValueWrapper current = delegate.get(key);
+        if (current == null || !(current.get() instanceof CacheEntry<?> entry) || entry.writtenAt() != stale.writtenAt()) {
+            return false;
+        }
+        RedisCache redisCache = RedisCacheEntries.redisCache(delegate);
+        if (redisCache == null || redisTemplate == null) {
+            delegate.put(key, fresh);
+            return true;
+        }
+        // XX: an eviction between the check above and this write leaves the key absent
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(RedisCacheEntries.rawKey(redisCache, key),
+                        RedisCacheEntries.rawValue(redisCache, fresh),
+                        RedisCacheEntries.expiration(redisCache, key, fresh), SetOption.ifPresent())));
+    }
+
+    /**
+     * Whether {@code key} was evicted on any node within the last {@code primaryReadAfterEvictMs},
+     * so loads must go to the primary.
+     */
+    public boolean evictedRecently(Object key) {
+        return anyEvictedRecently(List.of(key));
+    }
+
+    /**
+     * Like {@link #evictedRecently(Object)} for several keys, with one Redis round trip.
+     */
+    public boolean anyEvictedRecently(Collection<?> keys) {
+        if (keys.stream().anyMatch(this::evictedHere)) {
+            return true;
+        }
+        if (!settings.sharedEvictions() || keys.isEmpty()) {
+            return false;
+        }
+        try {
+            Long marked = redisTemplate.countExistingKeys(keys.stream().map(this::markerKey).toList());
+            return marked != null && marked > 0;
+        } catch (RuntimeException e) {
+            log.warn("[Cache] eviction marker check failed for {}, loading from primary: {}", getName(), e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean evictedHere(Object key) {
+        Long at = recentEvictions.get(key);
+        if (at == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - at < settings.primaryReadAfterEvictMs()) {
+            return true;
+        }
+        recentEvictions.remove(key, at);
+        return false;
+    }
+
+    private void recordEviction(Object key) {
+        if (settings.primaryReadAfterEvictMs() <= 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markEvicted(key);
+            return;
+        }
+        rememberEviction(key);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markEvicted(key);
+            }
+        });
+    }
+
+    private void markEvicted(Object key) {
+        rememberEviction(key);
+        if (!settings.sharedEvictions()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(markerKey(key), "1", Duration.ofMillis(settings.primaryReadAfterEvictMs()));
+        } catch (RuntimeException e) {
+            log.warn("[Cache] failed to write eviction marker for {}: {}", flightKey(key), e.getMessage());
+        }
+    }
+
+    private void rememberEviction(Object key) {
+        long now = System.currentTimeMillis();
+        recentEvictions.put(key, now);
+        if (recentEvictions.size() > PRUNE_THRESHOLD) {
+            recentEvictions.values().removeIf(at -> now - at >= settings.primaryReadAfterEvictMs());
+        }
+    }
+
+    private String markerKey(Object key) {
+        return "evicted:" + flightKey(key);
+    }
+
+    private String flightKey(Object key) {
+        return getName() + "::" + key;
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof CacheEntry<?> entry ? entry.value() : value;
+    }
+
+    private static ValueWrapper unwrap(ValueWrapper wrapper) {
+        return wrapper == null ? null : new SimpleValueWrapper(unwrap(wrapper.get()));
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return unwrap(delegate.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value == null ? null : CacheEntry.of(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return unwrap(delegate.putIfAbsent(key, value == null ? null : CacheEntry.of(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        recordEviction(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        recordEviction(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
@@ -0,0 +1,140 @@
+package org.oldvabik.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.repository.projection.UserCardView;
+import org.oldvabik.userservice.repository.projection.UserVersionView;
+import org.oldvabik.userservice.repository.projection.UserView;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
+
+/**
+ * Cached user reads keyed by id or email only, so that concurrent callers share one entry
+ * and one load. Loads read the shard that holds the user. Access checks are left to the caller.
+ */
+@Slf4j
+@Component
+public class UserLookup {
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final CacheBatchReader cacheBatchReader;
+    private final UserShards userShards;
+
+    public UserLookup(UserRepository userRepository,
+                      UserMapper userMapper,
+                      CacheBatchReader cacheBatchReader,
+                      UserShards userShards) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.cacheBatchReader = cacheBatchReader;
+        this.userShards = userShards;
+    }
+
+    @Cacheable(value = CacheConfig.USERS_CACHE, key = "#id", sync = true)
+    public UserDto findById(Long id) {
+        List<UserCardView> rows = userShards.onShard(userShards.shardOf(id), () -> userRepository.findViewById(id));
+        if (rows.isEmpty()) {
+            log.warn("[UserLookup] findById: user not found id={}", id);
+            throw new NotFoundException("user with id " + id + " not found");
+        }
+        return userMapper.fromRows(rows);
+    }
+
+    /**
+     * Resolves many users from the id-keyed entries in one round trip; misses are loaded with one query
+     * and cached. Ids that do not exist are absent from the result.
+     */
+    public Map<Long, UserDto> findAllById(List<Long> ids) {
+        return cacheBatchReader.getAll(CacheConfig.USERS_CACHE, ids, this::loadAll);
+    }
+
+    private Map<Long, UserDto> loadAll(List<Long> ids) {
+        Map<Long, List<UserCardView>> rowsById = new LinkedHashMap<>();
+        userShards.partition(ids).forEach((shard, shardIds) -> {
+            for (UserCardView row : userShards.onShard(shard, () -> userRepository.findViewsByIds(shardIds))) {
+                rowsById.computeIfAbsent(row.id(), id -> new ArrayList<>()).add(row);
+            }
+        });
+        Map<Long, UserDto> users = new HashMap<>(rowsById.size() * 2);
+        rowsById.forEach((id, rows) -> users.put(id, userMapper.fromRows(rows)));
+        log.debug("[UserLookup] loadAll: loaded {} of {} users", users.size(), ids.size());
+        return users;
+    }
+
+    /**
+     * User without cards, read with no join and cached apart from the full user.
+     */
+    @Cacheable(value = CacheConfig.USER_PROFILES_CACHE, key = "#id", sync = true)
+    public UserDto findProfileById(Long id) {
+        return userShards.onShard(userShards.shardOf(id), () -> userRepository.findProfileById(id))
+                .map(userMapper::fromView)
+                .orElseThrow(() -> {
+                    log.warn("[UserLookup] findProfileById: user not found id={}", id);
+                    return new NotFoundException("user with id " + id + " not found");
+                });
+    }
+
+    @Cacheable(value = CacheConfig.USER_PROFILES_CACHE, key = "'email:' + #email", sync = true)
+    public UserDto findProfileByEmail(String email) {
+        return onShardOf(email, () -> userRepository.findProfileByEmail(email), Optional.<UserView>empty())
+                .map(userMapper::fromView)
+                .orElseThrow(() -> {
+                    log.warn("[UserLookup] findProfileByEmail: user not found email={}", email);
+                    return new NotFoundException("user with email " + email + " not found");
+                });
+    }
+
+    public Map<Long, UserDto> findAllProfilesById(List<Long> ids) {
+        return cacheBatchReader.getAll(CacheConfig.USER_PROFILES_CACHE, ids, missing -> {
+            Map<Long, UserDto> users = new HashMap<>(missing.size() * 2);
+            userShards.partition(missing).forEach((shard, shardIds) -> userShards
+                    .onShard(shard, () -> userRepository.findProfilesByIds(shardIds))
+                    .forEach(view -> users.put(view.id(), userMapper.fromView(view))));
+            return users;
+        });
+    }
+
+    /**
+     * Version stamp used to answer conditional reads without loading or deserializing the user and its cards.
+     */
+    @Cacheable(value = CacheConfig.USER_VERSIONS_CACHE, key = "#id", sync = true)
+    public UserVersionView findVersionById(Long id) {
+        return userShards.onShard(userShards.shardOf(id), () -> userRepository.findVersionViewById(id))
+                .orElseThrow(() -> {
+                    log.warn("[UserLookup] findVersionById: user not found id={}", id);
+                    return new NotFoundException("user with id " + id + " not found");
+                });
+    }
+
+    @Cacheable(value = CacheConfig.USERS_CACHE, key = "'email:' + #email", sync = true)
+    public UserDto findByEmail(String email) {
+        List<UserCardView> rows = onShardOf(email, () -> userRepository.findViewByEmail(email), List.of());
+        if (rows.isEmpty()) {
+            log.warn("[UserLookup] findByEmail: user not found email={}", email);
+            throw new NotFoundException("user with email " + email + " not found");
+        }
+        return userMapper.fromRows(rows);
+    }
+
+    /**
+     * Runs a read on the shard the directory assigns to the email; the read does not run, and finds
+     * nothing, if no shard has the email.
+     */
+    private <T> T onShardOf(String email, Supplier<T> read, T none) {
+        OptionalInt shard = userShards.shardOfEmail(email);
+        return shard.isPresent() ? userShards.onShard(shard.getAsInt(), read) : none;
+    }
+}
@@ -0,0 +1,33 @@
+package org.oldvabik.userservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.oldvabik.userservice.bulkhead.BulkheadType;
+import org.oldvabik.userservice.bulkhead.Bulkheads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.Map;
+
+@Configuration
+public class BulkheadConfig {
+
+    @Value("${app.bulkhead.admin-listing.max-concurrent:2}")
+    private int adminListingLimit;
+
+    @Value("${app.bulkhead.write.max-concurrent:16}")
+    private int writeLimit;
+
+    @Value("${app.bulkhead.point-read.max-concurrent:64}")
+    private int pointReadLimit;
+
+    @Value("${app.bulkhead.max-wait:0}")
+    private long maxWait;
+
+    @Bean
+    public Bulkheads bulkheads(MeterRegistry meterRegistry) {
+        return new Bulkheads(Map.of(
+                BulkheadType.ADMIN_LISTING, adminListingLimit,
+                BulkheadType.WRITE, writeLimit,
+                BulkheadType.POINT_READ, pointReadLimit), maxWait, meterRegistry);
+    }
+}
@@ -0,0 +1,161 @@
+package org.oldvabik.userservice.config;
+
+import org.oldvabik.userservice.cache.SingleFlight;
+import org.oldvabik.userservice.cache.SingleFlightCache;
+import org.oldvabik.userservice.cache.SingleFlightCacheManager;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
+import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.repository.projection.CardView;
+import org.oldvabik.userservice.repository.projection.UserVersionView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class CacheConfig {
+    public static final String USERS_CACHE = "users";
+    public static final String USER_PROFILES_CACHE = "userProfiles";
+    public static final String USER_VERSIONS_CACHE = "userVersions";
+    public static final String CARDS_CACHE = "cards";
+    public static final String CARD_ANALYTICS_CACHE = "cardAnalytics";
+
+    @Value("${app.cache.ttl.users:${spring.cache.redis.time-to-live:600000}}")
+    private long usersTimeToLive;
+
+    @Value("${app.cache.ttl.cards:${spring.cache.redis.time-to-live:600000}}")
+    private long cardsTimeToLive;
+
+    @Value("${app.cache.ttl.card-analytics:60000}")
+    private long cardAnalyticsTimeToLive;
+
+    @Value("${app.datasource.routing.enabled:false}")
+    private boolean routingEnabled;
+
+    @Value("${app.datasource.routing.read-your-writes-window:5000}")
+    private long readYourWritesWindow;
+
+    @Value("${app.datasource.routing.max-replica-lag:10000}")
+    private long maxReplicaLag;
+
+    @Value("${app.cache.refresh-ahead.fraction:0.8}")
+    private double refreshAheadFraction;
+
+    @Value("${app.cache.refresh-ahead.threads:2}")
+    private int refreshThreads;
+
+    @Value("${app.cache.refresh-ahead.queue-capacity:256}")
+    private int refreshQueueCapacity;
+
+    @Value("${app.cache.serializer:smile}")
+    private String serializer;
+
+    @Value("${app.cache.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${app.cache.single-flight.distributed-lock:false}")
+    private boolean distributedLock;
+
+    @Value("${app.cache.single-flight.lock-timeout:3000}")
+    private long lockTimeout;
+
+    @Value("${app.cache.single-flight.poll-interval:50}")
+    private long pollInterval;
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     SingleFlight singleFlight) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues();
+        Map<String, Long> timesToLive = Map.of(USERS_CACHE, usersTimeToLive, USER_PROFILES_CACHE, usersTimeToLive,
+                USER_VERSIONS_CACHE, usersTimeToLive, CARDS_CACHE, cardsTimeToLive,
+                CARD_ANALYTICS_CACHE, cardAnalyticsTimeToLive);
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withCacheConfiguration(USERS_CACHE, defaults
+                        .entryTtl(Duration.ofMillis(usersTimeToLive))
+                        .serializeValuesWith(valueSerializer(UserDto.class)))
+                .withCacheConfiguration(USER_PROFILES_CACHE, defaults
+                        .entryTtl(Duration.ofMillis(usersTimeToLive))
+                        .serializeValuesWith(valueSerializer(UserDto.class)))
+                .withCacheConfiguration(USER_VERSIONS_CACHE, defaults
+                        .entryTtl(Duration.ofMillis(usersTimeToLive))
+                        .serializeValuesWith(valueSerializer(UserVersionView.class)))
+                .withCacheConfiguration(CARDS_CACHE, defaults
+                        .entryTtl(Duration.ofMillis(cardsTimeToLive))
+                        .serializeValuesWith(valueSerializer(CardView.class)))
+                .withCacheConfiguration(CARD_ANALYTICS_CACHE, defaults
+                        .entryTtl(Duration.ofMillis(cardAnalyticsTimeToLive))
+                        .serializeValuesWith(valueSerializer(CardExpirationStatsDto.class)))
+                .transactionAware()
+                .enableStatistics()
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(refreshQueueCapacity),
+                new CustomizableThreadFactory("cache-refresh-"));
+        refreshExecutor.allowCoreThreadTimeOut(true);
+
+        // a replica stays in rotation while it lags less than max-replica-lag, so other nodes must
+        // read an evicted key from the primary for at least that long
+        long primaryReadAfterEvict = routingEnabled ? Math.max(readYourWritesWindow, maxReplicaLag) : readYourWritesWindow;
+        return new SingleFlightCacheManager(redisCacheManager,
+                cache -> new SingleFlightCache(cache, singleFlight, stringRedisTemplate, refreshExecutor,
+                        new SingleFlightCache.Settings(lockTimeout, pollInterval,
+                                refreshAfter(timesToLive.get(cache.getName())), primaryReadAfterEvict,
+                                distributedLock, routingEnabled)),
+                refreshExecutor);
+    }
+
+    /**
+     * Boot binds cache meters only for caches it recognizes, so the Redis statistics are
+     * reached through the single-flight and transaction-aware decorators.
+     */
+    @Bean
+    public CacheMeterBinderProvider<SingleFlightCache> singleFlightCacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            Cache target = cache.getDelegate();
+            if (target instanceof TransactionAwareCacheDecorator decorator) {
+                target = decorator.getTargetCache();
+            }
+            return target instanceof RedisCache redisCache ? new RedisCacheMetrics(redisCache, tags) : null;
+        };
+    }
+
+    private long refreshAfter(Long timeToLive) {
+        if (timeToLive == null || timeToLive <= 0 || refreshAheadFraction <= 0 || refreshAheadFraction >= 1) {
+            return 0;
+        }
+        return (long) (timeToLive * refreshAheadFraction);
+    }
+
+    private SerializationPair<?> valueSerializer(Class<?> type) {
+        if ("jdk".equals(serializer)) {
+            return SerializationPair.fromSerializer(RedisSerializer.java());
+        }
+        return SerializationPair.fromSerializer(new SmileCacheSerializer<>(type, compressionThreshold));
+    }
+}
@@ -0,0 +1,85 @@
+package org.oldvabik.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.oldvabik.userservice.datasource.ReadYourWritesTracker;
+import org.oldvabik.userservice.datasource.ReplicaHealthChecker;
+import org.oldvabik.userservice.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Value("${app.datasource.routing.replica-urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.routing.read-your-writes-window:5000}")
+    private long readYourWritesWindow;
+
+    @Value("${app.datasource.routing.max-replica-lag:10000}")
+    private long maxReplicaLag;
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesWindow);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                             ReadYourWritesTracker readYourWritesTracker,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        MetricsTrackerFactory metricsTrackerFactory = meterRegistry.stream()
+                .findFirst()
+                .map(MicrometerMetricsTrackerFactory::new)
+                .orElse(null);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metricsTrackerFactory);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String key = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            replica.setPoolName(key);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metricsTrackerFactory);
+            replicas.put(key, replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaHealthChecker(replicaRoutingDataSource, maxReplicaLag);
+    }
+}
@@ -0,0 +1,35 @@
+package org.oldvabik.userservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.oldvabik.userservice.cache.SingleFlight;
+import org.oldvabik.userservice.idempotency.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${app.idempotency.ttl:86400000}")
+    private long ttl;
+
+    @Value("${app.idempotency.lock-timeout:10000}")
+    private long lockTimeout;
+
+    @Value("${app.idempotency.poll-interval:50}")
+    private long pollInterval;
+
+    @Bean
+    public IdempotencyStore idempotencyStore(StringRedisTemplate redisTemplate,
+                                             ObjectMapper objectMapper,
+                                             SingleFlight singleFlight) {
+        ScheduledThreadPoolExecutor renewalScheduler = new ScheduledThreadPoolExecutor(1,
+                new CustomizableThreadFactory("idempotency-renewal-"));
+        renewalScheduler.setRemoveOnCancelPolicy(true);
+        return new IdempotencyStore(redisTemplate, objectMapper, singleFlight, renewalScheduler,
+                new IdempotencyStore.Settings(ttl, lockTimeout, pollInterval));
+    }
+}
@@ -0,0 +1,28 @@
+package org.oldvabik.userservice.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.oldvabik.userservice.common.web.FieldSelection;
+import org.oldvabik.userservice.dto.UserDto;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+    /**
+     * Attaches the sparse fieldset filter to {@link UserDto} for HTTP responses only; the cache
+     * serializers use their own mappers and always write every field.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer userFieldsFilterCustomizer() {
+        return builder -> builder
+                .mixIn(UserDto.class, UserFieldsMixin.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @JsonFilter(FieldSelection.FILTER)
+    private interface UserFieldsMixin {
+    }
+}
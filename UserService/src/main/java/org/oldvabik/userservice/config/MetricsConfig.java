@@ -0,0 +1,99 @@
+package org.oldvabik.userservice.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.oldvabik.userservice.logging.CountingAsyncAppender;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Configuration
+public class MetricsConfig {
+    private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+    private static final String ALL_ENDPOINTS = "*";
+    private static final double[] COARSE_BUCKETS = {
+            Duration.ofMillis(50).toNanos(),
+            Duration.ofMillis(250).toNanos(),
+            Duration.ofSeconds(1).toNanos(),
+            Duration.ofSeconds(5).toNanos()
+    };
+
+    @Value("${app.metrics.histogram.endpoints:}")
+    private List<String> histogramEndpoints;
+
+    @Value("${app.metrics.histogram.redis:false}")
+    private boolean redisHistogram;
+
+    /**
+     * Publishes full percentile histogram buckets for {@code http.server.requests} only for the listed
+     * URI templates (or all of them with {@code *}); other URIs get a handful of coarse buckets, because
+     * Prometheus rejects a metric whose series mix histogram and summary types.
+     */
+    @Bean
+    public MeterFilter endpointHistogramFilter() {
+        Set<String> endpoints = histogramEndpoints.stream()
+                .map(String::trim)
+                .filter(endpoint -> !endpoint.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!HTTP_SERVER_REQUESTS.equals(id.getName())) {
+                    return config;
+                }
+                if (endpoints.contains(ALL_ENDPOINTS) || endpoints.contains(id.getTag("uri"))) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return DistributionStatisticConfig.builder()
+                        .serviceLevelObjectives(COARSE_BUCKETS)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * Exposes the async log appenders' queue depth and the routine events they dropped on a full queue.
+     */
+    @Bean
+    public MeterBinder asyncLoggingMetrics() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+                return;
+            }
+            context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders().forEachRemaining(appender -> {
+                if (appender instanceof CountingAsyncAppender async) {
+                    FunctionCounter.builder("logging.async.dropped", async, CountingAsyncAppender::getDroppedCount)
+                            .tag("appender", async.getName())
+                            .description("Log events below WARN dropped because the async queue was full")
+                            .register(registry);
+                    Gauge.builder("logging.async.queue.size", async, CountingAsyncAppender::getNumberOfElementsInQueue)
+                            .tag("appender", async.getName())
+                            .register(registry);
+                }
+            });
+        };
+    }
+
+    @Bean
+    public MicrometerOptions micrometerOptions() {
+        return MicrometerOptions.builder()
+                .histogram(redisHistogram)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.oldvabik.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
+import org.oldvabik.userservice.datasource.ShardDirectory;
+import org.oldvabik.userservice.datasource.ShardRoutingDataSource;
+import org.oldvabik.userservice.datasource.ShardedLiquibase;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public UserShards userShards() {
+        return UserShards.unsharded();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    static class Sharded {
+
+        @Value("${app.sharding.shard-urls:}")
+        private List<String> shardUrls;
+
+        @Value("${app.sharding.scatter-threads:8}")
+        private int scatterThreads;
+
+        @Value("${app.sharding.directory.take-over-after:60000}")
+        private long takeOverAfter;
+
+        @Value("${app.datasource.routing.enabled:false}")
+        private boolean replicaRouting;
+
+        @Value("${spring.liquibase.change-log}")
+        private String changeLog;
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+            if (replicaRouting) {
+                throw new IllegalStateException("app.sharding and app.datasource.routing cannot be enabled together");
+            }
+            MetricsTrackerFactory metricsTrackerFactory = meterRegistry.stream()
+                    .findFirst()
+                    .map(MicrometerMetricsTrackerFactory::new)
+                    .orElse(null);
+
+            List<DataSource> shards = new ArrayList<>();
+            for (String url : shardUrls) {
+                if (url.isBlank()) {
+                    continue;
+                }
+                HikariDataSource shard = properties.initializeDataSourceBuilder()
+                        .type(HikariDataSource.class)
+                        .url(url.trim())
+                        .build();
+                shard.setPoolName("shard-" + shards.size());
+                shard.setMetricsTrackerFactory(metricsTrackerFactory);
+                shards.add(shard);
+            }
+            if (shards.isEmpty()) {
+                throw new IllegalStateException("app.sharding.shard-urls must list at least one database");
+            }
+
+            ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+            routing.afterPropertiesSet();
+            return routing;
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+
+        @Bean
+        public SpringLiquibase liquibase(ShardRoutingDataSource shardRoutingDataSource) {
+            ShardedLiquibase liquibase = new ShardedLiquibase(shardRoutingDataSource.getShards());
+            liquibase.setChangeLog(changeLog);
+            return liquibase;
+        }
+
+        @Bean
+        public ShardDirectory shardDirectory(ShardRoutingDataSource shardRoutingDataSource) {
+            return new ShardDirectory(shardRoutingDataSource.getShards().get(0));
+        }
+
+        @Bean
+        public UserShards userShards(ShardRoutingDataSource shardRoutingDataSource,
+                                     ShardDirectory shardDirectory,
+                                     PlatformTransactionManager transactionManager) {
+            return new UserShards(shardRoutingDataSource.getShards().size(), shardDirectory, transactionManager,
+                    scatterThreads, takeOverAfter);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.oldvabik.userservice.config;
+
+import org.oldvabik.userservice.bulkhead.BulkheadInterceptor;
+import org.oldvabik.userservice.bulkhead.Bulkheads;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final Bulkheads bulkheads;
+
+    public WebConfig(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new BulkheadInterceptor(bulkheads)).addPathPatterns("/api/**");
+    }
+}
@@ -1,43 +1,71 @@
 package org.oldvabik.userservice.controller;
 
 import jakarta.validation.Valid;
+import org.oldvabik.userservice.bulkhead.Bulkhead;
+import org.oldvabik.userservice.bulkhead.BulkheadType;
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
 import org.oldvabik.userservice.dto.CardInfoCreateDto;
 import org.oldvabik.userservice.dto.CardInfoDto;
 import org.oldvabik.userservice.dto.CardInfoUpdateDto;
+import org.oldvabik.userservice.idempotency.IdempotencyStore;
+import org.oldvabik.userservice.service.CardAnalyticsService;
 import org.oldvabik.userservice.service.CardService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import java.time.YearMonth;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/cards")
 public class CardController {
     private final CardService cardService;
+    private final CardAnalyticsService cardAnalyticsService;
+    private final IdempotencyStore idempotencyStore;
 
-    public CardController(CardService cardService) {
+    public CardController(CardService cardService,
+                          CardAnalyticsService cardAnalyticsService,
+                          IdempotencyStore idempotencyStore) {
         this.cardService = cardService;
+        this.cardAnalyticsService = cardAnalyticsService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @PostMapping
     public ResponseEntity<CardInfoDto> createCard(Authentication auth,
+                                                  @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                                                   @Valid @RequestBody CardInfoCreateDto dto) {
-        CardInfoDto createdCard = cardService.createCard(auth, dto);
-        return new ResponseEntity<>(createdCard, HttpStatus.CREATED);
+        IdempotencyStore.Result<CardInfoDto> result = idempotencyStore.execute(auth.getName(), idempotencyKey,
+                "POST /api/v1/cards", dto, CardInfoDto.class, () -> cardService.createCard(auth, dto));
+        return result.toResponseEntity(HttpStatus.CREATED);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.POINT_READ)
     @GetMapping("/{id}")
     public ResponseEntity<CardInfoDto> getCardById(Authentication auth,
                                                    @PathVariable Long id) {
         CardInfoDto card = cardService.getCardById(auth, id);
-        return new ResponseEntity<>(card, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(ETags.of(card.getVersion())).body(card);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.POINT_READ)
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<CardInfoDto>> getCardsByIds(Authentication auth,
+                                                           @RequestParam List<Long> ids) {
+        List<CardInfoDto> cards = cardService.getCardsByIds(auth, ids);
+        return new ResponseEntity<>(cards, HttpStatus.OK);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.ADMIN_LISTING)
     @GetMapping
     public ResponseEntity<Page<CardInfoDto>> getAllCards(@RequestParam(defaultValue = "0") Integer page,
                                                          @RequestParam(defaultValue = "5") Integer size) {
@@ -45,16 +73,28 @@ public class CardController {
         return new ResponseEntity<>(cards, HttpStatus.OK);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.ADMIN_LISTING)
+    @GetMapping("/analytics/expirations")
+    public ResponseEntity<CardExpirationStatsDto> getExpirationStats(@RequestParam(required = false) YearMonth from,
+                                                                     @RequestParam(required = false) YearMonth to) {
+        CardExpirationStatsDto stats = cardAnalyticsService.getExpirationStats(from, to);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<CardInfoDto> updateCard(Authentication auth,
                                                   @PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                   @Valid @RequestBody CardInfoUpdateDto dto) {
-        CardInfoDto updatedCard = cardService.updateCard(auth, id, dto);
-        return new ResponseEntity<>(updatedCard, HttpStatus.OK);
+        CardInfoDto updatedCard = cardService.updateCard(auth, id, dto, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedCard.getVersion())).body(updatedCard);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCard(Authentication auth,
                                            @PathVariable Long id) {
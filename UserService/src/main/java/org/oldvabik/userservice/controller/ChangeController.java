@@ -0,0 +1,33 @@
+package org.oldvabik.userservice.controller;
+
+import org.oldvabik.userservice.bulkhead.Bulkhead;
+import org.oldvabik.userservice.bulkhead.BulkheadType;
+import org.oldvabik.userservice.dto.ChangeFeedDto;
+import org.oldvabik.userservice.service.ChangeFeedService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/changes")
+public class ChangeController {
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.ADMIN_LISTING)
+    @GetMapping
+    public ResponseEntity<ChangeFeedDto> getChanges(@RequestParam(required = false) Integer shard,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit) {
+        ChangeFeedDto changes = changeFeedService.getChanges(shard, after, limit);
+        return new ResponseEntity<>(changes, HttpStatus.OK);
+    }
+}
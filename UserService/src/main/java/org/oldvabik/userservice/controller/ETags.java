@@ -0,0 +1,36 @@
+package org.oldvabik.userservice.controller;
+
+import org.oldvabik.userservice.exception.PreconditionFailedException;
+
+/**
+ * Strong entity tags derived from the {@code @Version} column of a resource.
+ */
+final class ETags {
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Returns the version demanded by an {@code If-Match} header, or {@code null} when the header is absent or
+     * {@code *}. Only a single strong tag is supported; a weak, malformed or multi-valued header fails the precondition.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the precondition failure below
+            }
+        }
+        throw new PreconditionFailedException("If-Match must be a single strong ETag previously returned by this API");
+    }
+}
@@ -1,67 +1,153 @@
 package org.oldvabik.userservice.controller;
 
 import jakarta.validation.Valid;
+import org.oldvabik.userservice.bulkhead.Bulkhead;
+import org.oldvabik.userservice.bulkhead.BulkheadType;
+import org.oldvabik.userservice.common.web.FieldSelection;
 import org.oldvabik.userservice.dto.UserCreateDto;
 import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.dto.UserImportResultDto;
+import org.oldvabik.userservice.dto.UserSearchResultDto;
 import org.oldvabik.userservice.dto.UserUpdateDto;
+import org.oldvabik.userservice.idempotency.IdempotencyStore;
+import org.oldvabik.userservice.service.UserImportService;
+import org.oldvabik.userservice.service.UserSearchService;
 import org.oldvabik.userservice.service.UserService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/users")
 public class UserController {
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String CARDS = "cards";
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserSearchService userSearchService;
+    private final IdempotencyStore idempotencyStore;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          UserImportService userImportService,
+                          UserSearchService userSearchService,
+                          IdempotencyStore idempotencyStore) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userSearchService = userSearchService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @PostMapping
-    public ResponseEntity<UserDto> createUser(@Valid @RequestBody UserCreateDto dto) {
-        UserDto createdUser = userService.createUser(dto);
-        return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
+    public ResponseEntity<UserDto> createUser(Authentication auth,
+                                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                              @Valid @RequestBody UserCreateDto dto) {
+        IdempotencyStore.Result<UserDto> result = idempotencyStore.execute(auth.getName(), idempotencyKey,
+                "POST /api/v1/users", dto, UserDto.class, () -> userService.createUser(dto));
+        return result.toResponseEntity(HttpStatus.CREATED);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    public ResponseEntity<UserImportResultDto> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                           InputStream body) {
+        UserImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        UserImportResultDto result = userImportService.importUsers(body, format);
+        return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.POINT_READ)
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(Authentication auth,
-                                               @PathVariable Long id) {
-        UserDto user = userService.getUserById(auth, id);
-        return new ResponseEntity<>(user, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> getUserById(Authentication auth,
+                                                           @PathVariable Long id,
+                                                           @RequestParam(required = false) String fields,
+                                                           @RequestParam(defaultValue = "true") boolean cards,
+                                                           WebRequest request) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(userService.getUserVersion(auth, id)))) {
+            return null;
+        }
+        UserDto user = userService.getUserById(auth, id, selection.expands());
+        return ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(selection.apply(user));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.ADMIN_LISTING)
     @GetMapping
-    public ResponseEntity<Page<UserDto>> getUsers(@RequestParam(defaultValue = "0") Integer page,
-                                                  @RequestParam(defaultValue = "5") Integer size) {
-        Page<UserDto> users = userService.getAllUsers(page, size);
-        return new ResponseEntity<>(users, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> getUsers(@RequestParam(defaultValue = "0") Integer page,
+                                                        @RequestParam(defaultValue = "5") Integer size,
+                                                        @RequestParam(required = false) String fields,
+                                                        @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        Page<UserDto> users = userService.getAllUsers(page, size, selection.expands());
+        return new ResponseEntity<>(selection.apply(users), HttpStatus.OK);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.POINT_READ)
+    @GetMapping(params = "ids")
+    public ResponseEntity<MappingJacksonValue> getUsersByIds(Authentication auth,
+                                                             @RequestParam List<Long> ids,
+                                                             @RequestParam(required = false) String fields,
+                                                             @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        List<UserDto> users = userService.getUsersByIds(auth, ids, selection.expands());
+        return new ResponseEntity<>(selection.apply(users), HttpStatus.OK);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @GetMapping("/search")
-    public ResponseEntity<UserDto> getUserByEmail(Authentication auth,
-                                                  @RequestParam String email) {
-        UserDto user = userService.getUserByEmail(auth, email);
-        return new ResponseEntity<>(user, HttpStatus.OK);
+    @Bulkhead(BulkheadType.POINT_READ)
+    @GetMapping(value = "/search", params = "email")
+    public ResponseEntity<MappingJacksonValue> getUserByEmail(Authentication auth,
+                                                              @RequestParam String email,
+                                                              @RequestParam(required = false) String fields,
+                                                              @RequestParam(defaultValue = "true") boolean cards) {
+        FieldSelection selection = FieldSelection.of(UserDto.class, CARDS, fields, cards);
+        UserDto user = userService.getUserByEmail(auth, email, selection.expands());
+        return new ResponseEntity<>(selection.apply(user), HttpStatus.OK);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.ADMIN_LISTING)
+    @GetMapping(value = "/search", params = "query")
+    public ResponseEntity<UserSearchResultDto> searchUsers(@RequestParam String query,
+                                                           @RequestParam(defaultValue = "prefix") String mode,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after) {
+        UserSearchResultDto result = userSearchService.search(query, UserSearchService.Mode.from(mode), limit, after);
+        return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(Authentication auth,
                                               @PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                               @Valid @RequestBody UserUpdateDto dto) {
-        UserDto updatedUser = userService.updateUser(auth, id, dto);
-        return new ResponseEntity<>(updatedUser, HttpStatus.OK);
+        UserDto updatedUser = userService.updateUser(auth, id, dto, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.getVersion())).body(updatedUser);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @Bulkhead(BulkheadType.WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
@@ -0,0 +1,28 @@
+package org.oldvabik.userservice.datasource;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Lets a block of code read from the primary even inside a read-only transaction,
+ * for loads that must not observe replica lag.
+ */
+public final class DataSourceRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private DataSourceRouting() {
+    }
+
+    public static <T> T onPrimary(Callable<T> action) throws Exception {
+        boolean previous = PRIMARY_FORCED.get();
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.call();
+        } finally {
+            PRIMARY_FORCED.set(previous);
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get();
+    }
+}
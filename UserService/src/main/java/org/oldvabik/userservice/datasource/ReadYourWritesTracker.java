@@ -0,0 +1,39 @@
+package org.oldvabik.userservice.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which principals wrote recently so their reads stay on the primary
+ * until the replicas are likely to have caught up.
+ */
+public class ReadYourWritesTracker {
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long windowMs;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void markWrite(String principal) {
+        long now = System.currentTimeMillis();
+        lastWrites.put(principal, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            lastWrites.values().removeIf(at -> now - at >= windowMs);
+        }
+    }
+
+    public boolean hasRecentWrite(String principal) {
+        Long at = lastWrites.get(principal);
+        if (at == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - at < windowMs) {
+            return true;
+        }
+        lastWrites.remove(principal, at);
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package org.oldvabik.userservice.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Takes replicas out of rotation when they are unreachable or lag behind the primary
+ * by more than the allowed replay delay, and puts them back once they recover.
+ */
+@Slf4j
+public class ReplicaHealthChecker {
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final long maxLagMs;
+
+    public ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource, long maxLagMs) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval:5000}")
+    public void check() {
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet()) {
+            routingDataSource.setReplicaHealthy(replica.getKey(), isHealthy(replica.getKey(), replica.getValue()));
+        }
+    }
+
+    private boolean isHealthy(String key, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                long lagMs = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                if (lagMs > maxLagMs) {
+                    log.warn("[ReplicaHealthChecker] check: replica {} lags {} ms", key, lagMs);
+                    return false;
+                }
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("[ReplicaHealthChecker] check: replica {} unavailable: {}", key, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.oldvabik.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica, round robin, and
+ * everything else to the primary. Reads stay on the primary while the current principal
+ * is inside the read-your-writes window that its last committed write opened, or when {@link DataSourceRouting#onPrimary} is used.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so that the transaction's read-only
+ * flag is known when the connection is fetched.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final Set<String> healthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ReadYourWritesTracker readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    ReadYourWritesTracker readYourWrites) {
+        this.primary = primary;
+        this.replicas = Map.copyOf(replicas);
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        this.readYourWrites = readYourWrites;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String principal = currentPrincipal();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (principal != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                markWriteOnCommit(principal);
+            }
+            return PRIMARY;
+        }
+        if (DataSourceRouting.isPrimaryForced() || (principal != null && readYourWrites.hasRecentWrite(principal))) {
+            return PRIMARY;
+        }
+        return nextHealthyReplica();
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicaHealthy(String key, boolean healthy) {
+        boolean changed = healthy ? healthyReplicas.add(key) : healthyReplicas.remove(key);
+        if (changed) {
+            log.info("[ReplicaRouting] replica {} is now {}", key, healthy ? "in rotation" : "out of rotation");
+        }
+    }
+
+    public boolean isReplicaHealthy(String key) {
+        return healthyReplicas.contains(key);
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(primary);
+        replicas.values().forEach(ReplicaRoutingDataSource::closeQuietly);
+    }
+
+    /**
+     * The read-your-writes window starts when the write becomes visible, so a transaction that
+     * runs longer than the window does not send the principal's next read to a lagging replica.
+     */
+    private void markWriteOnCommit(String principal) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            readYourWrites.markWrite(principal);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.markWrite(principal);
+            }
+        });
+    }
+
+    private Object nextHealthyReplica() {
+        int size = replicaKeys.size();
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), size));
+            if (healthyReplicas.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private static String currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || !auth.isAuthenticated() ? null : auth.getName();
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            hikari.close();
+        }
+    }
+}
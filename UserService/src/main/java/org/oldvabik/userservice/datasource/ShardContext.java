@@ -0,0 +1,61 @@
+package org.oldvabik.userservice.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard that connections fetched by the current thread are routed to. {@link #pin} binds
+ * the current transaction to a shard until it completes; {@link #onShard} scopes a shard to a block.
+ * A transaction keeps the connection it fetched first, so switching shards inside one is refused.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        if (previous != null && previous != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("transaction is bound to shard " + previous + ", cannot read shard " + shard);
+        }
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Binds the current transaction to a shard. Must be called before the transaction's first statement.
+     */
+    public static void pin(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("no transaction to bind to shard " + shard);
+        }
+        Integer previous = CURRENT.get();
+        if (previous != null) {
+            if (previous != shard) {
+                throw new IllegalStateException("transaction is bound to shard " + previous + ", cannot write shard " + shard);
+            }
+            return;
+        }
+        CURRENT.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                CURRENT.remove();
+            }
+        });
+    }
+}
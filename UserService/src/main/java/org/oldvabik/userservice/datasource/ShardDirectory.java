@@ -0,0 +1,59 @@
+package org.oldvabik.userservice.datasource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Global {@code shard_directory} table on shard 0 that maps user emails and card numbers to the shard
+ * holding them. Statements run outside the caller's transaction and commit on their own, so a
+ * reservation is visible to other shards at once and is undone by the caller when its write fails.
+ */
+public class ShardDirectory {
+    private static final String FIND_SQL = "SELECT shard FROM shard_directory WHERE key = ?";
+
+    private static final String RESERVE_SQL = """
+            INSERT INTO shard_directory (key, shard)
+            VALUES (?, ?)
+            ON CONFLICT (key) DO NOTHING
+            """;
+
+    private static final String TAKE_OVER_SQL = """
+            UPDATE shard_directory
+            SET shard = ?, reserved_at = now()
+            WHERE key = ? AND shard = ? AND reserved_at < now() - make_interval(secs => ?)
+            """;
+
+    private static final String RELEASE_SQL = "DELETE FROM shard_directory WHERE key = ? AND shard = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardDirectory(DataSource directoryShard) {
+        this.jdbcTemplate = new JdbcTemplate(directoryShard);
+    }
+
+    public Optional<Integer> find(String key) {
+        List<Integer> shards = jdbcTemplate.queryForList(FIND_SQL, Integer.class, key);
+        return shards.stream().findFirst();
+    }
+
+    /**
+     * @return {@code false} if the key is already reserved, by any shard
+     */
+    public boolean reserve(String key, int shard) {
+        return jdbcTemplate.update(RESERVE_SQL, key, shard) == 1;
+    }
+
+    /**
+     * Moves a reservation to another shard if it still belongs to {@code from} and is older than
+     * {@code minAgeMillis}, so that a write still in flight on {@code from} keeps its key.
+     */
+    public boolean takeOver(String key, int from, int to, long minAgeMillis) {
+        return jdbcTemplate.update(TAKE_OVER_SQL, to, key, from, minAgeMillis / 1000.0) == 1;
+    }
+
+    public void release(String key, int shard) {
+        jdbcTemplate.update(RELEASE_SQL, key, shard);
+    }
+}
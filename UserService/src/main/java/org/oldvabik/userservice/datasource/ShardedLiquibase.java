@@ -0,0 +1,30 @@
+package org.oldvabik.userservice.datasource;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the changelog against every shard in turn, passing {@code shard.index} and {@code shard.count}
+ * as changelog parameters for the changesets that only apply to sharded databases.
+ */
+public class ShardedLiquibase extends SpringLiquibase {
+    private final List<DataSource> shards;
+
+    public ShardedLiquibase(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (int i = 0; i < shards.size(); i++) {
+            setDataSource(shards.get(i));
+            setChangeLogParameters(Map.of(
+                    "shard.index", String.valueOf(i),
+                    "shard.count", String.valueOf(shards.size())));
+            super.afterPropertiesSet();
+        }
+    }
+}
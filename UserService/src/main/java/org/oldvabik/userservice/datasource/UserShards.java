@@ -0,0 +1,251 @@
+package org.oldvabik.userservice.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.logging.MdcPropagation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Places users, and the cards co-located with them, on shards. Every shard hands out user and card
+ * ids congruent to {@code shard + 1} modulo the shard count, so the shard of a row follows from its id
+ * alone; a new user is placed by a stable hash of its email, and the {@link ShardDirectory} maps emails
+ * and card numbers back to shards and keeps them unique across shards.
+ * <p>
+ * Without sharding there is one shard, every call runs inline on the caller's thread and transaction,
+ * and the directory is never touched.
+ */
+@Slf4j
+public class UserShards implements Closeable {
+    private static final String EMAIL_KEY = "email:";
+    private static final String CARD_NUMBER_KEY = "card:";
+
+    private final int shardCount;
+    private final ShardDirectory directory;
+    private final TransactionTemplate readOnlyTemplate;
+    private final ExecutorService executor;
+    private final long takeOverAfter;
+
+    public UserShards(int shardCount,
+                      ShardDirectory directory,
+                      PlatformTransactionManager transactionManager,
+                      int threads,
+                      long takeOverAfter) {
+        this.shardCount = shardCount;
+        this.directory = directory;
+        this.takeOverAfter = takeOverAfter;
+        if (directory == null) {
+            this.readOnlyTemplate = null;
+            this.executor = null;
+        } else {
+            this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+            this.readOnlyTemplate.setReadOnly(true);
+            this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("shard-scatter-"));
+        }
+    }
+
+    public static UserShards unsharded() {
+        return new UserShards(1, null, null, 0, 0);
+    }
+
+    public static String emailKey(String email) {
+        return EMAIL_KEY + email;
+    }
+
+    public static String cardNumberKey(String number) {
+        return CARD_NUMBER_KEY + number;
+    }
+
+    public boolean isSharded() {
+        return directory != null;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard of a user or card id.
+     */
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id - 1, (long) shardCount);
+    }
+
+    public int shardForNewUser(String email) {
+        return Math.floorMod(email.hashCode(), shardCount);
+    }
+
+    /**
+     * Shard holding the user with this email, or empty if no shard has it.
+     */
+    public OptionalInt shardOfEmail(String email) {
+        if (!isSharded()) {
+            return OptionalInt.of(0);
+        }
+        return directory.find(emailKey(email)).map(OptionalInt::of).orElse(OptionalInt.empty());
+    }
+
+    /**
+     * Groups ids by shard, keeping their order within each shard.
+     */
+    public Map<Integer, List<Long>> partition(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        return byShard;
+    }
+
+    /**
+     * Binds the current transaction to a shard; call it before the transaction's first statement.
+     */
+    public void pin(int shard) {
+        if (isSharded()) {
+            ShardContext.pin(shard);
+        }
+    }
+
+    /**
+     * Runs a block outside of any transaction, or in transactions of its own, against one shard.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        return isSharded() ? ShardContext.onShard(shard, action) : action.get();
+    }
+
+    /**
+     * Runs a read on every shard in parallel, each in a read-only transaction of its own, and returns
+     * the results in shard order.
+     */
+    public <T> List<T> readEachShard(IntFunction<T> read) {
+        if (!isSharded()) {
+            return List.of(read.apply(0));
+        }
+        List<CompletableFuture<T>> reads = IntStream.range(0, shardCount)
+                .mapToObj(shard -> CompletableFuture.supplyAsync(MdcPropagation.wrap(() -> readOn(shard, () -> read.apply(shard))), executor))
+                .toList();
+        return reads.stream().map(UserShards::join).toList();
+    }
+
+    /**
+     * Reads one page of rows spread over all shards. Each shard returns its first rows up to the end of the
+     * requested page in {@code order}, and the page is cut from their merge, so deep pages cost more.
+     */
+    public <T> Page<T> readPage(Pageable pageable, Function<Pageable, Page<T>> read, Comparator<T> order) {
+        Pageable head = PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()),
+                pageable.getSort());
+        List<Page<T>> pages = readEachShard(shard -> read.apply(head));
+
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        List<T> content = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(order)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Reserves a directory key for {@code shard} and drops the reservation again if the current
+     * transaction rolls back. A key held by another shard is taken over only if {@code heldByOwner},
+     * run on that shard, finds no row there and the reservation is old enough not to belong to a
+     * write still in flight.
+     *
+     * @return the shard that holds the key if it could not be reserved
+     */
+    public OptionalInt reserve(String key, int shard, BooleanSupplier heldByOwner) {
+        if (!isSharded()) {
+            return OptionalInt.empty();
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (directory.reserve(key, shard)) {
+                releaseAfterCompletion(key, shard, false);
+                return OptionalInt.empty();
+            }
+            Integer owner = directory.find(key).orElse(null);
+            if (owner == null) {
+                continue;
+            }
+            if (owner == shard) {
+                return OptionalInt.empty();
+            }
+            if (readOn(owner, heldByOwner::getAsBoolean) || !directory.takeOver(key, owner, shard, takeOverAfter)) {
+                return OptionalInt.of(owner);
+            }
+            log.info("[UserShards] reserve: took over {} from shard {} for shard {}", key, owner, shard);
+            releaseAfterCompletion(key, shard, false);
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(shard);
+    }
+
+    /**
+     * Drops a directory key once the current transaction commits, e.g. the email of a deleted user.
+     */
+    public void releaseAfterCommit(String key, int shard) {
+        if (isSharded()) {
+            releaseAfterCompletion(key, shard, true);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> T readOn(int shard, Supplier<T> read) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return join(CompletableFuture.supplyAsync(MdcPropagation.wrap(() -> readOn(shard, read)), executor));
+        }
+        return ShardContext.onShard(shard, () -> readOnlyTemplate.execute(status -> read.get()));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void releaseAfterCompletion(String key, int shard, boolean onCommit) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if ((status == STATUS_COMMITTED) != onCommit) {
+                    return;
+                }
+                try {
+                    directory.release(key, shard);
+                } catch (RuntimeException e) {
+                    log.warn("[UserShards] release: failed for {} on shard {}: {}", key, shard, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardExpirationBucketDto implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private YearMonth month;
+    private int birthDecade;
+    private long cards;
+}
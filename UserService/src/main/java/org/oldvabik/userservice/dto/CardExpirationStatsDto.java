@@ -0,0 +1,19 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardExpirationStatsDto implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private List<CardExpirationBucketDto> buckets;
+    private long totalCards;
+}
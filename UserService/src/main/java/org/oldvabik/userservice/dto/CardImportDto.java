@@ -0,0 +1,10 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+public class CardImportDto {
+    private String number;
+    private LocalDate expirationDate;
+}
@@ -15,4 +15,5 @@ public class CardInfoDto implements Serializable {
     private String holder;
     private LocalDate expirationDate;
     private Long userId;
+    private Long version;
 }
@@ -0,0 +1,18 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventDto {
+    private Long seq;
+    private ChangeEventType type;
+    private Long userId;
+    private Long cardId;
+    private LocalDateTime occurredAt;
+}
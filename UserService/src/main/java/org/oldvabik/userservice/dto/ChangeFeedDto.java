@@ -0,0 +1,15 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDto {
+    private List<ChangeEventDto> events;
+    private Long next;
+    private boolean hasMore;
+}
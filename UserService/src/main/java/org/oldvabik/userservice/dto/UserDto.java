@@ -16,5 +16,6 @@ public class UserDto implements Serializable {
     private String surname;
     private LocalDate birthDate;
     private String email;
+    private Long version;
     private List<CardInfoDto> cards;
 }
@@ -0,0 +1,15 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportDto {
+    private String name;
+    private String surname;
+    private LocalDate birthDate;
+    private String email;
+    private List<CardImportDto> cards = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportErrorDto {
+    private long line;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package org.oldvabik.userservice.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportResultDto {
+    private long receivedRows;
+    private long rejectedRows;
+    private long importedUsers;
+    private long importedCards;
+    private long userConflicts;
+    private long cardConflicts;
+    private List<UserImportErrorDto> errors = new ArrayList<>();
+}
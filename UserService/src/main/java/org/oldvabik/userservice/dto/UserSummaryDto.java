@@ -0,0 +1,23 @@
+package org.oldvabik.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+    private Long id;
+    private String name;
+    private String surname;
+    private String email;
+    private float score;
+
+    /**
+     * Key the row is ordered by in prefix search; it is carried into the next page cursor, not returned.
+     */
+    @JsonIgnore
+    private String sortKey;
+}
@@ -8,14 +8,15 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "card_info", indexes = {
         @Index(name = "idx_card_info_user_id", columnList = "user_id"),
-        @Index(name = "idx_card_info_number", columnList = "number")
+        @Index(name = "idx_card_info_number", columnList = "number"),
+        @Index(name = "idx_card_info_expiration_date", columnList = "expiration_date, id")
 })
 public class CardInfo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String number;
 
     @Column(nullable = false)
@@ -24,6 +25,10 @@ public class CardInfo {
     @Column(name = "expiration_date", nullable = false)
     private LocalDate expirationDate;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -28,6 +28,10 @@ public class User {
     @Column(unique = true, nullable = false)
     private String email;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<CardInfo> cards = new ArrayList<>();
 
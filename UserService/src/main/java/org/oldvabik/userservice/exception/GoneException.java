@@ -0,0 +1,7 @@
+package org.oldvabik.userservice.exception;
+
+public class GoneException extends RuntimeException {
+    public GoneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,213 @@
+package org.oldvabik.userservice.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.cache.SingleFlight;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.exception.ConflictException;
+import org.oldvabik.userservice.exception.UnprocessableEntityException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of create requests sent with an {@code Idempotency-Key}, so a client retrying
+ * after a timeout gets the original response back from Redis instead of running the existence checks and
+ * insert again. Keys are scoped to the caller and kept for {@code ttlMs}; each one is bound to a
+ * fingerprint of the operation and request body, and reusing it for a different request is rejected.
+ * <p>
+ * The first request for a key claims it with a pending marker that expires after {@code lockTimeoutMs}
+ * and is renewed every third of that while the request runs, so a slow request keeps its claim and the
+ * claim of a crashed node lapses. Duplicates on this node wait on the same {@link SingleFlight},
+ * duplicates on other nodes poll the marker; either gets the stored response once it is written, or a
+ * conflict if it is not written in time. The response replaces the marker only while the marker is still
+ * the one this request wrote. A failed request releases its key, so the client can retry it.
+ */
+@Slf4j
+public class IdempotencyStore implements DisposableBean {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight singleFlight;
+    private final ScheduledExecutorService renewalScheduler;
+    private final Settings settings;
+
+    public record Settings(long ttlMs, long lockTimeoutMs, long pollIntervalMs) {
+    }
+
+    public record Result<T>(T body, boolean replayed) {
+
+        public ResponseEntity<T> toResponseEntity(HttpStatus status) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (replayed) {
+                builder.header(REPLAYED_HEADER, "true");
+            }
+            return builder.body(body);
+        }
+    }
+
+    record StoredResponse(String fingerprint, String pendingToken, String body) {
+    }
+
+    public IdempotencyStore(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            SingleFlight singleFlight,
+                            ScheduledExecutorService renewalScheduler,
+                            Settings settings) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.singleFlight = singleFlight;
+        this.renewalScheduler = renewalScheduler;
+        this.settings = settings;
+    }
+
+    /**
+     * Runs {@code action} once per caller and key; without a key it simply runs it.
+     */
+    public <T> Result<T> execute(String caller,
+                                 String idempotencyKey,
+                                 String operation,
+                                 Object request,
+                                 Class<T> responseType,
+                                 Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return new Result<>(action.get(), false);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+
+        String storeKey = "idempotency:" + caller + ":" + idempotencyKey;
+        String fingerprint = fingerprint(operation, request);
+        boolean[] ranHere = {false};
+        try {
+            Result<T> result = singleFlight.execute(storeKey + ":" + fingerprint, settings.lockTimeoutMs(), () -> {
+                ranHere[0] = true;
+                return resolve(storeKey, fingerprint, responseType, action);
+            });
+            return ranHere[0] ? result : new Result<>(result.body(), true);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for " + HEADER + " " + idempotencyKey, e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> Result<T> resolve(String storeKey,
+                                  String fingerprint,
+                                  Class<T> responseType,
+                                  Supplier<T> action) throws Exception {
+        String pending = objectMapper.writeValueAsString(
+                new StoredResponse(fingerprint, UUID.randomUUID().toString(), null));
+        long deadline = System.currentTimeMillis() + settings.lockTimeoutMs();
+        while (true) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(storeKey, pending, Duration.ofMillis(settings.lockTimeoutMs())))) {
+                return new Result<>(runAndStore(storeKey, fingerprint, pending, action), false);
+            }
+
+            String raw = redisTemplate.opsForValue().get(storeKey);
+            if (raw != null) {
+                StoredResponse stored = objectMapper.readValue(raw, StoredResponse.class);
+                if (!stored.fingerprint().equals(fingerprint)) {
+                    throw new UnprocessableEntityException(HEADER + " was already used for a different request");
+                }
+                if (stored.body() != null) {
+                    log.debug("[IdempotencyStore] resolve: replaying stored response for {}", storeKey);
+                    return new Result<>(objectMapper.readValue(stored.body(), responseType), true);
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("[IdempotencyStore] resolve: request for {} still in progress after {} ms",
+                        storeKey, settings.lockTimeoutMs());
+                throw new ConflictException("a request with this " + HEADER + " is still in progress");
+            }
+            Thread.sleep(settings.pollIntervalMs());
+        }
+    }
+
+    private <T> T runAndStore(String storeKey, String fingerprint, String pending, Supplier<T> action)
+            throws JsonProcessingException {
+        long renewInterval = Math.max(1, settings.lockTimeoutMs() / 3);
+        ScheduledFuture<?> renewal = renewalScheduler.scheduleAtFixedRate(() -> renew(storeKey, pending),
+                renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        T body;
+        try {
+            body = action.get();
+        } catch (RuntimeException | Error e) {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(storeKey), pending);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
+        String stored = objectMapper.writeValueAsString(
+                new StoredResponse(fingerprint, null, objectMapper.writeValueAsString(body)));
+        Long written = redisTemplate.execute(COMPLETE_SCRIPT, List.of(storeKey), pending, stored,
+                String.valueOf(settings.ttlMs()));
+        if (written == null || written == 0) {
+            log.warn("[IdempotencyStore] runAndStore: pending marker for {} was lost, response not stored", storeKey);
+        }
+        return body;
+    }
+
+    private void renew(String storeKey, String pending) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(storeKey), pending,
+                    String.valueOf(settings.lockTimeoutMs()));
+            if (renewed == null || renewed == 0) {
+                log.warn("[IdempotencyStore] renew: pending marker for {} was lost", storeKey);
+            }
+        } catch (RuntimeException e) {
+            log.warn("[IdempotencyStore] renew: could not extend pending marker for {}: {}", storeKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        renewalScheduler.shutdownNow();
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("cannot fingerprint " + operation + " request", e);
+        }
+    }
+}
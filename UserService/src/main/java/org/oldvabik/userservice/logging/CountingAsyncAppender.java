@@ -0,0 +1,32 @@
+package org.oldvabik.userservice.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands events to the wrapped appender through a bounded queue. Once the queue is full, events below WARN
+ * are dropped and counted instead of blocking the caller, while warnings and errors wait for room.
+ * The fullness check races with other writers, so a routine event may occasionally wait briefly too.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+    private final LongAdder dropped = new LongAdder();
+
+    public CountingAsyncAppender() {
+        setDiscardingThreshold(0);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!event.getLevel().isGreaterOrEqual(Level.WARN) && getRemainingCapacity() == 0) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
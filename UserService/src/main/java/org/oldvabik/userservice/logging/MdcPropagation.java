@@ -0,0 +1,44 @@
+package org.oldvabik.userservice.logging;
+
+import org.slf4j.MDC;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carries the caller's MDC, and with it the correlation id and sampling decision, into work handed to
+ * another thread.
+ */
+public final class MdcPropagation {
+
+    private MdcPropagation() {
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            try {
+                return task.get();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Supplier<Void> wrapped = wrap(() -> {
+            task.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
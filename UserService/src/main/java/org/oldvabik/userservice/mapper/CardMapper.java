@@ -5,15 +5,20 @@ import org.oldvabik.userservice.dto.CardInfoCreateDto;
 import org.oldvabik.userservice.dto.CardInfoDto;
 import org.oldvabik.userservice.dto.CardInfoUpdateDto;
 import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.repository.projection.CardView;
 
 @Mapper(componentModel = "spring")
 public interface CardMapper {
     @Mapping(target = "userId", source = "user.id")
     CardInfoDto toDto(CardInfo entity);
 
+    CardInfoDto toDto(CardView view);
+
     @Mapping(target = "user.id", source = "userId")
+    @Mapping(target = "version", ignore = true)
     CardInfo toEntity(CardInfoCreateDto dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(CardInfoUpdateDto dto, @MappingTarget CardInfo entity);
 }
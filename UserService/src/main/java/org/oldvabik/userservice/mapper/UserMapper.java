@@ -1,16 +1,53 @@
 package org.oldvabik.userservice.mapper;
 
 import org.mapstruct.*;
+import org.oldvabik.userservice.dto.CardInfoDto;
 import org.oldvabik.userservice.dto.UserCreateDto;
 import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.dto.UserImportDto;
 import org.oldvabik.userservice.dto.UserUpdateDto;
 import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.projection.UserCardView;
+import org.oldvabik.userservice.repository.projection.UserView;
+import java.util.ArrayList;
+import java.util.List;
 
 @Mapper(componentModel = "spring", uses = {CardMapper.class})
 public interface UserMapper {
     UserDto toDto(User entity);
+
+    @Mapping(target = "version", ignore = true)
     User toEntity(UserCreateDto dto);
 
+    UserCreateDto toCreateDto(UserImportDto dto);
+
+    @Mapping(target = "cards", ignore = true)
+    UserDto fromRow(UserCardView row);
+
+    @Mapping(target = "cards", ignore = true)
+    UserDto fromView(UserView view);
+
+    @Mapping(target = "id", source = "cardId")
+    @Mapping(target = "number", source = "cardNumber")
+    @Mapping(target = "holder", source = "cardHolder")
+    @Mapping(target = "expirationDate", source = "cardExpirationDate")
+    @Mapping(target = "userId", source = "id")
+    @Mapping(target = "version", source = "cardVersion")
+    CardInfoDto cardFromRow(UserCardView row);
+
+    default UserDto fromRows(List<UserCardView> rows) {
+        UserDto dto = fromRow(rows.get(0));
+        List<CardInfoDto> cards = new ArrayList<>(rows.size());
+        for (UserCardView row : rows) {
+            if (row.cardId() != null) {
+                cards.add(cardFromRow(row));
+            }
+        }
+        dto.setCards(cards);
+        return dto;
+    }
+
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(UserUpdateDto dto, @MappingTarget User entity);
 }
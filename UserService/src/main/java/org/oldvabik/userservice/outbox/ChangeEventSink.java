@@ -0,0 +1,13 @@
+package org.oldvabik.userservice.outbox;
+
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import java.util.List;
+
+/**
+ * Destination of relayed change events. {@link #publish} runs inside the relay transaction: if it
+ * throws, the batch is not marked published and is sent again later, so delivery is at-least-once
+ * and consumers should skip sequence numbers they have already applied.
+ */
+public interface ChangeEventSink {
+    void publish(List<ChangeEventDto> events);
+}
@@ -0,0 +1,10 @@
+package org.oldvabik.userservice.outbox;
+
+public enum ChangeEventType {
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED,
+    CARD_CREATED,
+    CARD_UPDATED,
+    CARD_DELETED
+}
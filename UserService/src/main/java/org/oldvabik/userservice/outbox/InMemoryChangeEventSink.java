@@ -0,0 +1,29 @@
+package org.oldvabik.userservice.outbox;
+
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps published events in memory; meant for tests.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "memory")
+public class InMemoryChangeEventSink implements ChangeEventSink {
+    private final List<ChangeEventDto> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<ChangeEventDto> events) {
+        this.events.addAll(events);
+    }
+
+    public List<ChangeEventDto> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package org.oldvabik.userservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Writes each event as one JSON line to the {@code org.oldvabik.userservice.outbox.events} logger,
+ * which can be routed to its own file.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingChangeEventSink implements ChangeEventSink {
+    private static final Logger EVENTS = LoggerFactory.getLogger("org.oldvabik.userservice.outbox.events");
+
+    private final ObjectMapper objectMapper;
+
+    public LoggingChangeEventSink(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<ChangeEventDto> events) {
+        for (ChangeEventDto event : events) {
+            try {
+                EVENTS.info(objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("failed to serialize change event seq=" + event.getSeq(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.oldvabik.userservice.outbox;
+
+/**
+ * A change appended to the outbox; {@code cardId} is {@code null} for user events.
+ */
+public record OutboxEvent(ChangeEventType type, Long userId, Long cardId) {
+}
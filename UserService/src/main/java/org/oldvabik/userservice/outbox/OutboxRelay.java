@@ -0,0 +1,146 @@
+package org.oldvabik.userservice.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.oldvabik.userservice.repository.OutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publishes pending outbox events to the {@link ChangeEventSink} in batches. Each batch claims its
+ * events, hands them to the sink and commits on its own; only one node relays at a time.
+ * Published events are kept for the retention period so the changes feed can serve them.
+ * With sharding each shard keeps its own outbox and feed sequence and is relayed in turn.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxRepository outboxRepository;
+    private final ChangeEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final UserShards userShards;
+    private final Counter publishedCounter;
+    private final Counter purgedCounter;
+
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${app.outbox.retention:604800000}")
+    private long retention;
+
+    @Value("${app.outbox.purge.batch-size:5000}")
+    private int purgeBatchSize;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       ChangeEventSink sink,
+                       PlatformTransactionManager transactionManager,
+                       UserShards userShards,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userShards = userShards;
+
+        this.publishedCounter = Counter.builder("outbox.published")
+                .description("Change events handed to the sink")
+                .register(meterRegistry);
+        this.purgedCounter = Counter.builder("outbox.purged")
+                .description("Published change events deleted after the retention period")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.warn("[OutboxRelay] poll: failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.outbox.purge.cron:0 0 * * * *}")
+    public void sweep() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("[OutboxRelay] sweep: failed: {}", e.getMessage());
+        }
+    }
+
+    public int relay() {
+        int published = 0;
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            published += userShards.onShard(shard, this::relayShard);
+        }
+        if (published > 0) {
+            log.debug("[OutboxRelay] relay: published {} events", published);
+        }
+        return published;
+    }
+
+    public int purge() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(retention * 1_000_000);
+        int purged = 0;
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            purged += userShards.onShard(shard, () -> purgeShard(before));
+        }
+        purgedCounter.increment(purged);
+        log.info("[OutboxRelay] purge: deleted {} events published before {}", purged, before);
+        return purged;
+    }
+
+    private int relayShard() {
+        int published = 0;
+        for (int batches = 0; batches < maxBatches; batches++) {
+            Integer count = transactionTemplate.execute(status -> publishBatch());
+            if (count == null || count == 0) {
+                break;
+            }
+            published += count;
+            publishedCounter.increment(count);
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    private int purgeShard(LocalDateTime before) {
+        int purged = 0;
+        int count;
+        do {
+            count = outboxRepository.purgePublishedBefore(before, purgeBatchSize);
+            purged += count;
+        } while (count == purgeBatchSize);
+        return purged;
+    }
+
+    private int publishBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            log.debug("[OutboxRelay] publishBatch: another node is relaying");
+            return 0;
+        }
+        List<ChangeEventDto> events = outboxRepository.claimPending(batchSize);
+        if (!events.isEmpty()) {
+            sink.publish(events);
+        }
+        return events.size();
+    }
+}
@@ -0,0 +1,47 @@
+package org.oldvabik.userservice.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.repository.OutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Appends change events in the caller's transaction, so an event exists exactly when its write commits.
+ * Callers append after the write that locks the user's row, which orders one user's events by commit.
+ */
+@Slf4j
+@Component
+public class OutboxWriter {
+    private final OutboxRepository outboxRepository;
+
+    public OutboxWriter(OutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(ChangeEventType type, Long userId) {
+        append(List.of(new OutboxEvent(type, userId, null)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardChanged(ChangeEventType type, Long userId, Long cardId) {
+        append(List.of(new OutboxEvent(type, userId, cardId)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsChanged(ChangeEventType type, Long userId, Collection<Long> cardIds) {
+        append(cardIds.stream().map(cardId -> new OutboxEvent(type, userId, cardId)).toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        outboxRepository.append(events);
+        log.debug("[OutboxWriter] append: {} events, first={}", events.size(), events.get(0));
+    }
+}
@@ -0,0 +1,58 @@
+package org.oldvabik.userservice.repository;
+
+import org.oldvabik.userservice.repository.projection.ArchivedCardView;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves expired cards from {@code card_info} to {@code card_info_archive} in one statement.
+ * Rows locked by another sweeper or a concurrent update are skipped and picked up by a later batch.
+ */
+@Repository
+public class CardArchiveRepository {
+    private static final String ARCHIVE_EXPIRED_SQL = """
+            WITH expired AS (
+                SELECT id, user_id
+                FROM card_info
+                WHERE expiration_date < :before
+                ORDER BY expiration_date, id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            ), moved AS (
+                DELETE FROM card_info c
+                USING expired e
+                WHERE c.user_id = e.user_id AND c.id = e.id
+                RETURNING c.id, c.user_id, c.number, c.holder, c.expiration_date
+            ), archived AS (
+                INSERT INTO card_info_archive (id, user_id, number, holder, expiration_date)
+                SELECT id, user_id, number, holder, expiration_date FROM moved
+                RETURNING id, user_id
+            ), touched AS (
+                UPDATE users u
+                SET version = u.version + 1
+                WHERE u.id IN (SELECT user_id FROM archived)
+            )
+            SELECT a.id, a.user_id, u.email
+            FROM archived a
+            JOIN users u ON u.id = a.user_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CardArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ArchivedCardView> archiveExpired(LocalDate before, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("before", before)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(ARCHIVE_EXPIRED_SQL, params, (rs, rowNum) -> new ArchivedCardView(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("email")));
+    }
+}
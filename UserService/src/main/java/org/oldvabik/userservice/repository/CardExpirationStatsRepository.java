@@ -0,0 +1,44 @@
+package org.oldvabik.userservice.repository;
+
+import org.oldvabik.userservice.dto.CardExpirationBucketDto;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Reads {@code card_expiration_stats}, which triggers on {@code card_info} and {@code users}
+ * keep in step with every card and owner change, so no query here touches {@code card_info}.
+ */
+@Repository
+public class CardExpirationStatsRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CardExpirationStatsRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<CardExpirationBucketDto> findBuckets(YearMonth from, YearMonth to) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT expiration_month, birth_decade, card_count
+                FROM card_expiration_stats
+                WHERE card_count > 0
+                """);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (from != null) {
+            sql.append(" AND expiration_month >= :from");
+            params.addValue("from", from.atDay(1));
+        }
+        if (to != null) {
+            sql.append(" AND expiration_month <= :to");
+            params.addValue("to", to.atDay(1));
+        }
+        sql.append(" ORDER BY expiration_month, birth_decade");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new CardExpirationBucketDto(
+                YearMonth.from(rs.getDate("expiration_month").toLocalDate()),
+                rs.getInt("birth_decade"),
+                rs.getLong("card_count")));
+    }
+}
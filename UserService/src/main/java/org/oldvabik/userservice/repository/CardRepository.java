@@ -1,22 +1,56 @@
 package org.oldvabik.userservice.repository;
 
 import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.repository.projection.CardOwnerView;
+import org.oldvabik.userservice.repository.projection.CardView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface CardRepository extends JpaRepository<CardInfo, Long> {
 
-    Optional<CardInfo> findByNumber(String number);
+    @Query(value = "SELECT c.* FROM card_number n " +
+            "JOIN card_info c ON c.user_id = n.user_id AND c.id = n.card_id WHERE n.number = :number",
+            nativeQuery = true)
+    Optional<CardInfo> findByNumber(@Param("number") String number);
 
     @Query("SELECT c FROM CardInfo c JOIN FETCH c.user WHERE c.id = :id")
     Optional<CardInfo> findByIdWithUser(@Param("id") Long id);
 
-    @Query("SELECT c FROM CardInfo c JOIN FETCH c.user u LEFT JOIN FETCH u.cards WHERE c.id = :id")
-    Optional<CardInfo> findByIdWithUserWithCards(@Param("id") Long id);
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.CardView(" +
+            "c.id, c.number, c.holder, c.expirationDate, c.version, u.id, u.email) " +
+            "FROM CardInfo c JOIN c.user u WHERE c.id = :id")
+    Optional<CardView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.CardView(" +
+            "c.id, c.number, c.holder, c.expirationDate, c.version, u.id, u.email) " +
+            "FROM CardInfo c JOIN c.user u WHERE c.id IN :ids")
+    List<CardView> findViewsByIds(@Param("ids") Collection<Long> ids);
 
     Page<CardInfo> findAll(Pageable pageable);
+
+    @Query("SELECT c.id FROM CardInfo c WHERE c.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.CardOwnerView(u.id, u.email) " +
+            "FROM CardInfo c JOIN c.user u WHERE c.id = :id")
+    Optional<CardOwnerView> findOwnerById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CardInfo c WHERE c.id = :id AND c.user.id = :userId")
+    int deleteCardById(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CardInfo c SET c.holder = :holder, c.version = c.version + 1 WHERE c.user.id = :userId")
+    int updateHolderByUserId(@Param("userId") Long userId, @Param("holder") String holder);
 }
\ No newline at end of file
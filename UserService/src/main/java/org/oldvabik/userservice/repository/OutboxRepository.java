@@ -0,0 +1,131 @@
+package org.oldvabik.userservice.repository;
+
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxEvent;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stores change events in {@code outbox_event}. Rows are appended without a feed sequence number;
+ * the relay assigns one when it publishes them, so the feed is ordered by publication and never
+ * grows a gap behind a consumer's cursor.
+ * <p>
+ * Pending rows are claimed in insertion order. Writers append while holding the user's row lock, so a
+ * later event of the same user cannot commit before an earlier one and each user's events keep commit
+ * order; events of different users may be published in any order.
+ */
+@Repository
+public class OutboxRepository {
+    private static final long RELAY_LOCK_KEY = 0x6f7574626f78L;
+
+    private static final String APPEND_SQL = """
+            INSERT INTO outbox_event (event_type, user_id, card_id)
+            VALUES (:type, :userId, :cardId)
+            """;
+
+    private static final String CLAIM_SQL = """
+            WITH ready AS (
+                SELECT id
+                FROM outbox_event
+                WHERE seq IS NULL
+                ORDER BY id
+                LIMIT :limit
+            ), numbered AS (
+                SELECT r.id,
+                       (SELECT coalesce(max(seq), 0) FROM outbox_event) + row_number() OVER (ORDER BY r.id) AS seq
+                FROM ready r
+            )
+            UPDATE outbox_event e
+            SET seq = n.seq, published_at = now()
+            FROM numbered n
+            WHERE e.id = n.id
+            RETURNING e.seq, e.event_type, e.user_id, e.card_id, e.created_at
+            """;
+
+    private static final String FIND_AFTER_SQL = """
+            SELECT seq, event_type, user_id, card_id, created_at
+            FROM outbox_event
+            WHERE seq > :after
+            ORDER BY seq
+            LIMIT :limit
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM outbox_event
+            WHERE id IN (
+                SELECT id
+                FROM outbox_event
+                WHERE seq < (SELECT max(seq) FROM outbox_event)
+                  AND published_at < :before
+                ORDER BY seq
+                LIMIT :limit
+            )
+            """;
+
+    private static final RowMapper<ChangeEventDto> EVENT_MAPPER = (rs, rowNum) -> new ChangeEventDto(
+            rs.getLong("seq"),
+            ChangeEventType.valueOf(rs.getString("event_type")),
+            rs.getLong("user_id"),
+            rs.getObject("card_id", Long.class),
+            rs.getObject("created_at", LocalDateTime.class));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(List<OutboxEvent> events) {
+        SqlParameterSource[] batch = events.stream()
+                .map(event -> new MapSqlParameterSource()
+                        .addValue("type", event.type().name())
+                        .addValue("userId", event.userId())
+                        .addValue("cardId", event.cardId()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(APPEND_SQL, batch);
+    }
+
+    /**
+     * Takes the relay lock for the current transaction; {@code false} means another node is relaying.
+     */
+    public boolean tryLockRelay() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(:key)",
+                new MapSqlParameterSource("key", RELAY_LOCK_KEY), Boolean.class);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    /**
+     * Assigns the next feed sequence numbers to up to {@code limit} pending events and returns them in
+     * sequence order. Must run under {@link #tryLockRelay()}.
+     */
+    public List<ChangeEventDto> claimPending(int limit) {
+        List<ChangeEventDto> claimed = jdbcTemplate.query(CLAIM_SQL,
+                new MapSqlParameterSource("limit", limit), EVENT_MAPPER);
+        return claimed.stream().sorted(Comparator.comparing(ChangeEventDto::getSeq)).toList();
+    }
+
+    public List<ChangeEventDto> findPublishedAfter(long after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(FIND_AFTER_SQL, params, EVENT_MAPPER);
+    }
+
+    /**
+     * Deletes up to {@code limit} events published before {@code before}. The newest published event is
+     * always kept, so the feed can tell a purged range from the end of the feed.
+     */
+    public int purgePublishedBefore(LocalDateTime before, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("before", before)
+                .addValue("limit", limit);
+        return jdbcTemplate.update(PURGE_SQL, params);
+    }
+}
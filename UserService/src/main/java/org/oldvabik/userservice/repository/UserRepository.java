@@ -1,21 +1,74 @@
 package org.oldvabik.userservice.repository;
 
 import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.projection.UserCardView;
+import org.oldvabik.userservice.repository.projection.UserVersionView;
+import org.oldvabik.userservice.repository.projection.UserView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
-    @Query("SELECT u FROM User u LEFT JOIN FETCH u.cards WHERE u.email = :email")
-    Optional<User> findByEmailWithCards(String email);
-
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.cards WHERE u.id = :id")
     Optional<User> findByIdWithCards(Long id);
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.cards")
     Page<User> findAllWithCards(Pageable pageable);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserCardView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version, " +
+            "c.id, c.number, c.holder, c.expirationDate, c.version) " +
+            "FROM User u LEFT JOIN u.cards c WHERE u.id = :id ORDER BY c.id")
+    List<UserCardView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserCardView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version, " +
+            "c.id, c.number, c.holder, c.expirationDate, c.version) " +
+            "FROM User u LEFT JOIN u.cards c WHERE u.email = :email ORDER BY c.id")
+    List<UserCardView> findViewByEmail(@Param("email") String email);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserCardView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version, " +
+            "c.id, c.number, c.holder, c.expirationDate, c.version) " +
+            "FROM User u LEFT JOIN u.cards c WHERE u.id IN :ids ORDER BY u.id, c.id")
+    List<UserCardView> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version) FROM User u WHERE u.id = :id")
+    Optional<UserView> findProfileById(@Param("id") Long id);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version) FROM User u WHERE u.email = :email")
+    Optional<UserView> findProfileByEmail(@Param("email") String email);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version) FROM User u WHERE u.id IN :ids")
+    List<UserView> findProfilesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT new org.oldvabik.userservice.repository.projection.UserView(" +
+            "u.id, u.name, u.surname, u.birthDate, u.email, u.version) FROM User u",
+            countQuery = "SELECT count(u) FROM User u")
+    Page<UserView> findAllProfiles(Pageable pageable);
+
+    @Query("SELECT new org.oldvabik.userservice.repository.projection.UserVersionView(u.id, u.version, u.email) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserVersionView> findVersionViewById(@Param("id") Long id);
+
+    /**
+     * Bumps the user's version when its cards change, so the user ETag covers the embedded cards too.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.version = u.version + 1 WHERE u.id = :id")
+    int incrementVersion(@Param("id") Long id);
 }
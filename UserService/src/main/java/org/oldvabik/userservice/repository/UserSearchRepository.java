@@ -0,0 +1,148 @@
+package org.oldvabik.userservice.repository;
+
+import org.oldvabik.userservice.dto.UserSummaryDto;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Name and surname search. Prefix search matches the start of "name surname" or "surname name" through
+ * the two C-collation btree indexes on those keys; each branch reads only its index range in key order,
+ * and rows come back ordered by the key they matched, then id, continuing after the given (key, id) pair.
+ * Fuzzy search goes through the trigram index on {@code lower(name || ' ' || surname)}; its results are
+ * ordered by score, then id, and continue after the given (score, id) pair.
+ */
+@Repository
+public class UserSearchRepository {
+    /**
+     * Order of the prefix sort keys, matching Postgres' C collation: UTF-8 bytes compared unsigned.
+     */
+    public static final Comparator<String> SORT_KEY_ORDER = (a, b) ->
+            Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+
+    private static final String FULL_NAME = "lower(u.name || ' ' || u.surname)";
+    private static final String FULL_NAME_KEY = FULL_NAME + " COLLATE \"C\"";
+    private static final String SURNAME_FIRST_KEY = "lower(u.surname || ' ' || u.name) COLLATE \"C\"";
+
+    private static final String PREFIX_QUERY = """
+            SELECT s.id, s.name, s.surname, s.email, s.sort_key,
+                   similarity(lower(s.name || ' ' || s.surname), :query) AS score
+            FROM ((%s) UNION ALL (%s)) s
+            ORDER BY s.sort_key, s.id
+            LIMIT :limit
+            """;
+
+    private static final String FUZZY_QUERY = """
+            SELECT u.id, u.name, u.surname, u.email, word_similarity(:query, %1$s) AS score
+            FROM users u
+            WHERE :query <%% %1$s
+            """.formatted(FULL_NAME);
+
+    private static final String SET_THRESHOLD =
+            "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserSearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Each branch gets a single lower bound, the prefix on the first page and the cursor after it, so that
+     * the index scan starts there even under a generic plan; a cursor sorting before the prefix is ignored.
+     */
+    public List<UserSummaryDto> searchByPrefix(String query, String afterKey, Long afterId, int limit) {
+        String upperBound = upperBound(query);
+        boolean continued = afterKey != null && afterId != null && SORT_KEY_ORDER.compare(afterKey, query) >= 0;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("from", query)
+                .addValue("to", upperBound)
+                .addValue("limit", limit);
+        if (continued) {
+            params.addValue("afterKey", afterKey).addValue("afterId", afterId);
+        }
+        boolean bounded = upperBound != null;
+        String sql = PREFIX_QUERY.formatted(
+                prefixBranch(FULL_NAME_KEY, null, continued, bounded),
+                prefixBranch(SURNAME_FIRST_KEY, FULL_NAME_KEY, continued, bounded));
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new UserSummaryDto(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                rs.getString("email"),
+                rs.getFloat("score"),
+                rs.getString("sort_key")));
+    }
+
+    /**
+     * The {@code <%} operator filters by {@code pg_trgm.word_similarity_threshold}, so the threshold is set
+     * for the current transaction before the query runs.
+     */
+    public List<UserSummaryDto> searchFuzzy(String query, float threshold, Float afterScore, Long afterId, int limit) {
+        jdbcTemplate.queryForObject(SET_THRESHOLD,
+                new MapSqlParameterSource("threshold", Float.toString(threshold)), String.class);
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("query", query);
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(FUZZY_QUERY).append(") s");
+        if (afterScore != null && afterId != null) {
+            sql.append(" WHERE s.score < :afterScore OR (s.score = :afterScore AND s.id > :afterId)");
+            params.addValue("afterScore", afterScore).addValue("afterId", afterId);
+        }
+        sql.append(" ORDER BY s.score DESC, s.id LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new UserSummaryDto(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("surname"),
+                rs.getString("email"),
+                rs.getFloat("score"),
+                null));
+    }
+
+    /**
+     * One branch of the prefix search: rows whose {@code key} starts with the query, skipping those that
+     * {@code excludedKey} matches as well, so a row is returned by one branch only.
+     */
+    private static String prefixBranch(String key, String excludedKey, boolean continued, boolean bounded) {
+        StringBuilder sql = new StringBuilder("SELECT u.id, u.name, u.surname, u.email, ")
+                .append(key).append(" AS sort_key FROM users u WHERE ")
+                .append(continued ? "(" + key + ", u.id) > (:afterKey, :afterId)" : key + " >= :from");
+        if (bounded) {
+            sql.append(" AND ").append(key).append(" < :to");
+        }
+        if (excludedKey != null) {
+            sql.append(" AND NOT (").append(excludedKey).append(" >= :from");
+            if (bounded) {
+                sql.append(" AND ").append(excludedKey).append(" < :to");
+            }
+            sql.append(")");
+        }
+        return sql.append(" ORDER BY sort_key, u.id LIMIT :limit").toString();
+    }
+
+    /**
+     * Smallest string above every string starting with {@code prefix} in code point order, or null if
+     * there is none.
+     */
+    private static String upperBound(String prefix) {
+        int[] codePoints = prefix.codePoints().toArray();
+        for (int i = codePoints.length - 1; i >= 0; i--) {
+            int next = codePoints[i] + 1;
+            if (next == Character.MIN_SURROGATE) {
+                next = Character.MAX_SURROGATE + 1;
+            }
+            if (next <= Character.MAX_CODE_POINT) {
+                codePoints[i] = next;
+                return new String(codePoints, 0, i + 1);
+            }
+        }
+        return null;
+    }
+}
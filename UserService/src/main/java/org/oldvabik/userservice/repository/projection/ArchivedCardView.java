@@ -0,0 +1,4 @@
+package org.oldvabik.userservice.repository.projection;
+
+public record ArchivedCardView(Long cardId, Long userId, String email) {
+}
@@ -0,0 +1,4 @@
+package org.oldvabik.userservice.repository.projection;
+
+public record CardOwnerView(Long userId, String email) {
+}
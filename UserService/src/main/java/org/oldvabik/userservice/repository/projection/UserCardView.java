@@ -0,0 +1,16 @@
+package org.oldvabik.userservice.repository.projection;
+
+import java.time.LocalDate;
+
+public record UserCardView(Long id,
+                           String name,
+                           String surname,
+                           LocalDate birthDate,
+                           String email,
+                           Long version,
+                           Long cardId,
+                           String cardNumber,
+                           String cardHolder,
+                           LocalDate cardExpirationDate,
+                           Long cardVersion) {
+}
@@ -0,0 +1,8 @@
+package org.oldvabik.userservice.repository.projection;
+
+import java.io.Serializable;
+
+public record UserVersionView(Long id,
+                              Long version,
+                              String email) implements Serializable {
+}
@@ -7,9 +7,13 @@ import org.springframework.stereotype.Component;
 @Component
 public class AccessChecker {
     public boolean canAccessUser(Authentication auth, UserDto user) {
+        return canAccessOwner(auth, user.getEmail());
+    }
+
+    public boolean canAccessOwner(Authentication auth, String email) {
         if (auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return true;
         }
-        return auth.getName().equals(user.getEmail());
+        return auth.getName().equals(email);
     }
 }
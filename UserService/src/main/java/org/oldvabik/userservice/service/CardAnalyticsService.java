@@ -0,0 +1,8 @@
+package org.oldvabik.userservice.service;
+
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
+import java.time.YearMonth;
+
+public interface CardAnalyticsService {
+    CardExpirationStatsDto getExpirationStats(YearMonth from, YearMonth to);
+}
@@ -0,0 +1,5 @@
+package org.oldvabik.userservice.service;
+
+public interface CardArchiveService {
+    int archiveExpiredCards();
+}
@@ -5,15 +5,18 @@ import org.oldvabik.userservice.dto.CardInfoDto;
 import org.oldvabik.userservice.dto.CardInfoUpdateDto;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
+import java.util.List;
 
 public interface CardService {
     CardInfoDto createCard(Authentication auth, CardInfoCreateDto dto);
 
     CardInfoDto getCardById(Authentication auth, Long id);
 
+    List<CardInfoDto> getCardsByIds(Authentication auth, List<Long> ids);
+
     Page<CardInfoDto> getAllCards(Integer page, Integer size);
 
-    CardInfoDto updateCard(Authentication auth, Long id, CardInfoUpdateDto dto);
+    CardInfoDto updateCard(Authentication auth, Long id, CardInfoUpdateDto dto, Long expectedVersion);
 
     void deleteCard(Authentication auth, Long id);
 }
@@ -0,0 +1,7 @@
+package org.oldvabik.userservice.service;
+
+import org.oldvabik.userservice.dto.ChangeFeedDto;
+
+public interface ChangeFeedService {
+    ChangeFeedDto getChanges(Integer shard, Long after, Integer limit);
+}
@@ -0,0 +1,13 @@
+package org.oldvabik.userservice.service;
+
+import org.oldvabik.userservice.dto.UserImportResultDto;
+import java.io.InputStream;
+
+public interface UserImportService {
+    enum Format {
+        CSV,
+        NDJSON
+    }
+
+    UserImportResultDto importUsers(InputStream input, Format format);
+}
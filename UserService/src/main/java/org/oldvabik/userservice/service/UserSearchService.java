@@ -0,0 +1,22 @@
+package org.oldvabik.userservice.service;
+
+import org.oldvabik.userservice.dto.UserSearchResultDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import java.util.Locale;
+
+public interface UserSearchService {
+    enum Mode {
+        PREFIX,
+        FUZZY;
+
+        public static Mode from(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("mode must be one of: prefix, fuzzy");
+            }
+        }
+    }
+
+    UserSearchResultDto search(String query, Mode mode, Integer limit, String after);
+}
@@ -5,17 +5,22 @@ import org.oldvabik.userservice.dto.UserDto;
 import org.oldvabik.userservice.dto.UserUpdateDto;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
+import java.util.List;
 
 public interface UserService {
     UserDto createUser(UserCreateDto dto);
 
-    UserDto getUserById(Authentication auth, Long id);
+    UserDto getUserById(Authentication auth, Long id, boolean withCards);
 
-    Page<UserDto> getAllUsers(Integer page, Integer size);
+    Long getUserVersion(Authentication auth, Long id);
 
-    UserDto getUserByEmail(Authentication auth, String email);
+    List<UserDto> getUsersByIds(Authentication auth, List<Long> ids, boolean withCards);
 
-    UserDto updateUser(Authentication auth, Long id, UserUpdateDto dto);
+    Page<UserDto> getAllUsers(Integer page, Integer size, boolean withCards);
+
+    UserDto getUserByEmail(Authentication auth, String email, boolean withCards);
+
+    UserDto updateUser(Authentication auth, Long id, UserUpdateDto dto, Long expectedVersion);
 
     void deleteUser(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package org.oldvabik.userservice.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.CardExpirationBucketDto;
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.repository.CardExpirationStatsRepository;
+import org.oldvabik.userservice.service.CardAnalyticsService;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+public class CardAnalyticsServiceImpl implements CardAnalyticsService {
+    private final CardExpirationStatsRepository cardExpirationStatsRepository;
+    private final UserShards userShards;
+
+    public CardAnalyticsServiceImpl(CardExpirationStatsRepository cardExpirationStatsRepository,
+                                    UserShards userShards) {
+        this.cardExpirationStatsRepository = cardExpirationStatsRepository;
+        this.userShards = userShards;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.CARD_ANALYTICS_CACHE, key = "'expirations:' + #from + ':' + #to", sync = true)
+    public CardExpirationStatsDto getExpirationStats(YearMonth from, YearMonth to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+
+        List<CardExpirationBucketDto> buckets = userShards.isSharded()
+                ? mergeBuckets(userShards.readEachShard(shard -> cardExpirationStatsRepository.findBuckets(from, to)))
+                : cardExpirationStatsRepository.findBuckets(from, to);
+        long total = buckets.stream().mapToLong(CardExpirationBucketDto::getCards).sum();
+        log.info("[CardAnalyticsService] getExpirationStats: from={}, to={}, {} buckets", from, to, buckets.size());
+        return new CardExpirationStatsDto(buckets, total);
+    }
+
+    private static List<CardExpirationBucketDto> mergeBuckets(List<List<CardExpirationBucketDto>> shards) {
+        Map<CardExpirationBucketDto, Long> counts = new TreeMap<>(Comparator
+                .comparing(CardExpirationBucketDto::getMonth)
+                .thenComparingInt(CardExpirationBucketDto::getBirthDecade));
+        shards.forEach(buckets -> buckets.forEach(bucket -> counts.merge(bucket, bucket.getCards(), Long::sum)));
+        return counts.entrySet().stream()
+                .map(entry -> new CardExpirationBucketDto(entry.getKey().getMonth(), entry.getKey().getBirthDecade(),
+                        entry.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,147 @@
+package org.oldvabik.userservice.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxEvent;
+import org.oldvabik.userservice.outbox.OutboxWriter;
+import org.oldvabik.userservice.repository.CardArchiveRepository;
+import org.oldvabik.userservice.repository.projection.ArchivedCardView;
+import org.oldvabik.userservice.service.CardArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archives expired cards in bounded batches. Each batch commits on its own, so locks are held
+ * briefly and a failure only loses the current batch; cache entries of the affected cards and
+ * their owners are evicted after the batch commits, and a {@code CARD_DELETED} change event is
+ * recorded for each archived card. With sharding, each shard is archived in turn with its own
+ * batch limit.
+ */
+@Slf4j
+@Service
+public class CardArchiveServiceImpl implements CardArchiveService {
+    private final CardArchiveRepository cardArchiveRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final UserShards userShards;
+    private final Counter archivedCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastArchived = new AtomicLong();
+    private final AtomicLong lastUsers = new AtomicLong();
+
+    @Value("${app.cards.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cards.archive.max-batches:20}")
+    private int maxBatches;
+
+    public CardArchiveServiceImpl(CardArchiveRepository cardArchiveRepository,
+                                  CacheInvalidator cacheInvalidator,
+                                  OutboxWriter outboxWriter,
+                                  PlatformTransactionManager transactionManager,
+                                  UserShards userShards,
+                                  MeterRegistry meterRegistry) {
+        this.cardArchiveRepository = cardArchiveRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userShards = userShards;
+
+        this.archivedCounter = Counter.builder("cards.archive.archived")
+                .description("Expired cards moved to the archive")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("cards.archive.duration")
+                .description("Time spent archiving expired cards per run")
+                .register(meterRegistry);
+        Gauge.builder("cards.archive.last.cards", lastArchived, AtomicLong::get)
+                .description("Cards archived by the last run")
+                .register(meterRegistry);
+        Gauge.builder("cards.archive.last.users", lastUsers, AtomicLong::get)
+                .description("Users whose cards were archived by the last run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.cards.archive.cron:0 */15 * * * *}")
+    public void sweep() {
+        try {
+            archiveExpiredCards();
+        } catch (RuntimeException e) {
+            log.warn("[CardArchiveService] sweep: failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int archiveExpiredCards() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        int archived = 0;
+        Set<Long> users = new HashSet<>();
+        int batches = 0;
+
+        try {
+            for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+                int shardBatches = 0;
+                while (shardBatches < maxBatches) {
+                    List<ArchivedCardView> moved = userShards.onShard(shard,
+                            () -> transactionTemplate.execute(status -> archiveBatch(today)));
+                    if (moved == null || moved.isEmpty()) {
+                        break;
+                    }
+                    shardBatches++;
+                    archived += moved.size();
+                    moved.forEach(card -> users.add(card.userId()));
+                    archivedCounter.increment(moved.size());
+                    if (moved.size() < batchSize) {
+                        break;
+                    }
+                }
+                batches += shardBatches;
+            }
+        } finally {
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lastArchived.set(archived);
+            lastUsers.set(users.size());
+        }
+
+        log.info("[CardArchiveService] archiveExpiredCards: archived {} cards of {} users in {} batches",
+                archived, users.size(), batches);
+        return archived;
+    }
+
+    private List<ArchivedCardView> archiveBatch(LocalDate today) {
+        List<ArchivedCardView> moved = cardArchiveRepository.archiveExpired(today, batchSize);
+        if (moved.isEmpty()) {
+            return moved;
+        }
+
+        outboxWriter.append(moved.stream()
+                .map(card -> new OutboxEvent(ChangeEventType.CARD_DELETED, card.userId(), card.cardId()))
+                .toList());
+
+        Map<Long, String> owners = new LinkedHashMap<>();
+        moved.forEach(card -> owners.putIfAbsent(card.userId(), card.email()));
+        owners.forEach(cacheInvalidator::evictUser);
+        cacheInvalidator.evictCards(moved.stream().map(ArchivedCardView::cardId).toList());
+
+        log.debug("[CardArchiveService] archiveBatch: moved {} cards of {} users", moved.size(), owners.size());
+        return moved;
+    }
+}
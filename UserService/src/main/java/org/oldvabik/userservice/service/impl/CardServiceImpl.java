@@ -1,66 +1,95 @@
 package org.oldvabik.userservice.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.cache.HotKeyTracker;
+import org.oldvabik.userservice.cache.CardLookup;
+import org.oldvabik.userservice.datasource.UserShards;
 import org.oldvabik.userservice.dto.CardInfoCreateDto;
 import org.oldvabik.userservice.dto.CardInfoDto;
 import org.oldvabik.userservice.dto.CardInfoUpdateDto;
 import org.oldvabik.userservice.entity.CardInfo;
 import org.oldvabik.userservice.entity.User;
 import org.oldvabik.userservice.exception.AlreadyExistsException;
+import org.oldvabik.userservice.exception.BadRequestException;
 import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.exception.PreconditionFailedException;
 import org.oldvabik.userservice.mapper.CardMapper;
-import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxWriter;
 import org.oldvabik.userservice.repository.CardRepository;
 import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.repository.projection.CardOwnerView;
+import org.oldvabik.userservice.repository.projection.CardView;
 import org.oldvabik.userservice.security.AccessChecker;
 import org.oldvabik.userservice.service.CardService;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
 
 @Slf4j
 @Service
+@Timed(value = "card.service", description = "CardService method latency")
 public class CardServiceImpl implements CardService {
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardMapper cardMapper;
-    private final UserMapper userMapper;
     private final AccessChecker accessChecker;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final CardLookup cardLookup;
+    private final HotKeyTracker hotKeyTracker;
+    private final CacheInvalidator cacheInvalidator;
+    private final OutboxWriter outboxWriter;
+    private final UserShards userShards;
+
+    @Value("${app.multi-get.max-ids:100}")
+    private int maxIds;
 
     public CardServiceImpl(CardRepository cardRepository,
                            UserRepository userRepository,
                            CardMapper cardMapper,
-                           UserMapper userMapper,
                            AccessChecker accessChecker,
-                           RedisTemplate<String, Object> redisTemplate) {
+                           CardLookup cardLookup,
+                           HotKeyTracker hotKeyTracker,
+                           CacheInvalidator cacheInvalidator,
+                           OutboxWriter outboxWriter,
+                           UserShards userShards) {
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
         this.cardMapper = cardMapper;
-        this.userMapper = userMapper;
         this.accessChecker = accessChecker;
-        this.redisTemplate = redisTemplate;
+        this.cardLookup = cardLookup;
+        this.hotKeyTracker = hotKeyTracker;
+        this.cacheInvalidator = cacheInvalidator;
+        this.outboxWriter = outboxWriter;
+        this.userShards = userShards;
     }
 
     @Override
     @Transactional
     public CardInfoDto createCard(Authentication auth, CardInfoCreateDto dto) {
         log.info("[CardService] createCard: userId={}, number={}", dto.getUserId(), dto.getNumber());
+        int shard = userShards.shardOf(dto.getUserId());
+        userShards.pin(shard);
         User user = userRepository.findById(dto.getUserId())
                 .orElseThrow(() -> {
                     log.warn("[CardService] createCard: user not found userId={}", dto.getUserId());
                     return new NotFoundException("user with id " + dto.getUserId() + " not found");
                 });
 
-        if (!accessChecker.canAccessUser(auth, userMapper.toDto(user))) {
+        if (!accessChecker.canAccessOwner(auth, user.getEmail())) {
             log.warn("[CardService] createCard: access denied for user {}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
@@ -69,30 +98,29 @@ public class CardServiceImpl implements CardService {
             log.warn("[CardService] createCard: card number={} already exists", dto.getNumber());
             throw new AlreadyExistsException("card with number " + dto.getNumber() + " already exists");
         });
+        reserveNumber(dto.getNumber(), shard, "createCard");
 
         CardInfo card = cardMapper.toEntity(dto);
         card.setUser(user);
         card.setHolder(user.getName() + " " + user.getSurname());
 
         CardInfo saved = cardRepository.save(card);
+        userRepository.incrementVersion(user.getId());
+        outboxWriter.cardChanged(ChangeEventType.CARD_CREATED, user.getId(), saved.getId());
         log.info("[CardService] createCard: created id={}", saved.getId());
 
-        evictUserCacheCompletely(user.getId(), user.getEmail());
+        cacheInvalidator.evictUser(user.getId(), user.getEmail());
 
         return cardMapper.toDto(saved);
     }
 
     @Override
-    @Cacheable(value = "cards", key = "#id + '_' + #auth.name")
     public CardInfoDto getCardById(Authentication auth, Long id) {
         log.debug("[CardService] getCardById: id={}", id);
-        CardInfo card = cardRepository.findByIdWithUserWithCards(id)
-                .orElseThrow(() -> {
-                    log.warn("[CardService] getCardById: not found id={}", id);
-                    return new NotFoundException("card with id " + id + " not found");
-                });
+        CardView card = cardLookup.findById(id);
+        hotKeyTracker.recordCard(id);
 
-        if (!accessChecker.canAccessUser(auth, userMapper.toDto(card.getUser()))) {
+        if (!accessChecker.canAccessOwner(auth, card.ownerEmail())) {
             log.warn("[CardService] getCardById: access denied for user {}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
@@ -102,8 +130,45 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
+    public List<CardInfoDto> getCardsByIds(Authentication auth, List<Long> ids) {
+        List<Long> distinctIds = distinctIds(ids);
+        log.debug("[CardService] getCardsByIds: {} ids", distinctIds.size());
+        Map<Long, CardView> found = cardLookup.findAllById(distinctIds);
+
+        List<CardInfoDto> cards = new ArrayList<>(found.size());
+        int denied = 0;
+        for (Long id : distinctIds) {
+            CardView card = found.get(id);
+            if (card == null) {
+                continue;
+            }
+            hotKeyTracker.recordCard(id);
+            if (accessChecker.canAccessOwner(auth, card.ownerEmail())) {
+                cards.add(cardMapper.toDto(card));
+            } else {
+                denied++;
+            }
+        }
+        if (denied > 0) {
+            log.warn("[CardService] getCardsByIds: access denied to {} cards for user {}", denied, auth.getName());
+        }
+
+        log.info("[CardService] getCardsByIds: returned {} of {} cards", cards.size(), distinctIds.size());
+        return cards;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<CardInfoDto> getAllCards(Integer page, Integer size) {
         log.debug("[CardService] getAllCards: page={}, size={}", page, size);
+        if (userShards.isSharded()) {
+            Page<CardInfoDto> cards = userShards.readPage(PageRequest.of(page, size, Sort.by("id")),
+                    shardPage -> cardRepository.findAll(shardPage).map(cardMapper::toDto),
+                    Comparator.comparing(CardInfoDto::getId));
+            log.info("[CardService] getAllCards: fetched {} cards from {} shards", cards.getContent().size(),
+                    userShards.getShardCount());
+            return cards;
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<CardInfo> cards = cardRepository.findAll(pageable);
         log.info("[CardService] getAllCards: fetched {} cards", cards.getContent().size());
@@ -112,31 +177,46 @@ public class CardServiceImpl implements CardService {
 
     @Override
     @Transactional
-    @CachePut(value = "cards", key = "#id + '_' + #auth.name")
-    public CardInfoDto updateCard(Authentication auth, Long id, CardInfoUpdateDto dto) {
+    public CardInfoDto updateCard(Authentication auth, Long id, CardInfoUpdateDto dto, Long expectedVersion) {
         log.info("[CardService] updateCard: id={}", id);
-        CardInfo card = cardRepository.findById(id)
+        int shard = userShards.shardOf(id);
+        userShards.pin(shard);
+        CardInfo card = cardRepository.findByIdWithUser(id)
                 .orElseThrow(() -> {
                     log.warn("[CardService] updateCard: not found id={}", id);
                     return new NotFoundException("card with id " + id + " not found");
                 });
 
-        if (!accessChecker.canAccessUser(auth, userMapper.toDto(card.getUser()))) {
+        User owner = card.getUser();
+        if (!accessChecker.canAccessOwner(auth, owner.getEmail())) {
             log.warn("[CardService] updateCard: access denied for user {}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
 
+        if (expectedVersion != null && !expectedVersion.equals(card.getVersion())) {
+            log.warn("[CardService] updateCard: version mismatch id={}, expected={}, actual={}",
+                    id, expectedVersion, card.getVersion());
+            throw new PreconditionFailedException("card with id " + id + " was modified, current version is "
+                    + card.getVersion());
+        }
+
         if (dto.getNumber() != null && !dto.getNumber().equals(card.getNumber())) {
             cardRepository.findByNumber(dto.getNumber()).ifPresent(c -> {
                 log.warn("[CardService] updateCard: number={} already exists", dto.getNumber());
                 throw new AlreadyExistsException("card with number " + dto.getNumber() + " already exists");
             });
+            reserveNumber(dto.getNumber(), shard, "updateCard");
         }
 
         cardMapper.updateEntityFromDto(dto, card);
         CardInfo saved = cardRepository.save(card);
+        userRepository.incrementVersion(owner.getId());
+        outboxWriter.cardChanged(ChangeEventType.CARD_UPDATED, owner.getId(), id);
 
         log.info("[CardService] updateCard: updated id={}", saved.getId());
+
+        cacheInvalidator.evictCards(List.of(id));
+        cacheInvalidator.evictUser(owner.getId(), owner.getEmail());
         return cardMapper.toDto(saved);
     }
 
@@ -144,45 +224,49 @@ public class CardServiceImpl implements CardService {
     @Transactional
     public void deleteCard(Authentication auth, Long id) {
         log.info("[CardService] deleteCard: id={}", id);
-        CardInfo card = cardRepository.findByIdWithUserWithCards(id)
-                .orElseThrow(() -> new NotFoundException("card with id " + id + " not found"));
-
-        User user = card.getUser();
+        userShards.pin(userShards.shardOf(id));
+        CardOwnerView owner = cardRepository.findOwnerById(id)
+                .orElseThrow(() -> {
+                    log.warn("[CardService] deleteCard: not found id={}", id);
+                    return new NotFoundException("card with id " + id + " not found");
+                });
 
-        if (!accessChecker.canAccessUser(auth, userMapper.toDto(user))) {
+        if (!accessChecker.canAccessOwner(auth, owner.email())) {
+            log.warn("[CardService] deleteCard: access denied for user {}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
 
-        user.removeCard(card);
-        userRepository.save(user);
+        cardRepository.deleteCardById(id, owner.userId());
+        userRepository.incrementVersion(owner.userId());
+        outboxWriter.cardChanged(ChangeEventType.CARD_DELETED, owner.userId(), id);
 
         log.info("[CardService] deleteCard: deleted id={}", id);
 
-        deleteCardCache(id);
-        evictUserCacheCompletely(user.getId(), user.getEmail());
+        cacheInvalidator.evictCards(List.of(id));
+        cacheInvalidator.evictUser(owner.userId(), owner.email());
     }
 
-
-    private void deleteCardCache(Long cardId) {
-        String pattern = cardId + "_*";
-        Set<String> keys = redisTemplate.keys("cards::" + pattern);
-        if (!keys.isEmpty()) {
-            redisTemplate.delete(keys);
-            log.info("[CardService] deleteCardCache: deleted {} cache keys for card id={}", keys.size(), cardId);
+    /**
+     * Card numbers are unique per database; with sharding the directory also keeps them unique across shards.
+     * Numbers of deleted cards are not released, another shard takes them over once it sees the card gone.
+     */
+    private void reserveNumber(String number, int shard, String method) {
+        OptionalInt holder = userShards.reserve(UserShards.cardNumberKey(number), shard,
+                () -> cardRepository.findByNumber(number).isPresent());
+        if (holder.isPresent()) {
+            log.warn("[CardService] {}: card number={} already exists on shard {}", method, number, holder.getAsInt());
+            throw new AlreadyExistsException("card with number " + number + " already exists");
         }
     }
 
-    private void evictUserCacheCompletely(Long userId, String email) {
-        Set<String> keysId = redisTemplate.keys("users::" + userId + "_*");
-        if (!keysId.isEmpty()) {
-            redisTemplate.delete(keysId);
-            log.info("Evicted {} keys for user id={}", keysId.size(), userId);
+    private List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
         }
-
-        Set<String> keysEmail = redisTemplate.keys("users::" + email + "_*");
-        if (!keysEmail.isEmpty()) {
-            redisTemplate.delete(keysEmail);
-            log.info("Evicted {} keys for user email={}", keysEmail.size(), email);
+        if (distinctIds.size() > maxIds) {
+            throw new BadRequestException("at most " + maxIds + " ids can be requested at once");
         }
+        return distinctIds;
     }
 }
@@ -0,0 +1,73 @@
+package org.oldvabik.userservice.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.oldvabik.userservice.dto.ChangeFeedDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.exception.GoneException;
+import org.oldvabik.userservice.repository.OutboxRepository;
+import org.oldvabik.userservice.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * Pages published change events by sequence number. A consumer passes the {@code next} value of the
+ * previous page as {@code after}; sequence numbers are dense and assigned in publication order, so no
+ * event can appear behind the cursor later, and a jump past the cursor means purged events.
+ * With sharding every shard has its own feed, and a consumer keeps one cursor per shard.
+ */
+@Slf4j
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+    private final OutboxRepository outboxRepository;
+    private final UserShards userShards;
+
+    @Value("${app.outbox.feed.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${app.outbox.feed.max-limit:1000}")
+    private int maxLimit;
+
+    public ChangeFeedServiceImpl(OutboxRepository outboxRepository, UserShards userShards) {
+        this.outboxRepository = outboxRepository;
+        this.userShards = userShards;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeFeedDto getChanges(Integer shard, Long after, Integer limit) {
+        int feedShard = shard == null ? 0 : shard;
+        if (feedShard < 0 || feedShard >= userShards.getShardCount()) {
+            throw new BadRequestException("shard must be between 0 and " + (userShards.getShardCount() - 1));
+        }
+        long cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            throw new BadRequestException("after must not be negative");
+        }
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            throw new BadRequestException("limit must be between 1 and " + maxLimit);
+        }
+
+        log.debug("[ChangeFeedService] getChanges: shard={}, after={}, limit={}", feedShard, cursor, pageSize);
+        userShards.pin(feedShard);
+        List<ChangeEventDto> events = outboxRepository.findPublishedAfter(cursor, pageSize + 1);
+        if (!events.isEmpty() && events.get(0).getSeq() > cursor + 1) {
+            long oldest = events.get(0).getSeq();
+            log.warn("[ChangeFeedService] getChanges: after={} is older than retained seq={}", cursor, oldest);
+            throw new GoneException("events after " + cursor + " were purged, the oldest retained is " + oldest
+                    + "; resynchronize and continue from " + (oldest - 1));
+        }
+
+        boolean hasMore = events.size() > pageSize;
+        if (hasMore) {
+            events = events.subList(0, pageSize);
+        }
+        long next = events.isEmpty() ? cursor : events.get(events.size() - 1).getSeq();
+        log.info("[ChangeFeedService] getChanges: returned {} events after {}", events.size(), cursor);
+        return new ChangeFeedDto(List.copyOf(events), next, hasMore);
+    }
+}
@@ -0,0 +1,445 @@
+package org.oldvabik.userservice.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.CardImportDto;
+import org.oldvabik.userservice.dto.CardInfoCreateDto;
+import org.oldvabik.userservice.dto.UserImportDto;
+import org.oldvabik.userservice.dto.UserImportErrorDto;
+import org.oldvabik.userservice.dto.UserImportResultDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.service.UserImportService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int COPY_FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final String CREATE_STAGE_SQL = """
+            CREATE TEMP TABLE user_import_stage (
+                line_no bigint NOT NULL,
+                name varchar(100),
+                surname varchar(100),
+                birth_date date,
+                email varchar(255),
+                card_number varchar(50),
+                card_expiration_date date
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_STAGE_SQL = """
+            COPY user_import_stage (line_no, name, surname, birth_date, email, card_number, card_expiration_date)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    private static final String CREATE_IMPORT_USERS_SQL = """
+            CREATE TEMP TABLE user_import_users ON COMMIT DROP AS
+            SELECT DISTINCT ON (email) line_no, name, surname, birth_date, email
+            FROM user_import_stage
+            ORDER BY email, line_no
+            """;
+
+    private static final String USER_CONFLICTS_SQL = """
+            SELECT s.line_no, s.email, 'duplicate' AS reason, bool_or(s.card_number IS NOT NULL) AS has_cards
+            FROM user_import_stage s
+            JOIN user_import_users u ON u.email = s.email
+            WHERE s.line_no <> u.line_no
+              AND (s.name, s.surname, s.birth_date) IS DISTINCT FROM (u.name, u.surname, u.birth_date)
+              AND NOT EXISTS (SELECT 1 FROM users e WHERE e.email = s.email)
+            GROUP BY s.line_no, s.email
+            UNION ALL
+            SELECT s.line_no, s.email, 'exists' AS reason, bool_or(s.card_number IS NOT NULL) AS has_cards
+            FROM user_import_stage s
+            WHERE EXISTS (SELECT 1 FROM users e WHERE e.email = s.email)
+            GROUP BY s.line_no, s.email
+            ORDER BY 1
+            """;
+
+    private static final String CREATE_CREATED_USERS_SQL = """
+            CREATE TEMP TABLE user_import_created (
+                id bigint NOT NULL,
+                email varchar(255) NOT NULL,
+                holder varchar(255) NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    private static final String INSERT_USERS_SQL = """
+            WITH inserted AS (
+                INSERT INTO users (name, surname, birth_date, email)
+                SELECT name, surname, birth_date, email
+                FROM user_import_users
+                ORDER BY line_no
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, email, name || ' ' || surname
+            )
+            INSERT INTO user_import_created (id, email, holder)
+            SELECT * FROM inserted
+            """;
+
+    private static final String CREATE_IMPORT_CARDS_SQL = """
+            CREATE TEMP TABLE user_import_cards ON COMMIT DROP AS
+            SELECT s.line_no, s.email, s.card_number, s.card_expiration_date
+            FROM user_import_stage s
+            JOIN user_import_users u ON u.email = s.email
+            JOIN user_import_created c ON c.email = s.email
+            WHERE s.card_number IS NOT NULL
+              AND (s.name, s.surname, s.birth_date) IS NOT DISTINCT FROM (u.name, u.surname, u.birth_date)
+            """;
+
+    private static final String CARD_CONFLICTS_SQL = """
+            SELECT s.line_no, s.card_number, CASE WHEN s.rn > 1 THEN 'duplicate' ELSE 'exists' END AS reason
+            FROM (
+                SELECT line_no, card_number,
+                       row_number() OVER (PARTITION BY card_number ORDER BY line_no) AS rn
+                FROM user_import_cards
+            ) s
+            WHERE s.rn > 1 OR EXISTS (SELECT 1 FROM card_number n WHERE n.number = s.card_number)
+            ORDER BY s.line_no
+            """;
+
+    private static final String APPEND_USER_EVENTS_SQL = """
+            INSERT INTO outbox_event (event_type, user_id)
+            SELECT 'USER_CREATED', id
+            FROM user_import_created
+            ORDER BY id
+            """;
+
+    private static final String INSERT_CARDS_SQL = """
+            WITH inserted AS (
+                INSERT INTO card_info (user_id, number, holder, expiration_date)
+                SELECT c.id, s.card_number, c.holder, s.card_expiration_date
+                FROM (
+                    SELECT DISTINCT ON (card_number) email, card_number, card_expiration_date
+                    FROM user_import_cards
+                    ORDER BY card_number, line_no
+                ) s
+                JOIN user_import_created c ON c.email = s.email
+                WHERE NOT EXISTS (SELECT 1 FROM card_number n WHERE n.number = s.card_number)
+                RETURNING id, user_id
+            )
+            INSERT INTO outbox_event (event_type, user_id, card_id)
+            SELECT 'CARD_CREATED', user_id, id
+            FROM inserted
+            ORDER BY user_id, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final UserShards userShards;
+
+    public UserImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 Validator validator,
+                                 UserMapper userMapper,
+                                 ObjectMapper objectMapper,
+                                 UserShards userShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.userShards = userShards;
+    }
+
+    @Override
+    @Transactional
+    public UserImportResultDto importUsers(InputStream input, Format format) {
+        log.info("[UserImportService] importUsers: format={}", format);
+        if (userShards.isSharded()) {
+            log.warn("[UserImportService] importUsers: rejected, bulk import writes a single database");
+            throw new BadRequestException("bulk import is not supported when users are sharded");
+        }
+        long start = System.currentTimeMillis();
+        UserImportResultDto result = new UserImportResultDto();
+
+        jdbcTemplate.execute(CREATE_STAGE_SQL);
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            copyToStage(con, input, format, result);
+            return null;
+        });
+        jdbcTemplate.execute("ANALYZE user_import_stage");
+        log.info("[UserImportService] importUsers: staged {} rows, rejected {}",
+                result.getReceivedRows() - result.getRejectedRows(), result.getRejectedRows());
+
+        mergeUsers(result);
+        mergeCards(result);
+
+        log.info("[UserImportService] importUsers: imported {} users and {} cards in {} ms",
+                result.getImportedUsers(), result.getImportedCards(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private void copyToStage(Connection con, InputStream input, Format format, UserImportResultDto result)
+            throws SQLException {
+        CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE_SQL);
+        StringBuilder buffer = new StringBuilder(COPY_FLUSH_THRESHOLD * 2);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            Map<String, Integer> header = null;
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+
+                result.setReceivedRows(result.getReceivedRows() + 1);
+                UserImportDto row;
+                try {
+                    row = format == Format.CSV ? parseCsvRow(line, header) : objectMapper.readValue(line, UserImportDto.class);
+                } catch (JsonProcessingException | DateTimeParseException | IllegalArgumentException e) {
+                    reject(result, lineNo, "malformed row");
+                    continue;
+                }
+                if (row == null || row.getCards() != null && row.getCards().contains(null)) {
+                    reject(result, lineNo, "malformed row");
+                    continue;
+                }
+                if (row.getCards() == null) {
+                    row.setCards(new ArrayList<>());
+                }
+
+                List<String> violations = validate(row);
+                if (!violations.isEmpty()) {
+                    reject(result, lineNo, String.join("; ", violations));
+                    continue;
+                }
+
+                appendStageRows(buffer, lineNo, row);
+                if (buffer.length() >= COPY_FLUSH_THRESHOLD) {
+                    flush(copyIn, buffer);
+                }
+            }
+            flush(copyIn, buffer);
+            copyIn.endCopy();
+        } catch (IOException e) {
+            cancel(copyIn);
+            log.warn("[UserImportService] importUsers: failed to read input: {}", e.getMessage());
+            throw new BadRequestException("failed to read import stream: " + e.getMessage());
+        } catch (SQLException | RuntimeException e) {
+            cancel(copyIn);
+            throw e;
+        }
+    }
+
+    private void mergeUsers(UserImportResultDto result) {
+        jdbcTemplate.execute(CREATE_IMPORT_USERS_SQL);
+        jdbcTemplate.execute("CREATE INDEX ON user_import_users (email)");
+        jdbcTemplate.execute("ANALYZE user_import_users");
+
+        jdbcTemplate.query(USER_CONFLICTS_SQL, rs -> {
+            result.setUserConflicts(result.getUserConflicts() + 1);
+            String email = rs.getString("email");
+            String message = "exists".equals(rs.getString("reason"))
+                    ? "user with email " + email + " already exists"
+                    : "user with email " + email + " is declared earlier in the file with different details";
+            if (rs.getBoolean("has_cards")) {
+                message += ", its cards were not imported";
+            }
+            addError(result, rs.getLong("line_no"), message);
+        });
+
+        jdbcTemplate.execute(CREATE_CREATED_USERS_SQL);
+        result.setImportedUsers(jdbcTemplate.update(INSERT_USERS_SQL));
+        jdbcTemplate.execute("ANALYZE user_import_created");
+        jdbcTemplate.update(APPEND_USER_EVENTS_SQL);
+    }
+
+    private void mergeCards(UserImportResultDto result) {
+        jdbcTemplate.execute(CREATE_IMPORT_CARDS_SQL);
+        jdbcTemplate.execute("ANALYZE user_import_cards");
+
+        jdbcTemplate.query(CARD_CONFLICTS_SQL, rs -> {
+            result.setCardConflicts(result.getCardConflicts() + 1);
+            String number = rs.getString("card_number");
+            String message = "exists".equals(rs.getString("reason"))
+                    ? "card with number " + number + " already exists"
+                    : "card with number " + number + " is declared earlier in the file";
+            addError(result, rs.getLong("line_no"), message);
+        });
+
+        result.setImportedCards(jdbcTemplate.update(INSERT_CARDS_SQL));
+    }
+
+    private List<String> validate(UserImportDto row) {
+        List<String> violations = new ArrayList<>();
+        for (ConstraintViolation<?> v : validator.validate(userMapper.toCreateDto(row))) {
+            violations.add(v.getPropertyPath() + ": " + v.getMessage());
+        }
+        for (int i = 0; i < row.getCards().size(); i++) {
+            CardImportDto card = row.getCards().get(i);
+            for (ConstraintViolation<?> v : validator.validateValue(CardInfoCreateDto.class, "number", card.getNumber())) {
+                violations.add("cards[" + i + "].number: " + v.getMessage());
+            }
+            for (ConstraintViolation<?> v : validator.validateValue(CardInfoCreateDto.class, "expirationDate", card.getExpirationDate())) {
+                violations.add("cards[" + i + "].expirationDate: " + v.getMessage());
+            }
+        }
+        return violations;
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> columns = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(), i);
+        }
+        for (String required : List.of("name", "surname", "birth_date", "email")) {
+            if (!header.containsKey(required)) {
+                throw new BadRequestException("CSV header must contain column '" + required + "'");
+            }
+        }
+        return header;
+    }
+
+    private UserImportDto parseCsvRow(String line, Map<String, Integer> header) {
+        List<String> values = splitCsv(line);
+        UserImportDto row = new UserImportDto();
+        row.setName(column(values, header, "name"));
+        row.setSurname(column(values, header, "surname"));
+        row.setBirthDate(parseDate(column(values, header, "birth_date")));
+        row.setEmail(column(values, header, "email"));
+
+        String cardNumber = column(values, header, "card_number");
+        if (cardNumber != null) {
+            CardImportDto card = new CardImportDto();
+            card.setNumber(cardNumber);
+            card.setExpirationDate(parseDate(column(values, header, "card_expiration_date")));
+            row.getCards().add(card);
+        }
+        return row;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value == null ? null : LocalDate.parse(value);
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static void appendStageRows(StringBuilder buffer, long lineNo, UserImportDto row) {
+        if (row.getCards().isEmpty()) {
+            appendStageRow(buffer, lineNo, row, null);
+            return;
+        }
+        for (CardImportDto card : row.getCards()) {
+            appendStageRow(buffer, lineNo, row, card);
+        }
+    }
+
+    private static void appendStageRow(StringBuilder buffer, long lineNo, UserImportDto row, CardImportDto card) {
+        buffer.append(lineNo).append(',');
+        appendCsv(buffer, row.getName()).append(',');
+        appendCsv(buffer, row.getSurname()).append(',');
+        buffer.append(row.getBirthDate()).append(',');
+        appendCsv(buffer, row.getEmail()).append(',');
+        if (card != null) {
+            appendCsv(buffer, card.getNumber()).append(',');
+            buffer.append(card.getExpirationDate());
+        } else {
+            buffer.append(',');
+        }
+        buffer.append('\n');
+    }
+
+    private static StringBuilder appendCsv(StringBuilder buffer, String value) {
+        return buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static void cancel(CopyIn copyIn) {
+        try {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } catch (SQLException e) {
+            log.warn("[UserImportService] importUsers: failed to cancel COPY: {}", e.getMessage());
+        }
+    }
+
+    private static void reject(UserImportResultDto result, long lineNo, String message) {
+        result.setRejectedRows(result.getRejectedRows() + 1);
+        addError(result, lineNo, message);
+    }
+
+    private static void addError(UserImportResultDto result, long lineNo, String message) {
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new UserImportErrorDto(lineNo, message));
+        }
+    }
+}
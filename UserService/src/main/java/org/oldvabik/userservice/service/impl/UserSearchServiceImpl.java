@@ -0,0 +1,121 @@
+package org.oldvabik.userservice.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.UserSearchResultDto;
+import org.oldvabik.userservice.dto.UserSummaryDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.repository.UserSearchRepository;
+import org.oldvabik.userservice.service.UserSearchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+@Slf4j
+@Service
+public class UserSearchServiceImpl implements UserSearchService {
+    private static final int MIN_QUERY_LENGTH = 2;
+
+    private static final Comparator<UserSummaryDto> PREFIX_ORDER = Comparator
+            .comparing(UserSummaryDto::getSortKey, UserSearchRepository.SORT_KEY_ORDER)
+            .thenComparing(UserSummaryDto::getId);
+
+    private static final Comparator<UserSummaryDto> FUZZY_ORDER = Comparator
+            .comparing(UserSummaryDto::getScore, Comparator.reverseOrder())
+            .thenComparing(UserSummaryDto::getId);
+
+    private final UserSearchRepository userSearchRepository;
+    private final UserShards userShards;
+
+    @Value("${app.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.search.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${app.search.fuzzy-threshold:0.2}")
+    private float fuzzyThreshold;
+
+    public UserSearchServiceImpl(UserSearchRepository userSearchRepository, UserShards userShards) {
+        this.userSearchRepository = userSearchRepository;
+        this.userShards = userShards;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserSearchResultDto search(String query, Mode mode, Integer limit, String after) {
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            throw new BadRequestException("query must contain at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            throw new BadRequestException("limit must be between 1 and " + maxLimit);
+        }
+
+        String[] cursor = after == null || after.isBlank() ? null : decodeCursor(after, mode);
+        Long afterId = cursor == null ? null : Long.valueOf(cursor[0]);
+        String afterPosition = cursor == null ? null : cursor[1];
+
+        log.debug("[UserSearchService] search: mode={}, query={}, limit={}", mode, normalized, pageSize);
+        List<UserSummaryDto> rows;
+        if (userShards.isSharded()) {
+            rows = userShards.readEachShard(shard -> find(normalized, mode, afterPosition, afterId, pageSize + 1))
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted(mode == Mode.FUZZY ? FUZZY_ORDER : PREFIX_ORDER)
+                    .limit(pageSize + 1)
+                    .toList();
+        } else {
+            rows = find(normalized, mode, afterPosition, afterId, pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            UserSummaryDto last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getId(),
+                    mode == Mode.FUZZY ? Float.toString(last.getScore()) : last.getSortKey());
+        }
+        log.info("[UserSearchService] search: mode={}, found {} users", mode, rows.size());
+        return new UserSearchResultDto(List.copyOf(rows), nextCursor);
+    }
+
+    private List<UserSummaryDto> find(String query, Mode mode, String afterPosition, Long afterId, int limit) {
+        return mode == Mode.FUZZY
+                ? userSearchRepository.searchFuzzy(query, fuzzyThreshold,
+                        afterPosition == null ? null : Float.valueOf(afterPosition), afterId, limit)
+                : userSearchRepository.searchByPrefix(query, afterPosition, afterId, limit);
+    }
+
+    /**
+     * A cursor is the last row's id followed by its position: the score in fuzzy mode, the sort key in
+     * prefix mode. The id goes first because a sort key may itself contain ':'.
+     */
+    private static String encodeCursor(long id, String position) {
+        String raw = id + ":" + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, Mode mode) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            Long.parseLong(parts[0]);
+            if (mode == Mode.FUZZY) {
+                Float.parseFloat(parts[1]);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("invalid cursor");
+        }
+    }
+}
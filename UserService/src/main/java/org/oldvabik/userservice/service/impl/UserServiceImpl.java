@@ -1,50 +1,94 @@
 package org.oldvabik.userservice.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.cache.HotKeyTracker;
+import org.oldvabik.userservice.cache.UserLookup;
+import org.oldvabik.userservice.datasource.UserShards;
 import org.oldvabik.userservice.dto.UserCreateDto;
 import org.oldvabik.userservice.dto.UserDto;
 import org.oldvabik.userservice.dto.UserUpdateDto;
+import org.oldvabik.userservice.entity.CardInfo;
 import org.oldvabik.userservice.entity.User;
 import org.oldvabik.userservice.exception.AlreadyExistsException;
+import org.oldvabik.userservice.exception.BadRequestException;
 import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.exception.PreconditionFailedException;
 import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxWriter;
+import org.oldvabik.userservice.repository.CardRepository;
 import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.repository.projection.UserVersionView;
+import org.oldvabik.userservice.repository.projection.UserView;
 import org.oldvabik.userservice.security.AccessChecker;
 import org.oldvabik.userservice.service.UserService;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
 
 @Slf4j
 @Service
+@Timed(value = "user.service", description = "UserService method latency")
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
     private final UserMapper userMapper;
     private final AccessChecker accessChecker;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserLookup userLookup;
+    private final HotKeyTracker hotKeyTracker;
+    private final CacheInvalidator cacheInvalidator;
+    private final OutboxWriter outboxWriter;
+    private final UserShards userShards;
+
+    @Value("${app.multi-get.max-ids:100}")
+    private int maxIds;
 
     public UserServiceImpl(UserRepository userRepository,
+                           CardRepository cardRepository,
                            UserMapper userMapper,
                            AccessChecker accessChecker,
-                           RedisTemplate<String, Object> redisTemplate) {
+                           UserLookup userLookup,
+                           HotKeyTracker hotKeyTracker,
+                           CacheInvalidator cacheInvalidator,
+                           OutboxWriter outboxWriter,
+                           UserShards userShards) {
         this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
         this.userMapper = userMapper;
         this.accessChecker = accessChecker;
-        this.redisTemplate = redisTemplate;
+        this.userLookup = userLookup;
+        this.hotKeyTracker = hotKeyTracker;
+        this.cacheInvalidator = cacheInvalidator;
+        this.outboxWriter = outboxWriter;
+        this.userShards = userShards;
     }
 
     @Override
     @Transactional
     public UserDto createUser(UserCreateDto dto) {
         log.info("[UserService] createUser: email={}", dto.getEmail());
+        int shard = userShards.shardForNewUser(dto.getEmail());
+        userShards.pin(shard);
+        OptionalInt holder = userShards.reserve(UserShards.emailKey(dto.getEmail()), shard,
+                () -> userRepository.findByEmail(dto.getEmail()).isPresent());
+        if (holder.isPresent()) {
+            log.warn("[UserService] createUser: email={} already exists on shard {}", dto.getEmail(), holder.getAsInt());
+            throw new AlreadyExistsException("user with email " + dto.getEmail() + " already exists");
+        }
         userRepository.findByEmail(dto.getEmail()).ifPresent(u -> {
             log.warn("[UserService] createUser: email={} already exists", dto.getEmail());
             throw new AlreadyExistsException("user with email " + dto.getEmail() + " already exists");
@@ -52,64 +96,129 @@ public class UserServiceImpl implements UserService {
 
         User user = userMapper.toEntity(dto);
         User saved = userRepository.save(user);
+        outboxWriter.userChanged(ChangeEventType.USER_CREATED, saved.getId());
         log.info("[UserService] createUser: user created id={}", saved.getId());
         return userMapper.toDto(saved);
     }
 
     @Override
-    @Cacheable(value = "users", key = "#id + '_' + #auth.name")
-    public UserDto getUserById(Authentication auth, Long id) {
-        log.debug("[UserService] getUserById: id={}", id);
-        User user = userRepository.findByIdWithCards(id)
-                .orElseThrow(() -> {
-                    log.warn("[UserService] getUserById: user not found id={}", id);
-                    return new NotFoundException("user with id " + id + " not found");
-                });
+    public UserDto getUserById(Authentication auth, Long id, boolean withCards) {
+        log.debug("[UserService] getUserById: id={}, withCards={}", id, withCards);
+        UserDto user;
+        if (withCards) {
+            user = userLookup.findById(id);
+            hotKeyTracker.recordUser(id);
+        } else {
+            user = userLookup.findProfileById(id);
+        }
 
-        UserDto dto = userMapper.toDto(user);
-        if (!accessChecker.canAccessUser(auth, dto)) {
+        if (!accessChecker.canAccessUser(auth, user)) {
             log.warn("[UserService] getUserById: access denied for email={}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
 
         log.info("[UserService] getUserById: found id={}", id);
-        return userMapper.toDto(user);
+        return user;
     }
 
     @Override
-    public Page<UserDto> getAllUsers(Integer page, Integer size) {
-        log.debug("[UserService] getAllUsers: page={}, size={}", page, size);
+    public Long getUserVersion(Authentication auth, Long id) {
+        log.debug("[UserService] getUserVersion: id={}", id);
+        UserVersionView version = userLookup.findVersionById(id);
+
+        if (!accessChecker.canAccessOwner(auth, version.email())) {
+            log.warn("[UserService] getUserVersion: access denied for email={}", auth.getName());
+            throw new AccessDeniedException("Access denied");
+        }
+
+        return version.version();
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Authentication auth, List<Long> ids, boolean withCards) {
+        List<Long> distinctIds = distinctIds(ids);
+        log.debug("[UserService] getUsersByIds: {} ids, withCards={}", distinctIds.size(), withCards);
+        Map<Long, UserDto> found = withCards
+                ? userLookup.findAllById(distinctIds)
+                : userLookup.findAllProfilesById(distinctIds);
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        int denied = 0;
+        for (Long id : distinctIds) {
+            UserDto user = found.get(id);
+            if (user == null) {
+                continue;
+            }
+            if (withCards) {
+                hotKeyTracker.recordUser(id);
+            }
+            if (accessChecker.canAccessUser(auth, user)) {
+                users.add(user);
+            } else {
+                denied++;
+            }
+        }
+        if (denied > 0) {
+            log.warn("[UserService] getUsersByIds: access denied to {} users for email={}", denied, auth.getName());
+        }
+
+        log.info("[UserService] getUsersByIds: returned {} of {} users", users.size(), distinctIds.size());
+        return users;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDto> getAllUsers(Integer page, Integer size, boolean withCards) {
+        log.debug("[UserService] getAllUsers: page={}, size={}, withCards={}", page, size, withCards);
+        if (userShards.isSharded()) {
+            return getAllUsersFromShards(PageRequest.of(page, size, Sort.by("id")), withCards);
+        }
         Pageable pageable = PageRequest.of(page, size);
+        if (!withCards) {
+            Page<UserView> profiles = userRepository.findAllProfiles(pageable);
+            log.info("[UserService] getAllUsers: fetched {} users without cards", profiles.getContent().size());
+            return profiles.map(userMapper::fromView);
+        }
         Page<User> users = userRepository.findAllWithCards(pageable);
         log.info("[UserService] getAllUsers: fetched {} users", users.getContent().size());
         return users.map(userMapper::toDto);
     }
 
+    private Page<UserDto> getAllUsersFromShards(Pageable pageable, boolean withCards) {
+        Page<UserDto> users = userShards.readPage(pageable, shardPage -> withCards
+                ? userRepository.findAllWithCards(shardPage).map(userMapper::toDto)
+                : userRepository.findAllProfiles(shardPage).map(userMapper::fromView),
+                Comparator.comparing(UserDto::getId));
+        log.info("[UserService] getAllUsers: fetched {} users from {} shards", users.getContent().size(),
+                userShards.getShardCount());
+        return users;
+    }
+
     @Override
-    @Cacheable(value = "users", key = "#email + '_' + #auth.name")
-    public UserDto getUserByEmail(Authentication auth, String email) {
-        log.debug("[UserService] getUserByEmail: email={}", email);
-        User user = userRepository.findByEmailWithCards(email)
-                .orElseThrow(() -> {
-                    log.warn("[UserService] getUserByEmail: user not found email={}", email);
-                    return new NotFoundException("user with email " + email + " not found");
-                });
+    public UserDto getUserByEmail(Authentication auth, String email, boolean withCards) {
+        log.debug("[UserService] getUserByEmail: email={}, withCards={}", email, withCards);
+        UserDto user;
+        if (withCards) {
+            user = userLookup.findByEmail(email);
+            hotKeyTracker.recordUser(user.getId());
+        } else {
+            user = userLookup.findProfileByEmail(email);
+        }
 
-        UserDto dto = userMapper.toDto(user);
-        if (!accessChecker.canAccessUser(auth, dto)) {
+        if (!accessChecker.canAccessUser(auth, user)) {
             log.warn("[UserService] getUserByEmail: access denied for email={}", auth.getName());
             throw new AccessDeniedException("Access denied");
         }
 
         log.info("[UserService] getUserByEmail: found email={}", email);
-        return userMapper.toDto(user);
+        return user;
     }
 
     @Override
     @Transactional
-    @CachePut(value = "users", key = "#id + '_' + #auth.name")
-    public UserDto updateUser(Authentication auth, Long id, UserUpdateDto dto) {
+    public UserDto updateUser(Authentication auth, Long id, UserUpdateDto dto, Long expectedVersion) {
         log.info("[UserService] updateUser: id={}", id);
+        userShards.pin(userShards.shardOf(id));
         User user = userRepository.findByIdWithCards(id)
                 .orElseThrow(() -> {
                     log.warn("[UserService] updateUser: user not found id={}", id);
@@ -122,23 +231,48 @@ public class UserServiceImpl implements UserService {
             throw new AccessDeniedException("Access denied");
         }
 
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            log.warn("[UserService] updateUser: version mismatch id={}, expected={}, actual={}",
+                    id, expectedVersion, user.getVersion());
+            throw new PreconditionFailedException("user with id " + id + " was modified, current version is "
+                    + user.getVersion());
+        }
+
+        Long previousVersion = user.getVersion();
+        boolean holderChanged = (dto.getName() != null && !dto.getName().equals(user.getName())) ||
+                (dto.getSurname() != null && !dto.getSurname().equals(user.getSurname()));
+
         userMapper.updateEntityFromDto(dto, user);
+        User saved = userRepository.saveAndFlush(user);
+        UserDto result = userMapper.toDto(saved);
 
-        if ((dto.getName() != null && !dto.getName().equals(user.getName())) ||
-                (dto.getSurname() != null && !dto.getSurname().equals(user.getSurname()))) {
-            log.debug("[UserService] updateUser: updating card holders for user id={}", id);
-            user.getCards().forEach(card -> card.setHolder(user.getName() + " " + user.getSurname()));
+        if (holderChanged && !saved.getCards().isEmpty()) {
+            String holder = saved.getName() + " " + saved.getSurname();
+            int updated = cardRepository.updateHolderByUserId(id, holder);
+            log.debug("[UserService] updateUser: updated holder on {} cards for user id={}", updated, id);
+            result.getCards().forEach(card -> {
+                card.setHolder(holder);
+                card.setVersion(card.getVersion() + 1);
+            });
+            List<Long> cardIds = saved.getCards().stream().map(CardInfo::getId).toList();
+            outboxWriter.cardsChanged(ChangeEventType.CARD_UPDATED, id, cardIds);
+            cacheInvalidator.evictCards(cardIds);
         }
 
-        User saved = userRepository.save(user);
+        if (!Objects.equals(previousVersion, saved.getVersion())) {
+            outboxWriter.userChanged(ChangeEventType.USER_UPDATED, id);
+        }
+        cacheInvalidator.evictUser(id, saved.getEmail());
         log.info("[UserService] updateUser: user updated id={}", saved.getId());
-        return userMapper.toDto(saved);
+        return result;
     }
 
     @Override
     @Transactional
     public void deleteUser(Long id) {
         log.info("[UserService] deleteUser: id={}", id);
+        int shard = userShards.shardOf(id);
+        userShards.pin(shard);
         User user = userRepository.findById(id)
                 .orElseThrow(() -> {
                     log.warn("[UserService] deleteUser: user not found id={}", id);
@@ -146,27 +280,26 @@ public class UserServiceImpl implements UserService {
                 });
 
         String email = user.getEmail();
+        List<Long> cardIds = cardRepository.findIdsByUserId(id);
 
         userRepository.delete(user);
+        userRepository.flush();
+        outboxWriter.userChanged(ChangeEventType.USER_DELETED, id);
+        userShards.releaseAfterCommit(UserShards.emailKey(email), shard);
         log.info("[UserService] deleteUser: deleted id={}", id);
 
-        deleteUserCache(id, email);
+        cacheInvalidator.evictUser(id, email);
+        cacheInvalidator.evictCards(cardIds);
     }
 
-    private void deleteUserCache(Long id, String email) {
-        String patternId = id + "_*";
-        String patternEmail = email + "_*";
-
-        Set<String> keysId = redisTemplate.keys("users::" + patternId);
-        if (!keysId.isEmpty()) {
-            redisTemplate.delete(keysId);
-            log.info("[UserService] deleteUserCache: deleted {} keys for id={}", keysId.size(), id);
+    private List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
         }
-
-        Set<String> keysEmail = redisTemplate.keys("users::" + patternEmail);
-        if (!keysEmail.isEmpty()) {
-            redisTemplate.delete(keysEmail);
-            log.info("[UserService] deleteUserCache: deleted {} keys for email={}", keysEmail.size(), email);
+        if (distinctIds.size() > maxIds) {
+            throw new BadRequestException("at most " + maxIds + " ids can be requested at once");
         }
+        return distinctIds;
     }
 }
@@ -0,0 +1,102 @@
+package org.oldvabik.userservice.integration.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.cache.UserLookup;
+import org.oldvabik.userservice.datasource.DataSourceRouting;
+import org.oldvabik.userservice.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The replica is the same database seen through another schema, so a row's content tells which
+ * side served the read.
+ */
+@Testcontainers
+@SpringBootTest(properties = {
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.health-check-interval=3600000"
+})
+@ActiveProfiles("test")
+class UserLookupReplicaRoutingTest {
+    private static final String REPLICA_SCHEMA = "replica";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.datasource.routing.replica-urls", () -> {
+            String url = postgres.getJdbcUrl();
+            return url + (url.contains("?") ? "&" : "?") + "currentSchema=" + REPLICA_SCHEMA;
+        });
+    }
+
+    @Autowired
+    private UserLookup userLookup;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + REPLICA_SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica.users (LIKE public.users INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica.card_info (LIKE public.card_info INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("TRUNCATE replica.users, replica.card_info");
+        jdbcTemplate.execute("TRUNCATE public.users CASCADE");
+
+        userId = jdbcTemplate.queryForObject("INSERT INTO public.users (name, surname, birth_date, email, version) " +
+                "VALUES ('Primary', 'Doe', DATE '1990-01-01', 'routing@example.com', 0) RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO replica.users (id, name, surname, birth_date, email, version) " +
+                "VALUES (?, 'Replica', 'Doe', DATE '1990-01-01', 'routing@example.com', 0)", userId);
+
+        replicaRoutingDataSource.setReplicaHealthy("replica-1", true);
+    }
+
+    @Test
+    void findById_cacheMiss_readsFromReplica() {
+        assertEquals("Replica", userLookup.findById(userId).getName());
+    }
+
+    @Test
+    void findById_primaryForced_readsFromPrimary() throws Exception {
+        assertEquals("Primary", DataSourceRouting.onPrimary(() -> userLookup.findById(userId)).getName());
+    }
+
+    @Test
+    void findById_insideWriteTransaction_readsFromPrimary() {
+        assertEquals("Primary", transactionTemplate.execute(status -> userLookup.findById(userId)).getName());
+    }
+
+    @Test
+    void findById_replicaOutOfRotation_readsFromPrimary() {
+        replicaRoutingDataSource.setReplicaHealthy("replica-1", false);
+
+        assertEquals("Primary", userLookup.findById(userId).getName());
+    }
+}
@@ -0,0 +1,117 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.dto.CardExpirationBucketDto;
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
+import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.service.CardAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class CardAnalyticsServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private CardAnalyticsService cardAnalyticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private User user(String email, LocalDate birthDate) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName("Test");
+        user.setSurname("User");
+        user.setBirthDate(birthDate);
+        return userRepository.save(user);
+    }
+
+    private CardInfo card(User user, String number, LocalDate expirationDate) {
+        CardInfo card = new CardInfo();
+        card.setUser(user);
+        card.setNumber(number);
+        card.setHolder("Test User");
+        card.setExpirationDate(expirationDate);
+        return cardRepository.save(card);
+    }
+
+    private List<CardExpirationBucketDto> buckets() {
+        return cardAnalyticsService.getExpirationStats(null, null).getBuckets();
+    }
+
+    @Test
+    void getExpirationStats_tracksCardChanges() {
+        User eighties = user("eighties@example.com", LocalDate.of(1985, 3, 1));
+        User nineties = user("nineties@example.com", LocalDate.of(1993, 7, 1));
+        card(eighties, "3333000033330001", LocalDate.of(2030, 1, 10));
+        CardInfo moved = card(eighties, "3333000033330002", LocalDate.of(2030, 1, 20));
+        card(nineties, "3333000033330003", LocalDate.of(2030, 1, 5));
+
+        assertEquals(List.of(
+                new CardExpirationBucketDto(YearMonth.of(2030, 1), 1980, 2),
+                new CardExpirationBucketDto(YearMonth.of(2030, 1), 1990, 1)), buckets());
+
+        moved.setExpirationDate(LocalDate.of(2031, 2, 1));
+        cardRepository.save(moved);
+        cardRepository.deleteById(cardRepository.findByNumber("3333000033330003").orElseThrow().getId());
+
+        assertEquals(List.of(
+                new CardExpirationBucketDto(YearMonth.of(2030, 1), 1980, 1),
+                new CardExpirationBucketDto(YearMonth.of(2031, 2), 1980, 1)), buckets());
+
+        CardExpirationStatsDto ranged = cardAnalyticsService.getExpirationStats(YearMonth.of(2031, 1), null);
+        assertEquals(1, ranged.getTotalCards());
+    }
+
+    @Test
+    void getExpirationStats_followsOwnerChanges() {
+        User owner = user("owner@example.com", LocalDate.of(1979, 12, 31));
+        card(owner, "4444000044440001", LocalDate.of(2032, 5, 1));
+
+        owner.setBirthDate(LocalDate.of(1980, 1, 1));
+        userRepository.save(owner);
+        assertEquals(List.of(new CardExpirationBucketDto(YearMonth.of(2032, 5), 1980, 1)), buckets());
+
+        userRepository.deleteById(owner.getId());
+        assertEquals(0, cardAnalyticsService.getExpirationStats(null, null).getTotalCards());
+    }
+}
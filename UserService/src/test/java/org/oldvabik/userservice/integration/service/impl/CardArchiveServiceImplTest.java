@@ -0,0 +1,110 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.entity.CardInfo;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.service.CardArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest(properties = "app.cards.archive.batch-size=2")
+@ActiveProfiles("test")
+class CardArchiveServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private CardArchiveService cardArchiveService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM card_info_archive");
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName("Test");
+        user.setSurname("User");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        return userRepository.save(user);
+    }
+
+    private void card(User user, String number, LocalDate expirationDate) {
+        CardInfo card = new CardInfo();
+        card.setUser(user);
+        card.setNumber(number);
+        card.setHolder("Test User");
+        card.setExpirationDate(expirationDate);
+        cardRepository.save(card);
+    }
+
+    @Test
+    void archiveExpiredCards_movesOnlyExpiredCardsInBatches() {
+        User first = user("first@example.com");
+        User second = user("second@example.com");
+        LocalDate past = LocalDate.now().minusDays(1);
+        card(first, "1111000011110001", past);
+        card(first, "1111000011110002", past);
+        card(second, "1111000011110003", past);
+        card(second, "1111000011110004", LocalDate.now().plusYears(2));
+
+        int archived = cardArchiveService.archiveExpiredCards();
+
+        assertEquals(3, archived);
+        List<String> live = cardRepository.findAll().stream().map(CardInfo::getNumber).toList();
+        assertEquals(List.of("1111000011110004"), live);
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM card_info_archive", Integer.class));
+        assertEquals(0, cardArchiveService.archiveExpiredCards());
+    }
+
+    @Test
+    void archiveExpiredCards_freesCardNumberForReuse() {
+        User owner = user("owner@example.com");
+        card(owner, "2222000022220001", LocalDate.now().minusMonths(1));
+
+        cardArchiveService.archiveExpiredCards();
+        card(owner, "2222000022220001", LocalDate.now().plusYears(3));
+
+        assertTrue(cardRepository.findByNumber("2222000022220001").isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM card_info_archive WHERE number = '2222000022220001'", Integer.class));
+    }
+}
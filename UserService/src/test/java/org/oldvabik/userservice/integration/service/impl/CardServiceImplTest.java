@@ -4,12 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.oldvabik.userservice.dto.*;
 import org.oldvabik.userservice.exception.AlreadyExistsException;
 import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.exception.PreconditionFailedException;
 import org.oldvabik.userservice.repository.CardRepository;
 import org.oldvabik.userservice.service.CardService;
 import org.oldvabik.userservice.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +20,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -50,6 +53,9 @@ class CardServiceImplTest {
     @Autowired
     private CardRepository cardRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private final Authentication auth = mock(Authentication.class);
 
     {
@@ -131,13 +137,35 @@ class CardServiceImplTest {
     void updateCard_success() {
         UserDto user = createTestUser();
         CardInfoDto created = cardService.createCard(auth, cardCreateDto(user.getId(), "oldnum"));
-        CardInfoDto updated = cardService.updateCard(auth, created.getId(), cardUpdateDto("newnum"));
+        CardInfoDto updated = cardService.updateCard(auth, created.getId(), cardUpdateDto("newnum"), null);
         assertEquals("newnum", updated.getNumber());
     }
 
+    @Test
+    void cardChanges_bumpOwnerVersion() {
+        UserDto user = createTestUser();
+        CardInfoDto created = cardService.createCard(auth, cardCreateDto(user.getId(), "versioned"));
+        assertEquals(user.getVersion() + 1, userService.getUserVersion(auth, user.getId()));
+
+        CardInfoDto updated = cardService.updateCard(auth, created.getId(), cardUpdateDto("versioned2"), created.getVersion());
+        assertEquals(created.getVersion() + 1, updated.getVersion());
+        assertEquals(user.getVersion() + 2, userService.getUserVersion(auth, user.getId()));
+
+        cardService.deleteCard(auth, created.getId());
+        assertEquals(user.getVersion() + 3, userService.getUserVersion(auth, user.getId()));
+    }
+
+    @Test
+    void updateCard_staleVersion_throwsPreconditionFailed() {
+        UserDto user = createTestUser();
+        CardInfoDto created = cardService.createCard(auth, cardCreateDto(user.getId(), "stalecard"));
+        assertThrows(PreconditionFailedException.class,
+                () -> cardService.updateCard(auth, created.getId(), cardUpdateDto("other"), created.getVersion() + 1));
+    }
+
     @Test
     void updateCard_notFound() {
-        assertThrows(NotFoundException.class, () -> cardService.updateCard(auth, 999L, cardUpdateDto("any")));
+        assertThrows(NotFoundException.class, () -> cardService.updateCard(auth, 999L, cardUpdateDto("any"), null));
     }
 
     @Test
@@ -146,7 +174,7 @@ class CardServiceImplTest {
         cardService.createCard(auth, cardCreateDto(user.getId(), "existing"));
         CardInfoDto toUpdate = cardService.createCard(auth, cardCreateDto(user.getId(), "toupdate"));
         CardInfoUpdateDto dto = cardUpdateDto("existing");
-        assertThrows(AlreadyExistsException.class, () -> cardService.updateCard(auth, toUpdate.getId(), dto));
+        assertThrows(AlreadyExistsException.class, () -> cardService.updateCard(auth, toUpdate.getId(), dto, null));
     }
 
     @Test
@@ -157,6 +185,33 @@ class CardServiceImplTest {
         assertFalse(cardRepository.findById(created.getId()).isPresent());
     }
 
+    @Test
+    void cardsOfUser_touchOnePartition() {
+        UserDto user = createTestUser();
+        cardService.createCard(auth, cardCreateDto(user.getId(), "partitioned"));
+
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM card_info WHERE user_id = " + user.getId(), String.class);
+
+        assertEquals(1, plan.stream().filter(line -> line.contains("card_info_p")).count(), String.join("\n", plan));
+    }
+
+    @Test
+    void cardNumbers_followCardsInLookupTable() {
+        UserDto user = createTestUser();
+        CardInfoDto created = cardService.createCard(auth, cardCreateDto(user.getId(), "lookup1"));
+        cardService.updateCard(auth, created.getId(), cardUpdateDto("lookup2"), null);
+        cardRepository.flush();
+
+        assertEquals(List.of("lookup2"), jdbcTemplate.queryForList(
+                "SELECT number FROM card_number WHERE card_id = ?", String.class, created.getId()));
+        assertEquals(created.getId(), cardRepository.findByNumber("lookup2").orElseThrow().getId());
+
+        cardService.deleteCard(auth, created.getId());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM card_number WHERE card_id = ?", Integer.class, created.getId()));
+    }
+
     @Test
     void deleteCard_notFound() {
         assertThrows(NotFoundException.class, () -> cardService.deleteCard(auth, 999L));
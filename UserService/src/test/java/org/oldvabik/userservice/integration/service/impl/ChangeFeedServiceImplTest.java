@@ -0,0 +1,159 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.dto.*;
+import org.oldvabik.userservice.exception.GoneException;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.InMemoryChangeEventSink;
+import org.oldvabik.userservice.outbox.OutboxRelay;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.service.CardService;
+import org.oldvabik.userservice.service.ChangeFeedService;
+import org.oldvabik.userservice.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeFeedServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private InMemoryChangeEventSink sink;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Authentication auth = mock(Authentication.class);
+
+    {
+        when(auth.getName()).thenReturn("feed@example.com");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        sink.clear();
+    }
+
+    private UserDto createUser() {
+        UserCreateDto dto = new UserCreateDto();
+        dto.setEmail("feed@example.com");
+        dto.setName("Feed");
+        dto.setSurname("User");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        return userService.createUser(dto);
+    }
+
+    private CardInfoDto createCard(Long userId) {
+        CardInfoCreateDto dto = new CardInfoCreateDto();
+        dto.setUserId(userId);
+        dto.setNumber("4000000000000001");
+        dto.setExpirationDate(LocalDate.now().plusYears(3));
+        return cardService.createCard(auth, dto);
+    }
+
+    @Test
+    void writes_arePublishedInOrderAndPagedBySequence() {
+        UserDto user = createUser();
+        CardInfoDto card = createCard(user.getId());
+        UserUpdateDto update = new UserUpdateDto();
+        update.setName("Renamed");
+        userService.updateUser(auth, user.getId(), update, null);
+        cardService.deleteCard(auth, card.getId());
+
+        assertTrue(changeFeedService.getChanges(null, 0L, null).getEvents().isEmpty());
+        assertEquals(5, outboxRelay.relay());
+
+        List<ChangeEventType> expected = List.of(ChangeEventType.USER_CREATED, ChangeEventType.CARD_CREATED,
+                ChangeEventType.CARD_UPDATED, ChangeEventType.USER_UPDATED, ChangeEventType.CARD_DELETED);
+        assertEquals(expected, sink.getEvents().stream().map(ChangeEventDto::getType).toList());
+
+        ChangeFeedDto first = changeFeedService.getChanges(null, 0L, 3);
+        assertEquals(List.of(1L, 2L, 3L), first.getEvents().stream().map(ChangeEventDto::getSeq).toList());
+        assertTrue(first.isHasMore());
+
+        ChangeFeedDto second = changeFeedService.getChanges(null, first.getNext(), 3);
+        assertEquals(List.of(4L, 5L), second.getEvents().stream().map(ChangeEventDto::getSeq).toList());
+        assertEquals(card.getId(), second.getEvents().get(1).getCardId());
+        assertFalse(second.isHasMore());
+        assertEquals(0, outboxRelay.relay());
+    }
+
+    @Test
+    void rolledBackWrite_leavesNoEvent() {
+        UserDto user = createUser();
+        UserCreateDto duplicate = new UserCreateDto();
+        duplicate.setEmail(user.getEmail());
+        duplicate.setName("Other");
+        duplicate.setSurname("User");
+        duplicate.setBirthDate(LocalDate.of(1991, 1, 1));
+        assertThrows(RuntimeException.class, () -> userService.createUser(duplicate));
+
+        assertEquals(1, outboxRelay.relay());
+        assertEquals(ChangeEventType.USER_CREATED, sink.getEvents().get(0).getType());
+    }
+
+    @Test
+    void purgedEvents_cursorBehindRetention_isGone() {
+        UserDto user = createUser();
+        userService.deleteUser(user.getId());
+        createUser();
+        outboxRelay.relay();
+        jdbcTemplate.update("UPDATE outbox_event SET published_at = published_at - interval '30 days'");
+
+        assertEquals(2, outboxRelay.purge());
+        assertThrows(GoneException.class, () -> changeFeedService.getChanges(null, 0L, null));
+        assertEquals(List.of(3L), changeFeedService.getChanges(null, 2L, null).getEvents().stream()
+                .map(ChangeEventDto::getSeq).toList());
+    }
+}
@@ -0,0 +1,172 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.datasource.ShardRoutingDataSource;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.*;
+import org.oldvabik.userservice.exception.AlreadyExistsException;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.security.AccessChecker;
+import org.oldvabik.userservice.service.CardService;
+import org.oldvabik.userservice.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class ShardedUserServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> shard0 = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @Container
+    static PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", shard0::getJdbcUrl);
+        registry.add("spring.datasource.username", shard0::getUsername);
+        registry.add("spring.datasource.password", shard0::getPassword);
+        registry.add("app.sharding.enabled", () -> "true");
+        registry.add("app.sharding.shard-urls", () -> shard0.getJdbcUrl() + "," + shard1.getJdbcUrl());
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserShards userShards;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @MockBean
+    private AccessChecker accessChecker;
+
+    private final Authentication auth = mock(Authentication.class);
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < 2; shard++) {
+            JdbcTemplate jdbcTemplate = shardJdbc(shard);
+            jdbcTemplate.update("DELETE FROM outbox_event");
+            jdbcTemplate.update("DELETE FROM users");
+        }
+        shardJdbc(0).update("DELETE FROM shard_directory");
+        when(auth.getName()).thenReturn("admin@example.com");
+        when(accessChecker.canAccessUser(any(Authentication.class), any())).thenReturn(true);
+        when(accessChecker.canAccessOwner(any(Authentication.class), any())).thenReturn(true);
+    }
+
+    private JdbcTemplate shardJdbc(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShards().get(shard));
+    }
+
+    private UserDto createUser(String email) {
+        UserCreateDto dto = new UserCreateDto();
+        dto.setEmail(email);
+        dto.setName("Shard");
+        dto.setSurname("User");
+        dto.setBirthDate(LocalDate.of(1990, 1, 1));
+        return userService.createUser(dto);
+    }
+
+    private CardInfoDto createCard(Long userId, String number) {
+        CardInfoCreateDto dto = new CardInfoCreateDto();
+        dto.setUserId(userId);
+        dto.setNumber(number);
+        dto.setExpirationDate(LocalDate.now().plusYears(3));
+        return cardService.createCard(auth, dto);
+    }
+
+    private List<UserDto> createUsersOnBothShards() {
+        List<UserDto> users = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            users.add(createUser("user" + i + "@example.com"));
+        }
+        assertEquals(2, users.stream().map(user -> userShards.shardOf(user.getId())).distinct().count());
+        return users;
+    }
+
+    @Test
+    void usersAndTheirCards_liveOnTheShardOfTheUserId() {
+        for (UserDto user : createUsersOnBothShards()) {
+            CardInfoDto card = createCard(user.getId(), "40000000000000" + user.getId());
+            int shard = userShards.shardOf(user.getId());
+
+            assertEquals(shard, userShards.shardOf(card.getId()));
+            assertEquals(1, shardJdbc(shard).queryForObject(
+                    "SELECT count(*) FROM card_info c JOIN users u ON u.id = c.user_id WHERE c.id = ? AND u.email = ?",
+                    Integer.class, card.getId(), user.getEmail()));
+            assertEquals(0, shardJdbc(1 - shard).queryForObject(
+                    "SELECT count(*) FROM users WHERE id = ?", Integer.class, user.getId()));
+            assertEquals(card.getId(), userService.getUserByEmail(auth, user.getEmail(), true)
+                    .getCards().get(0).getId());
+        }
+    }
+
+    @Test
+    void getAllUsers_mergesShardsInIdOrder() {
+        List<UserDto> users = createUsersOnBothShards();
+        List<Long> ids = users.stream().map(UserDto::getId).sorted().toList();
+
+        Page<UserDto> first = userService.getAllUsers(0, 4, false);
+        Page<UserDto> second = userService.getAllUsers(1, 4, false);
+
+        assertEquals(6, first.getTotalElements());
+        assertEquals(ids.subList(0, 4), first.getContent().stream().map(UserDto::getId).toList());
+        assertEquals(ids.subList(4, 6), second.getContent().stream().map(UserDto::getId).toList());
+        assertEquals(users.size(), userService.getUsersByIds(auth, ids, true).size());
+    }
+
+    @Test
+    void cardNumbers_areUniqueAcrossShards() {
+        List<UserDto> users = createUsersOnBothShards();
+        UserDto onShard0 = users.stream().filter(user -> userShards.shardOf(user.getId()) == 0).findFirst().orElseThrow();
+        UserDto onShard1 = users.stream().filter(user -> userShards.shardOf(user.getId()) == 1).findFirst().orElseThrow();
+
+        createCard(onShard0.getId(), "4000000000000001");
+
+        assertThrows(AlreadyExistsException.class, () -> createCard(onShard1.getId(), "4000000000000001"));
+        assertEquals(0, shardJdbc(1).queryForObject("SELECT count(*) FROM card_info", Integer.class));
+    }
+
+    @Test
+    void deleteUser_releasesEmail() {
+        UserDto user = createUser("gone@example.com");
+        assertThrows(AlreadyExistsException.class, () -> createUser("gone@example.com"));
+
+        userService.deleteUser(user.getId());
+
+        assertThrows(NotFoundException.class, () -> userService.getUserByEmail(auth, "gone@example.com", false));
+        assertEquals(0, shardJdbc(0).queryForObject("SELECT count(*) FROM shard_directory", Integer.class));
+        assertNotEquals(user.getId(), createUser("gone@example.com").getId());
+    }
+}
@@ -0,0 +1,190 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.dto.UserImportErrorDto;
+import org.oldvabik.userservice.dto.UserImportResultDto;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.service.UserImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class UserImportServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importUsers_csv_importsUsersAndCards() {
+        String csv = """
+                name,surname,birth_date,email,card_number,card_expiration_date
+                John,Doe,1990-01-01,john@example.com,1111222233334444,2035-01-01
+                John,Doe,1990-01-01,john@example.com,5555666677778888,2036-01-01
+                Jane,Roe,1992-02-02,jane@example.com,,
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(3, result.getReceivedRows());
+        assertEquals(0, result.getRejectedRows());
+        assertEquals(2, result.getImportedUsers());
+        assertEquals(2, result.getImportedCards());
+        assertEquals("John Doe", cardRepository.findByNumber("1111222233334444").orElseThrow().getHolder());
+    }
+
+    @Test
+    void importUsers_ndjson_rejectsInvalidRows() {
+        String ndjson = """
+                {"name":"John","surname":"Doe","birthDate":"1990-01-01","email":"john@example.com","cards":[{"number":"1111222233334444","expirationDate":"2035-01-01"}]}
+                {"name":"Jo","surname":"Doe","birthDate":"1990-01-01","email":"not-an-email"}
+                not json
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(3, result.getReceivedRows());
+        assertEquals(2, result.getRejectedRows());
+        assertEquals(1, result.getImportedUsers());
+        assertEquals(1, result.getImportedCards());
+        assertEquals(2, result.getErrors().size());
+    }
+
+    @Test
+    void importUsers_reportsConflicts() {
+        User existing = new User();
+        existing.setEmail("exists@example.com");
+        existing.setName("Exists");
+        existing.setSurname("User");
+        existing.setBirthDate(LocalDate.of(1990, 1, 1));
+        userRepository.save(existing);
+
+        String csv = """
+                name,surname,birth_date,email,card_number,card_expiration_date
+                Exists,User,1990-01-01,exists@example.com,,
+                New,User,1990-01-01,new@example.com,1111222233334444,2035-01-01
+                Other,User,1990-01-01,other@example.com,1111222233334444,2035-01-01
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(1, result.getUserConflicts());
+        assertEquals(1, result.getCardConflicts());
+        assertEquals(2, result.getImportedUsers());
+        assertEquals(1, result.getImportedCards());
+    }
+
+    @Test
+    void importUsers_conflictingRedeclaration_skipsItsCards() {
+        String csv = """
+                name,surname,birth_date,email,card_number,card_expiration_date
+                John,Doe,1990-01-01,john@example.com,1111222233334444,2035-01-01
+                Johnny,Doe,1991-01-01,john@example.com,5555666677778888,2036-01-01
+                John,Doe,1990-01-01,john@example.com,9999000011112222,2037-01-01
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(1, result.getImportedUsers());
+        assertEquals(2, result.getImportedCards());
+        assertEquals(1, result.getUserConflicts());
+        assertEquals(0, result.getCardConflicts());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().endsWith("its cards were not imported"));
+        assertTrue(cardRepository.findByNumber("5555666677778888").isEmpty());
+        assertTrue(cardRepository.findByNumber("9999000011112222").isPresent());
+    }
+
+    @Test
+    void importUsers_ndjson_rejectsNullRowsAndCards() {
+        String ndjson = """
+                null
+                {"name":"John","surname":"Doe","birthDate":"1990-01-01","email":"john@example.com","cards":[null]}
+                {"name":"Jane","surname":"Roe","birthDate":"1992-02-02","email":"jane@example.com"}
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(3, result.getReceivedRows());
+        assertEquals(2, result.getRejectedRows());
+        assertEquals(1, result.getImportedUsers());
+        assertEquals(List.of(1L, 2L), result.getErrors().stream().map(UserImportErrorDto::getLine).toList());
+        assertTrue(result.getErrors().stream().allMatch(error -> "malformed row".equals(error.getMessage())));
+    }
+
+    @Test
+    void importUsers_existingEmail_reportsEveryLineAndSkipsItsCards() {
+        User existing = new User();
+        existing.setEmail("exists@example.com");
+        existing.setName("Exists");
+        existing.setSurname("User");
+        existing.setBirthDate(LocalDate.of(1990, 1, 1));
+        userRepository.save(existing);
+
+        String csv = """
+                name,surname,birth_date,email,card_number,card_expiration_date
+                Exists,User,1990-01-01,exists@example.com,1111222233334444,2035-01-01
+                Exists,User,1990-01-01,exists@example.com,5555666677778888,2036-01-01
+                Other,User,1991-01-01,exists@example.com,,
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(0, result.getImportedUsers());
+        assertEquals(0, result.getImportedCards());
+        assertEquals(3, result.getUserConflicts());
+        assertEquals(0, result.getCardConflicts());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(UserImportErrorDto::getLine).toList());
+        assertTrue(result.getErrors().get(0).getMessage().endsWith("its cards were not imported"));
+        assertTrue(result.getErrors().get(1).getMessage().endsWith("its cards were not imported"));
+        assertTrue(result.getErrors().get(2).getMessage().endsWith("already exists"));
+        assertTrue(cardRepository.findByNumber("1111222233334444").isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package org.oldvabik.userservice.integration.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.dto.UserSearchResultDto;
+import org.oldvabik.userservice.dto.UserSummaryDto;
+import org.oldvabik.userservice.entity.User;
+import org.oldvabik.userservice.repository.CardRepository;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.service.UserSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSearchServiceImplTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("marketplace")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        save("Johnathan", "Smith");
+        save("John", "Doe");
+        save("Joanna", "Johnson");
+        save("Peter", "Parker");
+    }
+
+    private void save(String name, String surname) {
+        User user = new User();
+        user.setName(name);
+        user.setSurname(surname);
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail(name.toLowerCase() + "." + surname.toLowerCase() + "@example.com");
+        userRepository.save(user);
+    }
+
+    private static List<String> names(UserSearchResultDto result) {
+        return result.getItems().stream().map(UserSummaryDto::getName).toList();
+    }
+
+    @Test
+    void search_prefix_matchesNameOrSurname() {
+        UserSearchResultDto result = userSearchService.search("john", UserSearchService.Mode.PREFIX, 10, null);
+
+        assertEquals(3, result.getItems().size());
+        assertEquals("John", names(result).get(0));
+        assertFalse(names(result).contains("Peter"));
+    }
+
+    @Test
+    void search_prefix_ordersByMatchedNameAcrossPages() {
+        save("Mark", "Johns");
+
+        UserSearchResultDto first = userSearchService.search("jo", UserSearchService.Mode.PREFIX, 2, null);
+        UserSearchResultDto second = userSearchService.search("jo", UserSearchService.Mode.PREFIX, 2, first.getNextCursor());
+
+        assertEquals(List.of("Joanna", "John"), names(first));
+        assertEquals(List.of("Johnathan", "Mark"), names(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void search_fuzzy_toleratesTypos() {
+        UserSearchResultDto result = userSearchService.search("jhon do", UserSearchService.Mode.FUZZY, 10, null);
+
+        assertFalse(result.getItems().isEmpty());
+        assertEquals("John", names(result).get(0));
+    }
+
+    @Test
+    void search_pagesWithCursorWithoutDuplicates() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserSearchResultDto page = userSearchService.search("jo", UserSearchService.Mode.PREFIX, 1, cursor);
+            seen.addAll(names(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(3, seen.size());
+        assertEquals(3, seen.stream().distinct().count());
+    }
+}
@@ -2,9 +2,12 @@ package org.oldvabik.userservice.integration.service.impl;
 
 import org.junit.jupiter.api.*;
 import org.oldvabik.userservice.dto.*;
+import org.oldvabik.userservice.entity.CardInfo;
 import org.oldvabik.userservice.entity.User;
 import org.oldvabik.userservice.exception.AlreadyExistsException;
 import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.exception.PreconditionFailedException;
+import org.oldvabik.userservice.repository.CardRepository;
 import org.oldvabik.userservice.repository.UserRepository;
 import org.oldvabik.userservice.security.AccessChecker;
 import org.oldvabik.userservice.service.UserService;
@@ -20,6 +23,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -48,6 +52,9 @@ class UserServiceImplTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardRepository cardRepository;
+
     @MockBean
     private AccessChecker accessChecker;
 
@@ -59,6 +66,7 @@ class UserServiceImplTest {
         auth = mock(Authentication.class);
         when(auth.getName()).thenReturn("test@example.com");
         when(accessChecker.canAccessUser(any(Authentication.class), any())).thenReturn(true);
+        when(accessChecker.canAccessOwner(any(Authentication.class), any())).thenReturn(true);
     }
 
     @Test
@@ -102,14 +110,14 @@ class UserServiceImplTest {
         user.setBirthDate(LocalDate.of(1990, 1, 1));
         User saved = userRepository.save(user);
 
-        UserDto dto = userService.getUserById(auth, saved.getId());
+        UserDto dto = userService.getUserById(auth, saved.getId(), true);
 
         assertEquals("get@example.com", dto.getEmail());
     }
 
     @Test
     void getUserById_notFound() {
-        assertThrows(NotFoundException.class, () -> userService.getUserById(auth, 999L));
+        assertThrows(NotFoundException.class, () -> userService.getUserById(auth, 999L, true));
     }
 
     @Test
@@ -128,11 +136,27 @@ class UserServiceImplTest {
         user2.setBirthDate(LocalDate.of(1991, 2, 2));
         userRepository.save(user2);
 
-        Page<UserDto> page = userService.getAllUsers(0, 10);
+        Page<UserDto> page = userService.getAllUsers(0, 10, true);
 
         assertEquals(2, page.getContent().size());
     }
 
+    @Test
+    void getAllUsers_withoutCards_returnsProfiles() {
+        User user = new User();
+        user.setName("A");
+        user.setSurname("B");
+        user.setEmail("a@b.com");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        userRepository.save(user);
+
+        Page<UserDto> page = userService.getAllUsers(0, 10, false);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("a@b.com", page.getContent().get(0).getEmail());
+        assertNull(page.getContent().get(0).getCards());
+    }
+
     @Test
     void getUserByEmail_found() {
         User user = new User();
@@ -142,14 +166,14 @@ class UserServiceImplTest {
         user.setBirthDate(LocalDate.of(1990, 1, 1));
         userRepository.save(user);
 
-        UserDto dto = userService.getUserByEmail(auth, "email@test.com");
+        UserDto dto = userService.getUserByEmail(auth, "email@test.com", true);
 
         assertEquals("email@test.com", dto.getEmail());
     }
 
     @Test
     void getUserByEmail_notFound() {
-        assertThrows(NotFoundException.class, () -> userService.getUserByEmail(auth, "notfound@test.com"));
+        assertThrows(NotFoundException.class, () -> userService.getUserByEmail(auth, "notfound@test.com", true));
     }
 
     @Test
@@ -166,13 +190,107 @@ class UserServiceImplTest {
         dto.setSurname("NameUpdated");
         dto.setBirthDate(LocalDate.of(1991, 2, 2));
 
-        UserDto updated = userService.updateUser(auth, saved.getId(), dto);
+        UserDto updated = userService.updateUser(auth, saved.getId(), dto, null);
 
         assertEquals("New", updated.getName());
         assertEquals("NameUpdated", updated.getSurname());
         assertEquals(LocalDate.of(1991, 2, 2), updated.getBirthDate());
     }
 
+    @Test
+    void updateUser_matchingVersion_bumpsVersion() {
+        User user = new User();
+        user.setEmail("version@test.com");
+        user.setName("Old");
+        user.setSurname("Name");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        User saved = userRepository.save(user);
+
+        UserUpdateDto dto = new UserUpdateDto();
+        dto.setName("New");
+
+        UserDto updated = userService.updateUser(auth, saved.getId(), dto, saved.getVersion());
+
+        assertEquals(saved.getVersion() + 1, updated.getVersion());
+        assertEquals(updated.getVersion(), userService.getUserVersion(auth, saved.getId()));
+    }
+
+    @Test
+    void updateUser_staleVersion_throwsPreconditionFailed() {
+        User user = new User();
+        user.setEmail("stale@test.com");
+        user.setName("Old");
+        user.setSurname("Name");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        User saved = userRepository.save(user);
+
+        UserUpdateDto dto = new UserUpdateDto();
+        dto.setName("New");
+        userService.updateUser(auth, saved.getId(), dto, null);
+
+        UserUpdateDto stale = new UserUpdateDto();
+        stale.setName("Lost");
+        assertThrows(PreconditionFailedException.class,
+                () -> userService.updateUser(auth, saved.getId(), stale, saved.getVersion()));
+        assertEquals("New", userRepository.findById(saved.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void getUsersByIds_loadsUsersWithCardsInRequestOrder() {
+        User first = new User();
+        first.setEmail("batch1@test.com");
+        first.setName("First");
+        first.setSurname("User");
+        first.setBirthDate(LocalDate.of(1990, 1, 1));
+        User savedFirst = userRepository.save(first);
+
+        User second = new User();
+        second.setEmail("batch2@test.com");
+        second.setName("Second");
+        second.setSurname("User");
+        second.setBirthDate(LocalDate.of(1991, 1, 1));
+        User savedSecond = userRepository.save(second);
+
+        CardInfo card = new CardInfo();
+        card.setUser(savedFirst);
+        card.setNumber("5555666677778888");
+        card.setHolder("First User");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        cardRepository.save(card);
+
+        List<UserDto> users = userService.getUsersByIds(auth,
+                List.of(savedSecond.getId(), savedFirst.getId(), savedSecond.getId() + 1000), true);
+
+        assertEquals(List.of(savedSecond.getId(), savedFirst.getId()), users.stream().map(UserDto::getId).toList());
+        assertTrue(users.get(0).getCards().isEmpty());
+        assertEquals("5555666677778888", users.get(1).getCards().get(0).getNumber());
+    }
+
+    @Test
+    void updateUser_nameChanged_updatesCardHolders() {
+        User user = new User();
+        user.setEmail("holder@test.com");
+        user.setName("Old");
+        user.setSurname("Name");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        User saved = userRepository.save(user);
+
+        CardInfo card = new CardInfo();
+        card.setUser(saved);
+        card.setNumber("1111222233334444");
+        card.setHolder("Old Name");
+        card.setExpirationDate(LocalDate.now().plusYears(3));
+        CardInfo savedCard = cardRepository.save(card);
+
+        UserUpdateDto dto = new UserUpdateDto();
+        dto.setName("New");
+
+        UserDto updated = userService.updateUser(auth, saved.getId(), dto, null);
+
+        assertEquals("New Name", updated.getCards().get(0).getHolder());
+        assertEquals("New Name", cardRepository.findById(savedCard.getId()).orElseThrow().getHolder());
+    }
+
     @Test
     void deleteUser_success() {
         User user = new User();
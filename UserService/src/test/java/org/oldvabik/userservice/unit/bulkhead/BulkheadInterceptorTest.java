@@ -0,0 +1,79 @@
+package org.oldvabik.userservice.unit.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.bulkhead.Bulkhead;
+import org.oldvabik.userservice.bulkhead.BulkheadInterceptor;
+import org.oldvabik.userservice.bulkhead.BulkheadType;
+import org.oldvabik.userservice.bulkhead.Bulkheads;
+import org.oldvabik.userservice.exception.ServiceUnavailableException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Bulkheads bulkheads = new Bulkheads(Map.of(
+            BulkheadType.ADMIN_LISTING, 1,
+            BulkheadType.POINT_READ, 2,
+            BulkheadType.WRITE, 0), 0, meterRegistry);
+    private final BulkheadInterceptor interceptor = new BulkheadInterceptor(bulkheads);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    public static class Endpoints {
+        @Bulkhead(BulkheadType.ADMIN_LISTING)
+        public void listing() {
+        }
+
+        @Bulkhead(BulkheadType.POINT_READ)
+        public void pointRead() {
+        }
+
+        @Bulkhead(BulkheadType.WRITE)
+        public void write() {
+        }
+
+        public void unclassified() {
+        }
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), name);
+    }
+
+    private double gauge(String name, BulkheadType type) {
+        return meterRegistry.get(name).tag("bulkhead", type.getName()).gauge().value();
+    }
+
+    @Test
+    void fullBulkhead_rejectsOnlyItsOwnClass() throws Exception {
+        MockHttpServletRequest heavy = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(heavy, response, handler("listing")));
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest(), response, handler("listing")));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("pointRead")));
+        assertEquals(1, meterRegistry.get("bulkhead.rejected").tag("bulkhead", "admin-listing").counter().count());
+        assertEquals(1, gauge("bulkhead.active", BulkheadType.ADMIN_LISTING));
+        assertEquals(1, gauge("bulkhead.limit", BulkheadType.ADMIN_LISTING));
+
+        interceptor.afterCompletion(heavy, response, handler("listing"), null);
+        interceptor.afterCompletion(heavy, response, handler("listing"), null);
+
+        assertEquals(0, gauge("bulkhead.active", BulkheadType.ADMIN_LISTING));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("listing")));
+    }
+
+    @Test
+    void unlimitedOrUnclassifiedEndpoints_areNotCapped() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("write")));
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("unclassified")));
+        }
+        assertTrue(meterRegistry.find("bulkhead.active").tag("bulkhead", "write").meters().isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package org.oldvabik.userservice.unit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.cache.FrequencySketch;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencySketchTest {
+
+    @Test
+    void top_keepsMostFrequentIds() {
+        FrequencySketch sketch = new FrequencySketch(1024, 3);
+        for (long id = 1; id <= 1000; id++) {
+            sketch.record(id);
+        }
+        for (int i = 0; i < 50; i++) {
+            sketch.record(7L);
+            sketch.record(42L);
+            if (i % 2 == 0) {
+                sketch.record(99L);
+            }
+        }
+
+        List<Long> top = sketch.top().stream().map(Map.Entry::getKey).toList();
+
+        assertEquals(List.of(7L, 42L, 99L), top);
+    }
+
+    @Test
+    void estimate_neverUndercounts() {
+        FrequencySketch sketch = new FrequencySketch(256, 10);
+        for (int i = 0; i < 20; i++) {
+            sketch.record(5L);
+        }
+        for (long id = 100; id < 2000; id++) {
+            sketch.record(id);
+        }
+
+        assertTrue(sketch.estimate(5L) >= 20);
+    }
+
+    @Test
+    void reset_clearsWindow() {
+        FrequencySketch sketch = new FrequencySketch(256, 10);
+        sketch.record(1L);
+
+        sketch.reset();
+
+        assertEquals(0, sketch.estimate(1L));
+        assertTrue(sketch.top().isEmpty());
+    }
+}
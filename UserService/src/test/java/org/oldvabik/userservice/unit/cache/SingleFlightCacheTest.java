@@ -0,0 +1,194 @@
+package org.oldvabik.userservice.unit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.cache.SingleFlight;
+import org.oldvabik.userservice.cache.SingleFlightCache;
+import org.oldvabik.userservice.datasource.DataSourceRouting;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SingleFlightCacheTest {
+
+    private static final SingleFlightCache.Settings SETTINGS = new SingleFlightCache.Settings(3000, 50, 1000, 5000, false, false);
+    private static final SingleFlightCache.Settings SHARED_EVICTIONS = new SingleFlightCache.Settings(3000, 50, 1000, 5000, false, true);
+
+    private final ConcurrentMapCache delegate = new ConcurrentMapCache("users", false);
+    private final SingleFlightCache cache = new SingleFlightCache(delegate, new SingleFlight(), null, Runnable::run, SETTINGS);
+
+    @SuppressWarnings("unchecked")
+    private static StringRedisTemplate markerTemplate(Map<String, String> markers) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        doAnswer(inv -> markers.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.countExistingKeys(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<String>>getArgument(0).stream().filter(markers::containsKey).count());
+        return redisTemplate;
+    }
+
+    @Test
+    void get_concurrentMisses_loadOnce() throws Exception {
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(1L, () -> {
+                        loads.incrementAndGet();
+                        release.await(5, TimeUnit.SECONDS);
+                        return "user-1";
+                    });
+                }));
+            }
+            start.countDown();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("user-1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("user-1", cache.get(1L, String.class));
+    }
+
+    @Test
+    void get_freshHit_skipsLoader() {
+        cache.put(1L, "cached");
+
+        assertEquals("cached", cache.get(1L, () -> fail("loader must not run")));
+    }
+
+    @Test
+    void get_staleHit_returnsCachedValueAndRefreshes() {
+        delegate.put(1L, new CacheEntry<>("old", System.currentTimeMillis() - 2000));
+
+        assertEquals("old", cache.get(1L, () -> "new"));
+        assertEquals("new", cache.get(1L, String.class));
+        assertTrue(((CacheEntry<?>) delegate.get(1L).get()).ageMillis() < 1000);
+    }
+
+    @Test
+    void get_staleHit_evictedWhileRefreshing_staysEvicted() {
+        delegate.put(1L, new CacheEntry<>("old", System.currentTimeMillis() - 2000));
+
+        assertEquals("old", cache.get(1L, () -> {
+            cache.evict(1L);
+            return "new";
+        }));
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void get_staleHit_rewrittenWhileRefreshing_keepsNewerEntry() {
+        delegate.put(1L, new CacheEntry<>("old", System.currentTimeMillis() - 2000));
+
+        assertEquals("old", cache.get(1L, () -> {
+            cache.put(1L, "newer");
+            return "refreshed";
+        }));
+        assertEquals("newer", cache.get(1L, String.class));
+    }
+
+    @Test
+    void get_staleHit_refreshQueueFull_keepsEntry() {
+        SingleFlightCache saturated = new SingleFlightCache(delegate, new SingleFlight(), null,
+                task -> {
+                    throw new RejectedExecutionException();
+                }, SETTINGS);
+        delegate.put(1L, new CacheEntry<>("old", System.currentTimeMillis() - 2000));
+
+        assertEquals("old", saturated.get(1L, () -> "new"));
+        assertEquals("old", saturated.get(1L, String.class));
+    }
+
+    @Test
+    void get_loaderFails_wrapsCauseAndCachesNothing() {
+        NotFoundException notFound = new NotFoundException("user with id 1 not found");
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> {
+                    throw notFound;
+                }));
+
+        assertSame(notFound, ex.getCause());
+        assertNull(delegate.get(1L));
+    }
+
+    @Test
+    void get_afterEvict_loadsFromPrimary() {
+        cache.put(1L, "old");
+        cache.evict(1L);
+
+        assertEquals(true, cache.get(1L, DataSourceRouting::isPrimaryForced));
+        assertFalse(DataSourceRouting.isPrimaryForced());
+        assertEquals(false, cache.get(2L, DataSourceRouting::isPrimaryForced));
+    }
+
+    @Test
+    void get_afterEvictOnOtherNode_loadsFromPrimary() {
+        StringRedisTemplate redisTemplate = markerTemplate(new ConcurrentHashMap<>());
+        SingleFlightCache nodeA = new SingleFlightCache(delegate, new SingleFlight(), redisTemplate,
+                Runnable::run, SHARED_EVICTIONS);
+        SingleFlightCache nodeB = new SingleFlightCache(delegate, new SingleFlight(), redisTemplate,
+                Runnable::run, SHARED_EVICTIONS);
+
+        nodeA.put(1L, "old");
+        nodeA.evict(1L);
+
+        assertEquals(true, nodeB.get(1L, DataSourceRouting::isPrimaryForced));
+        assertTrue(nodeB.anyEvictedRecently(List.of(2L, 1L)));
+        assertEquals(false, nodeB.get(2L, DataSourceRouting::isPrimaryForced));
+    }
+
+    @Test
+    void evict_insideTransaction_marksOtherNodesAfterCommit() {
+        Map<String, String> markers = new ConcurrentHashMap<>();
+        StringRedisTemplate redisTemplate = markerTemplate(markers);
+        SingleFlightCache node = new SingleFlightCache(delegate, new SingleFlight(), redisTemplate,
+                Runnable::run, SHARED_EVICTIONS);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            node.evict(1L);
+            assertTrue(markers.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(Set.of("evicted:users::1"), markers.keySet());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.oldvabik.userservice.unit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.common.cache.CacheEntry;
+import org.oldvabik.userservice.common.cache.SmileCacheSerializer;
+import org.oldvabik.userservice.dto.CardInfoDto;
+import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.repository.projection.CardView;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmileCacheSerializerTest {
+    /**
+     * Entries as written by this service; userservice-reactive reads the same bytes in
+     * {@code SharedCacheFormatTest}, so a change to either DTO that breaks the other service fails here.
+     */
+    private static final String USER_FIXTURE =
+            "02000000018bcfe5687b3a290a01fa816964ce836e616d65434a6f686e867375726e616d6542446f65886269" +
+            "72746844617465f8243e8cc2c2f984656d61696c4f6a6f686e406578616d706c652e636f6d8676657273696f" +
+            "6ec6846361726473f8fa40d6856e756d6265724f3430303030303030303030303030313185686f6c64657247" +
+            "4a6f686e20446f658d65787069726174696f6e44617465f8243f9cc2c2f985757365724964ce45c0fbf9fb";
+    private static final String CARD_FIXTURE =
+            "02000000018bcfe5687b3a290a01fa816964d6856e756d6265724f3430303030303030303030303030313185" +
+            "686f6c646572474a6f686e20446f658d65787069726174696f6e44617465f8243f9cc2c2f98676657273696f" +
+            "6ec085757365724964ce896f776e6572456d61696c4f6a6f686e406578616d706c652e636f6dfb";
+    private static final long FIXTURE_WRITTEN_AT = 1_700_000_000_123L;
+
+    private final SmileCacheSerializer<UserDto> serializer = new SmileCacheSerializer<>(UserDto.class, 1024);
+
+    private static UserDto user(int cardCount) {
+        UserDto user = new UserDto();
+        user.setId(1L);
+        user.setName("John");
+        user.setSurname("Doe");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail("john@example.com");
+        List<CardInfoDto> cards = new ArrayList<>();
+        for (int i = 0; i < cardCount; i++) {
+            CardInfoDto card = new CardInfoDto();
+            card.setId((long) i);
+            card.setNumber(String.format("4000%012d", i));
+            card.setHolder("John Doe");
+            card.setExpirationDate(LocalDate.of(2030, 1, 1).plusMonths(i));
+            card.setUserId(1L);
+            cards.add(card);
+        }
+        user.setCards(cards);
+        return user;
+    }
+
+    @Test
+    void roundTrip_smallValue_isNotCompressed() {
+        CacheEntry<UserDto> entry = new CacheEntry<>(user(2), 1_700_000_000_123L);
+
+        byte[] bytes = serializer.serialize(entry);
+
+        assertEquals(2, bytes[0]);
+        assertEquals(0, bytes[1]);
+        assertEquals(entry, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTrip_largeValue_isCompressed() {
+        CacheEntry<UserDto> entry = CacheEntry.of(user(200));
+
+        byte[] bytes = serializer.serialize(entry);
+
+        assertEquals(1, bytes[1]);
+        assertEquals(entry, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_legacyVersion_readsValueWithoutWriteTime() {
+        byte[] current = serializer.serialize(new CacheEntry<>(user(1), 42L));
+        byte[] legacy = new byte[current.length - 8];
+        legacy[0] = 1;
+        System.arraycopy(current, 10, legacy, 2, current.length - 10);
+
+        CacheEntry<UserDto> entry = serializer.deserialize(legacy);
+
+        assertEquals(user(1), entry.value());
+        assertEquals(0, entry.writtenAt());
+    }
+
+    @Test
+    void deserialize_unknownVersion_returnsNull() {
+        byte[] bytes = serializer.serialize(CacheEntry.of(user(1)));
+        bytes[0] = 99;
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void serialize_isSmallerThanJdkSerialization() {
+        UserDto user = user(10);
+
+        byte[] smile = serializer.serialize(CacheEntry.of(user));
+        byte[] jdk = new JdkSerializationRedisSerializer().serialize(user);
+
+        assertTrue(smile.length < jdk.length / 2, "smile=" + smile.length + ", jdk=" + jdk.length);
+    }
+
+    @Test
+    void serialize_matchesSharedFixtures() {
+        UserDto user = user(1);
+        user.setId(7L);
+        user.setVersion(3L);
+        CardInfoDto card = user.getCards().get(0);
+        card.setId(11L);
+        card.setNumber("4000000000000011");
+        card.setUserId(7L);
+        card.setVersion(0L);
+        CardView cardView = new CardView(11L, "4000000000000011", "John Doe", LocalDate.of(2030, 1, 1),
+                0L, 7L, "john@example.com");
+
+        assertEquals(USER_FIXTURE, HexFormat.of().formatHex(
+                serializer.serialize(new CacheEntry<>(user, FIXTURE_WRITTEN_AT))));
+        assertEquals(CARD_FIXTURE, HexFormat.of().formatHex(new SmileCacheSerializer<>(CardView.class, 1024)
+                .serialize(new CacheEntry<>(cardView, FIXTURE_WRITTEN_AT))));
+    }
+}
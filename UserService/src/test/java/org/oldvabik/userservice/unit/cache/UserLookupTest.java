@@ -0,0 +1,123 @@
+package org.oldvabik.userservice.unit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.cache.CacheBatchReader;
+import org.oldvabik.userservice.cache.UserLookup;
+import org.oldvabik.userservice.config.CacheConfig;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.UserDto;
+import org.oldvabik.userservice.exception.NotFoundException;
+import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.repository.projection.UserCardView;
+import org.oldvabik.userservice.repository.projection.UserView;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private CacheBatchReader cacheBatchReader;
+    @Spy
+    private UserShards userShards = UserShards.unsharded();
+    @InjectMocks
+    private UserLookup userLookup;
+
+    private static UserCardView row() {
+        return new UserCardView(1L, "John", "Doe", null, "test@example.com", 0L, null, null, null, null, null);
+    }
+
+    private static UserCardView cardRow(Long userId, Long cardId) {
+        return new UserCardView(userId, "John", "Doe", null, "user" + userId + "@example.com", 0L,
+                cardId, "4000" + cardId, "John Doe", null, 0L);
+    }
+
+    @Test
+    void findById_found() {
+        List<UserCardView> rows = List.of(row());
+        UserDto user = new UserDto();
+
+        when(userRepository.findViewById(1L)).thenReturn(rows);
+        when(userMapper.fromRows(rows)).thenReturn(user);
+
+        assertSame(user, userLookup.findById(1L));
+    }
+
+    @Test
+    void findById_notFound() {
+        when(userRepository.findViewById(1L)).thenReturn(List.of());
+        assertThrows(NotFoundException.class, () -> userLookup.findById(1L));
+    }
+
+    @Test
+    void findProfileById_readsWithoutCards() {
+        UserView view = new UserView(1L, "John", "Doe", null, "test@example.com", 0L);
+        UserDto user = new UserDto();
+
+        when(userRepository.findProfileById(1L)).thenReturn(Optional.of(view));
+        when(userMapper.fromView(view)).thenReturn(user);
+
+        assertSame(user, userLookup.findProfileById(1L));
+        verify(userRepository, never()).findViewById(any());
+    }
+
+    @Test
+    void findProfileById_notFound() {
+        when(userRepository.findProfileById(1L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> userLookup.findProfileById(1L));
+    }
+
+    @Test
+    void findByEmail_found() {
+        List<UserCardView> rows = List.of(row());
+        UserDto user = new UserDto();
+
+        when(userRepository.findViewByEmail("test@example.com")).thenReturn(rows);
+        when(userMapper.fromRows(rows)).thenReturn(user);
+
+        assertSame(user, userLookup.findByEmail("test@example.com"));
+    }
+
+    @Test
+    void findByEmail_notFound() {
+        when(userRepository.findViewByEmail("test@example.com")).thenReturn(List.of());
+        assertThrows(NotFoundException.class, () -> userLookup.findByEmail("test@example.com"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAllById_loadsMissesWithOneQueryGroupedPerUser() {
+        List<UserCardView> rows = List.of(cardRow(1L, 10L), cardRow(1L, 11L), cardRow(2L, 20L));
+        UserDto first = new UserDto();
+        UserDto second = new UserDto();
+
+        when(cacheBatchReader.getAll(eq(CacheConfig.USERS_CACHE), eq(List.of(1L, 2L, 3L)), any()))
+                .thenAnswer(invocation -> ((Function<List<Long>, Map<Long, UserDto>>) invocation.getArgument(2))
+                        .apply(invocation.getArgument(1)));
+        when(userRepository.findViewsByIds(List.of(1L, 2L, 3L))).thenReturn(rows);
+        when(userMapper.fromRows(rows.subList(0, 2))).thenReturn(first);
+        when(userMapper.fromRows(rows.subList(2, 3))).thenReturn(second);
+
+        Map<Long, UserDto> users = userLookup.findAllById(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, first, 2L, second), users);
+        verify(userRepository, times(1)).findViewsByIds(any());
+    }
+}
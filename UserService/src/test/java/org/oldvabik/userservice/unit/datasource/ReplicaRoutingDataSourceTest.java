@@ -0,0 +1,151 @@
+package org.oldvabik.userservice.unit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.datasource.DataSourceRouting;
+import org.oldvabik.userservice.datasource.ReadYourWritesTracker;
+import org.oldvabik.userservice.datasource.ReplicaRoutingDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+    private final DataSource replica2 = mock(DataSource.class);
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(primary, replicas, new ReadYourWritesTracker(60_000));
+        routing.afterPropertiesSet();
+        routing.setReplicaHealthy("replica-1", true);
+        routing.setReplicaHealthy("replica-2", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(String name) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(name, null, List.of()));
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    @Test
+    void readOnly_roundRobinsAcrossReplicas() throws Exception {
+        beginTransaction(true);
+
+        routing.getConnection();
+        routing.getConnection();
+
+        verify(replica1).getConnection();
+        verify(replica2).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void readWrite_usesPrimary() throws Exception {
+        beginTransaction(false);
+
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    void readOnly_unhealthyReplicaSkipped_allDownFallsBackToPrimary() throws Exception {
+        routing.setReplicaHealthy("replica-1", false);
+        beginTransaction(true);
+
+        routing.getConnection();
+        routing.getConnection();
+        verify(replica2, times(2)).getConnection();
+
+        routing.setReplicaHealthy("replica-2", false);
+        routing.getConnection();
+        verify(primary).getConnection();
+    }
+
+    @Test
+    void readOnly_afterOwnWrite_staysOnPrimary() throws Exception {
+        authenticate("writer@example.com");
+        beginTransaction(false);
+        routing.getConnection();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(primary, times(2)).getConnection();
+
+        authenticate("reader@example.com");
+        routing.getConnection();
+        verify(replica1).getConnection();
+    }
+
+    @Test
+    void readOnly_afterLongWriteTransaction_windowStartsAtCommit() throws Exception {
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica1), new ReadYourWritesTracker(200));
+        routing.afterPropertiesSet();
+        routing.setReplicaHealthy("replica-1", true);
+        authenticate("writer@example.com");
+        TransactionSynchronizationManager.initSynchronization();
+        beginTransaction(false);
+        routing.getConnection();
+
+        Thread.sleep(300);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(primary, times(2)).getConnection();
+        verifyNoInteractions(replica1);
+    }
+
+    @Test
+    void readWrite_rolledBack_doesNotPinReadsToPrimary() throws Exception {
+        authenticate("writer@example.com");
+        TransactionSynchronizationManager.initSynchronization();
+        beginTransaction(false);
+        routing.getConnection();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        beginTransaction(true);
+        routing.getConnection();
+        verify(replica1).getConnection();
+    }
+
+    @Test
+    void readOnly_primaryForced_usesPrimary() throws Exception {
+        beginTransaction(true);
+
+        DataSourceRouting.onPrimary(routing::getConnection);
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica1, replica2);
+    }
+}
@@ -0,0 +1,132 @@
+package org.oldvabik.userservice.unit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.datasource.ShardContext;
+import org.oldvabik.userservice.datasource.ShardDirectory;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserShardsTest {
+
+    private final ShardDirectory directory = mock(ShardDirectory.class);
+    private UserShards userShards;
+
+    @BeforeEach
+    void setUp() {
+        userShards = new UserShards(3, directory, mock(PlatformTransactionManager.class), 2, 60_000);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        userShards.close();
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+    }
+
+    @Test
+    void shardOf_followsInterleavedIds() {
+        assertEquals(List.of(0, 1, 2, 0), List.of(userShards.shardOf(1), userShards.shardOf(2),
+                userShards.shardOf(3), userShards.shardOf(4)));
+        assertEquals(Map.of(0, List.of(1L, 4L), 2, List.of(3L)), userShards.partition(List.of(1L, 3L, 4L)));
+    }
+
+    @Test
+    void unsharded_runsInlineWithoutDirectory() {
+        UserShards single = UserShards.unsharded();
+
+        assertEquals(0, single.shardOf(42));
+        assertEquals(OptionalInt.of(0), single.shardOfEmail("a@example.com"));
+        assertEquals(OptionalInt.empty(), single.reserve("email:a@example.com", 0, () -> true));
+        assertEquals("x", single.onShard(0, () -> ShardContext.current() == null ? "x" : "y"));
+        single.pin(0);
+        assertNull(ShardContext.current());
+    }
+
+    @Test
+    void pin_lastsUntilTransactionCompletes() {
+        userShards.pin(2);
+
+        assertEquals(2, ShardContext.current());
+        assertThrows(IllegalStateException.class, () -> userShards.pin(1));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertNull(ShardContext.current());
+    }
+
+    @Test
+    void reserve_releasedOnRollbackOnly() {
+        when(directory.reserve("email:a@example.com", 1)).thenReturn(true);
+
+        assertTrue(userShards.reserve("email:a@example.com", 1, () -> true).isEmpty());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(directory, never()).release(anyString(), anyInt());
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(directory).release("email:a@example.com", 1);
+    }
+
+    @Test
+    void reserve_heldByOtherShard_conflicts() {
+        when(directory.reserve("card:4000", 0)).thenReturn(false);
+        when(directory.find("card:4000")).thenReturn(Optional.of(2));
+        AtomicInteger checkedOn = new AtomicInteger(-1);
+
+        OptionalInt holder = userShards.reserve("card:4000", 0, () -> {
+            checkedOn.set(ShardContext.current());
+            return true;
+        });
+
+        assertEquals(OptionalInt.of(2), holder);
+        assertEquals(2, checkedOn.get());
+        verify(directory, never()).takeOver(anyString(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    void reserve_staleReservation_isTakenOver() {
+        when(directory.reserve("card:4000", 0)).thenReturn(false);
+        when(directory.find("card:4000")).thenReturn(Optional.of(2));
+        when(directory.takeOver("card:4000", 2, 0, 60_000)).thenReturn(true);
+
+        assertTrue(userShards.reserve("card:4000", 0, () -> false).isEmpty());
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(directory).release("card:4000", 0);
+    }
+
+    @Test
+    void readPage_mergesShardsInOrder() {
+        List<List<Long>> shards = List.of(List.of(1L, 4L, 7L), List.of(2L, 5L), List.of(3L));
+        AtomicInteger calls = new AtomicInteger();
+
+        Page<Long> page = userShards.<Long>readPage(PageRequest.of(1, 2), head -> {
+            calls.incrementAndGet();
+            assertEquals(4, head.getPageSize());
+            List<Long> rows = shards.get(ShardContext.current());
+            return new PageImpl<>(rows.subList(0, Math.min(rows.size(), head.getPageSize())), head, rows.size());
+        }, Comparator.naturalOrder());
+
+        assertEquals(3, calls.get());
+        assertEquals(List.of(3L, 4L), page.getContent());
+        assertEquals(6, page.getTotalElements());
+    }
+}
@@ -0,0 +1,261 @@
+package org.oldvabik.userservice.unit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.cache.SingleFlight;
+import org.oldvabik.userservice.dto.CardInfoCreateDto;
+import org.oldvabik.userservice.dto.CardInfoDto;
+import org.oldvabik.userservice.exception.AlreadyExistsException;
+import org.oldvabik.userservice.exception.ConflictException;
+import org.oldvabik.userservice.exception.UnprocessableEntityException;
+import org.oldvabik.userservice.idempotency.IdempotencyStore;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+    private static final String OPERATION = "POST /api/v1/cards";
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+    private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+    private final AtomicInteger inserts = new AtomicInteger();
+    private final List<IdempotencyStore> stores = new ArrayList<>();
+    private StringRedisTemplate redisTemplate;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(inv -> setIfAbsent(
+                inv.getArgument(0), inv.getArgument(1), inv.<Duration>getArgument(2).toMillis()));
+        when(ops.get(anyString())).thenAnswer(inv -> get(inv.getArgument(0)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(inv -> script(inv.getArgument(0), inv.<List<String>>getArgument(1).get(0),
+                        (Object[]) inv.getRawArguments()[2]));
+
+        store = newStore(2_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(IdempotencyStore::destroy);
+    }
+
+    private IdempotencyStore newStore(long lockTimeoutMs) {
+        IdempotencyStore created = new IdempotencyStore(redisTemplate, new ObjectMapper().findAndRegisterModules(),
+                new SingleFlight(), Executors.newSingleThreadScheduledExecutor(),
+                new IdempotencyStore.Settings(60_000, lockTimeoutMs, 5));
+        stores.add(created);
+        return created;
+    }
+
+    private synchronized String get(String key) {
+        Long expiry = expiresAt.get(key);
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            redis.remove(key);
+            expiresAt.remove(key);
+        }
+        return redis.get(key);
+    }
+
+    private synchronized boolean setIfAbsent(String key, String value, long ttlMs) {
+        if (get(key) != null) {
+            return false;
+        }
+        redis.put(key, value);
+        expiresAt.put(key, System.currentTimeMillis() + ttlMs);
+        return true;
+    }
+
+    /**
+     * Stands in for the compare-token scripts: release deletes, renew extends and complete replaces the key,
+     * each only while it still holds the expected pending marker.
+     */
+    private synchronized Long script(RedisScript<?> script, String key, Object[] args) {
+        if (!args[0].equals(get(key))) {
+            return 0L;
+        }
+        String source = script.getScriptAsString();
+        if (source.contains("pexpire")) {
+            expiresAt.put(key, System.currentTimeMillis() + Long.parseLong((String) args[1]));
+        } else if (source.contains("'set'")) {
+            redis.put(key, (String) args[1]);
+            expiresAt.put(key, System.currentTimeMillis() + Long.parseLong((String) args[2]));
+        } else {
+            redis.remove(key);
+            expiresAt.remove(key);
+        }
+        return 1L;
+    }
+
+    private static CardInfoCreateDto request(String number) {
+        CardInfoCreateDto dto = new CardInfoCreateDto();
+        dto.setNumber(number);
+        dto.setUserId(1L);
+        return dto;
+    }
+
+    private CardInfoDto insert(CardInfoCreateDto dto) {
+        inserts.incrementAndGet();
+        CardInfoDto card = new CardInfoDto();
+        card.setId((long) inserts.get());
+        card.setNumber(dto.getNumber());
+        return card;
+    }
+
+    private IdempotencyStore.Result<CardInfoDto> create(String key, CardInfoCreateDto dto) {
+        return store.execute("alice@example.com", key, OPERATION, dto, CardInfoDto.class, () -> insert(dto));
+    }
+
+    @Test
+    void execute_withoutKey_runsEveryTime() {
+        create(null, request("4111111111111111"));
+        create(null, request("4111111111111111"));
+
+        assertEquals(2, inserts.get());
+        assertTrue(redis.isEmpty());
+    }
+
+    @Test
+    void execute_repeatedKey_replaysStoredResponse() {
+        IdempotencyStore.Result<CardInfoDto> first = create("k-1", request("4111111111111111"));
+        IdempotencyStore.Result<CardInfoDto> retry = create("k-1", request("4111111111111111"));
+
+        assertEquals(1, inserts.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals("true", retry.toResponseEntity(HttpStatus.CREATED)
+                .getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_keyReusedForDifferentRequest_isRejected() {
+        create("k-1", request("4111111111111111"));
+
+        assertThrows(UnprocessableEntityException.class, () -> create("k-1", request("5500000000000004")));
+        assertEquals(1, inserts.get());
+    }
+
+    @Test
+    void execute_failedRequest_releasesKey() {
+        CardInfoCreateDto dto = request("4111111111111111");
+
+        assertThrows(AlreadyExistsException.class, () -> store.execute("alice@example.com", "k-1", OPERATION, dto,
+                CardInfoDto.class, () -> {
+                    throw new AlreadyExistsException("card already exists");
+                }));
+
+        assertTrue(redis.isEmpty());
+        assertFalse(create("k-1", dto).replayed());
+        assertEquals(1, inserts.get());
+    }
+
+    @Test
+    void execute_concurrentDuplicates_runOnce() throws Exception {
+        CardInfoCreateDto dto = request("4111111111111111");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<IdempotencyStore.Result<CardInfoDto>> leader = pool.submit(() ->
+                    store.execute("alice@example.com", "k-1", OPERATION, dto, CardInfoDto.class, () -> {
+                        started.countDown();
+                        awaitQuietly(release);
+                        return insert(dto);
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<IdempotencyStore.Result<CardInfoDto>>> duplicates = List.of(
+                    pool.submit(() -> create("k-1", dto)),
+                    pool.submit(() -> create("k-1", dto)),
+                    pool.submit(() -> create("k-1", dto)));
+            release.countDown();
+
+            assertFalse(leader.get(5, TimeUnit.SECONDS).replayed());
+            for (Future<IdempotencyStore.Result<CardInfoDto>> duplicate : duplicates) {
+                IdempotencyStore.Result<CardInfoDto> result = duplicate.get(5, TimeUnit.SECONDS);
+                assertTrue(result.replayed());
+                assertEquals(1L, result.body().getId());
+            }
+            assertEquals(1, inserts.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_slowRequest_keepsItsClaimPastLockTimeout() throws Exception {
+        IdempotencyStore slowNode = newStore(150);
+        IdempotencyStore otherNode = newStore(150);
+        CardInfoCreateDto dto = request("4111111111111111");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyStore.Result<CardInfoDto>> leader = pool.submit(() ->
+                    slowNode.execute("alice@example.com", "k-1", OPERATION, dto, CardInfoDto.class, () -> {
+                        started.countDown();
+                        awaitQuietly(release);
+                        return insert(dto);
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(400);
+
+            assertThrows(ConflictException.class, () -> otherNode.execute("alice@example.com", "k-1", OPERATION, dto,
+                    CardInfoDto.class, () -> insert(dto)));
+            release.countDown();
+
+            assertFalse(leader.get(5, TimeUnit.SECONDS).replayed());
+            assertTrue(otherNode.execute("alice@example.com", "k-1", OPERATION, dto, CardInfoDto.class,
+                    () -> insert(dto)).replayed());
+            assertEquals(1, inserts.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_markerTakenOver_keepsTheOtherResponse() {
+        CardInfoCreateDto dto = request("4111111111111111");
+        String key = "idempotency:alice@example.com:k-1";
+
+        IdempotencyStore.Result<CardInfoDto> result = store.execute("alice@example.com", "k-1", OPERATION, dto,
+                CardInfoDto.class, () -> {
+                    redis.put(key, "taken over");
+                    return insert(dto);
+                });
+
+        assertFalse(result.replayed());
+        assertEquals(1L, result.body().getId());
+        assertEquals("taken over", redis.get(key));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
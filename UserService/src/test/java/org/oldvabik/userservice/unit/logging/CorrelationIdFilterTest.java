@@ -0,0 +1,75 @@
+package org.oldvabik.userservice.unit.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.logging.CorrelationIdFilter;
+import org.oldvabik.userservice.logging.RequestSamplingTurboFilter;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+    private final RequestSamplingTurboFilter samplingFilter = new RequestSamplingTurboFilter();
+
+    private Map<String, String> serve(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        Map<String, String> seen = new HashMap<>();
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                seen.putAll(MDC.getCopyOfContextMap());
+                seen.put("info", samplingFilter.decide(null, null, Level.INFO, null, null, null).name());
+                seen.put("warn", samplingFilter.decide(null, null, Level.WARN, null, null, null).name());
+            }
+        });
+        return seen;
+    }
+
+    @Test
+    void wellFormedRequestId_isKeptAndEchoed() throws Exception {
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Map<String, String> seen = serve(request, response);
+
+        assertEquals("abc-123", seen.get(CorrelationIdFilter.REQUEST_ID));
+        assertEquals("abc-123", response.getHeader(CorrelationIdFilter.HEADER));
+        assertEquals(FilterReply.NEUTRAL.name(), seen.get("info"));
+        assertNull(MDC.get(CorrelationIdFilter.REQUEST_ID));
+    }
+
+    @Test
+    void malformedRequestId_isReplaced() throws Exception {
+        ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "bad id\nforged line");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Map<String, String> seen = serve(request, response);
+
+        assertNotEquals("bad id\nforged line", seen.get(CorrelationIdFilter.REQUEST_ID));
+        assertEquals(seen.get(CorrelationIdFilter.REQUEST_ID), response.getHeader(CorrelationIdFilter.HEADER));
+    }
+
+    @Test
+    void unsampledRequest_dropsRoutineLogsOnly() throws Exception {
+        ReflectionTestUtils.setField(filter, "sampleRate", 0.0);
+
+        Map<String, String> seen = serve(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        assertEquals("false", seen.get(CorrelationIdFilter.SAMPLED));
+        assertEquals(FilterReply.DENY.name(), seen.get("info"));
+        assertEquals(FilterReply.NEUTRAL.name(), seen.get("warn"));
+        assertEquals(FilterReply.NEUTRAL, samplingFilter.decide(null, null, Level.INFO, null, null, null));
+    }
+}
@@ -0,0 +1,76 @@
+package org.oldvabik.userservice.unit.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+import org.oldvabik.userservice.logging.CountingAsyncAppender;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+
+    private CountingAsyncAppender startAppender() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add(event.getFormattedMessage());
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+
+        CountingAsyncAppender async = new CountingAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(1);
+        async.addAppender(slow);
+        async.start();
+        return async;
+    }
+
+    private static void awaitEmptyQueue(CountingAsyncAppender async) throws InterruptedException {
+        for (int i = 0; i < 100 && async.getNumberOfElementsInQueue() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, async.getNumberOfElementsInQueue());
+    }
+
+    @Test
+    void fullQueue_dropsRoutineEventsAndKeepsWarnings() throws Exception {
+        CountingAsyncAppender async = startAppender();
+        Logger logger = context.getLogger("test");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+
+        logger.info("first");
+        awaitEmptyQueue(async);
+        logger.info("second");
+        logger.info("third");
+        CompletableFuture<Void> warning = CompletableFuture.runAsync(() -> logger.warn("warning"));
+
+        assertEquals(1, async.getDroppedCount());
+        assertThrows(Exception.class, () -> warning.get(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        warning.get(5, TimeUnit.SECONDS);
+        async.stop();
+        assertEquals(List.of("first", "second", "warning"), written);
+    }
+}
@@ -0,0 +1,109 @@
+package org.oldvabik.userservice.unit.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.oldvabik.userservice.outbox.ChangeEventSink;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxRelay;
+import org.oldvabik.userservice.repository.OutboxRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private ChangeEventSink sink;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxRepository, sink, transactionManager, UserShards.unsharded(), meterRegistry);
+        ReflectionTestUtils.setField(outboxRelay, "enabled", true);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "maxBatches", 3);
+        ReflectionTestUtils.setField(outboxRelay, "retention", 60000L);
+        ReflectionTestUtils.setField(outboxRelay, "purgeBatchSize", 2);
+    }
+
+    private static ChangeEventDto event(long seq, long userId) {
+        return new ChangeEventDto(seq, ChangeEventType.USER_UPDATED, userId, null, LocalDateTime.now());
+    }
+
+    @Test
+    void relay_publishesBatchesUntilPartialBatch() {
+        List<ChangeEventDto> first = List.of(event(1, 10), event(2, 20));
+        List<ChangeEventDto> second = List.of(event(3, 10));
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.claimPending(2)).thenReturn(first).thenReturn(second);
+
+        int published = outboxRelay.relay();
+
+        assertEquals(3, published);
+        verify(sink).publish(first);
+        verify(sink).publish(second);
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.get("outbox.published").counter().count());
+    }
+
+    @Test
+    void relay_anotherNodeHoldsLock_publishesNothing() {
+        when(outboxRepository.tryLockRelay()).thenReturn(false);
+
+        assertEquals(0, outboxRelay.relay());
+        verify(outboxRepository, never()).claimPending(anyInt());
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void relay_sinkFails_rollsBackBatch() {
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.claimPending(2)).thenReturn(List.of(event(1, 10)));
+        doThrow(new IllegalStateException("sink down")).when(sink).publish(anyList());
+
+        outboxRelay.poll();
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertEquals(0.0, meterRegistry.get("outbox.published").counter().count());
+    }
+
+    @Test
+    void poll_disabled_doesNothing() {
+        ReflectionTestUtils.setField(outboxRelay, "enabled", false);
+
+        outboxRelay.poll();
+
+        verifyNoInteractions(outboxRepository, sink, transactionManager);
+    }
+
+    @Test
+    void purge_deletesInBatchesUntilPartialBatch() {
+        when(outboxRepository.purgePublishedBefore(any(LocalDateTime.class), eq(2))).thenReturn(2, 1);
+
+        assertEquals(3, outboxRelay.purge());
+        verify(outboxRepository, times(2)).purgePublishedBefore(any(LocalDateTime.class), eq(2));
+        assertEquals(3.0, meterRegistry.get("outbox.purged").counter().count());
+    }
+}
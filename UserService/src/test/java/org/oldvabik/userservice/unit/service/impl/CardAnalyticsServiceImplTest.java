@@ -0,0 +1,51 @@
+package org.oldvabik.userservice.unit.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.CardExpirationBucketDto;
+import org.oldvabik.userservice.dto.CardExpirationStatsDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.repository.CardExpirationStatsRepository;
+import org.oldvabik.userservice.service.impl.CardAnalyticsServiceImpl;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardAnalyticsServiceImplTest {
+
+    @Mock
+    private CardExpirationStatsRepository cardExpirationStatsRepository;
+    @Mock
+    private UserShards userShards;
+    @InjectMocks
+    private CardAnalyticsServiceImpl cardAnalyticsService;
+
+    @Test
+    void getExpirationStats_sumsBuckets() {
+        YearMonth from = YearMonth.of(2027, 1);
+        YearMonth to = YearMonth.of(2027, 12);
+        when(cardExpirationStatsRepository.findBuckets(from, to)).thenReturn(List.of(
+                new CardExpirationBucketDto(YearMonth.of(2027, 1), 1980, 3),
+                new CardExpirationBucketDto(YearMonth.of(2027, 1), 1990, 4),
+                new CardExpirationBucketDto(YearMonth.of(2027, 6), 1990, 1)));
+
+        CardExpirationStatsDto stats = cardAnalyticsService.getExpirationStats(from, to);
+
+        assertEquals(3, stats.getBuckets().size());
+        assertEquals(8, stats.getTotalCards());
+    }
+
+    @Test
+    void getExpirationStats_fromAfterTo_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> cardAnalyticsService.getExpirationStats(YearMonth.of(2028, 1), YearMonth.of(2027, 1)));
+        verifyNoInteractions(cardExpirationStatsRepository);
+    }
+}
@@ -0,0 +1,96 @@
+package org.oldvabik.userservice.unit.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxEvent;
+import org.oldvabik.userservice.outbox.OutboxWriter;
+import org.oldvabik.userservice.repository.CardArchiveRepository;
+import org.oldvabik.userservice.repository.projection.ArchivedCardView;
+import org.oldvabik.userservice.service.impl.CardArchiveServiceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardArchiveServiceImplTest {
+
+    @Mock
+    private CardArchiveRepository cardArchiveRepository;
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+    @Mock
+    private OutboxWriter outboxWriter;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardArchiveServiceImpl cardArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cardArchiveService = new CardArchiveServiceImpl(cardArchiveRepository, cacheInvalidator,
+                outboxWriter, transactionManager, UserShards.unsharded(), meterRegistry);
+        ReflectionTestUtils.setField(cardArchiveService, "batchSize", 2);
+        ReflectionTestUtils.setField(cardArchiveService, "maxBatches", 3);
+    }
+
+    @Test
+    void archiveExpiredCards_stopsAfterPartialBatch_andEvictsOwners() {
+        when(cardArchiveRepository.archiveExpired(any(LocalDate.class), eq(2)))
+                .thenReturn(List.of(new ArchivedCardView(1L, 10L, "a@example.com"),
+                        new ArchivedCardView(2L, 10L, "a@example.com")))
+                .thenReturn(List.of(new ArchivedCardView(3L, 20L, "b@example.com")));
+
+        int archived = cardArchiveService.archiveExpiredCards();
+
+        assertEquals(3, archived);
+        verify(cardArchiveRepository, times(2)).archiveExpired(any(LocalDate.class), eq(2));
+        verify(cacheInvalidator).evictUser(10L, "a@example.com");
+        verify(cacheInvalidator).evictUser(20L, "b@example.com");
+        verify(cacheInvalidator).evictCards(List.of(1L, 2L));
+        verify(cacheInvalidator).evictCards(List.of(3L));
+        verify(outboxWriter).append(List.of(new OutboxEvent(ChangeEventType.CARD_DELETED, 10L, 1L),
+                new OutboxEvent(ChangeEventType.CARD_DELETED, 10L, 2L)));
+        verify(outboxWriter).append(List.of(new OutboxEvent(ChangeEventType.CARD_DELETED, 20L, 3L)));
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.get("cards.archive.archived").counter().count());
+        assertEquals(3.0, meterRegistry.get("cards.archive.last.cards").gauge().value());
+        assertEquals(2.0, meterRegistry.get("cards.archive.last.users").gauge().value());
+    }
+
+    @Test
+    void archiveExpiredCards_respectsMaxBatches_andCountsOwnersOnce() {
+        when(cardArchiveRepository.archiveExpired(any(LocalDate.class), eq(2)))
+                .thenReturn(List.of(new ArchivedCardView(1L, 10L, "a@example.com"),
+                        new ArchivedCardView(2L, 10L, "a@example.com")));
+
+        int archived = cardArchiveService.archiveExpiredCards();
+
+        assertEquals(6, archived);
+        verify(cardArchiveRepository, times(3)).archiveExpired(any(LocalDate.class), eq(2));
+        assertEquals(1.0, meterRegistry.get("cards.archive.last.users").gauge().value());
+    }
+
+    @Test
+    void archiveExpiredCards_nothingExpired_evictsNothing() {
+        when(cardArchiveRepository.archiveExpired(any(LocalDate.class), eq(2))).thenReturn(List.of());
+
+        assertEquals(0, cardArchiveService.archiveExpiredCards());
+        verifyNoInteractions(cacheInvalidator);
+        verifyNoInteractions(outboxWriter);
+    }
+}
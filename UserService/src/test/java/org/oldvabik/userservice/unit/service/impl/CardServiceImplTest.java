@@ -4,16 +4,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.cache.HotKeyTracker;
+import org.oldvabik.userservice.cache.CardLookup;
+import org.oldvabik.userservice.datasource.UserShards;
 import org.oldvabik.userservice.dto.*;
 import org.oldvabik.userservice.entity.*;
 import org.oldvabik.userservice.exception.*;
 import org.oldvabik.userservice.mapper.*;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxWriter;
 import org.oldvabik.userservice.repository.*;
+import org.oldvabik.userservice.repository.projection.CardOwnerView;
+import org.oldvabik.userservice.repository.projection.CardView;
 import org.oldvabik.userservice.security.AccessChecker;
 import org.oldvabik.userservice.service.impl.CardServiceImpl;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.security.access.AccessDeniedException;
 import java.util.*;
 
@@ -30,11 +39,19 @@ public class CardServiceImplTest {
     @Mock
     private CardMapper cardMapper;
     @Mock
-    private UserMapper userMapper;
-    @Mock
     private AccessChecker accessChecker;
     @Mock
+    private CardLookup cardLookup;
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+    @Mock
+    private OutboxWriter outboxWriter;
+    @Mock
     private Authentication auth;
+    @Mock
+    private UserShards userShards;
 
     @InjectMocks
     private CardServiceImpl cardService;
@@ -49,6 +66,7 @@ public class CardServiceImplTest {
         user.setId(1L);
         user.setName("John");
         user.setSurname("Doe");
+        user.setEmail("john@example.com");
 
         CardInfo card = new CardInfo();
         CardInfo saved = new CardInfo();
@@ -56,8 +74,7 @@ public class CardServiceImplTest {
         CardInfoDto cardDto = new CardInfoDto();
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+        when(accessChecker.canAccessOwner(auth, "john@example.com")).thenReturn(true);
         when(cardRepository.findByNumber("1234")).thenReturn(Optional.empty());
         when(cardMapper.toEntity(dto)).thenReturn(card);
         when(cardRepository.save(card)).thenReturn(saved);
@@ -66,6 +83,34 @@ public class CardServiceImplTest {
         CardInfoDto result = cardService.createCard(auth, dto);
         assertNotNull(result);
         verify(cardRepository).save(card);
+        verify(userRepository).incrementVersion(1L);
+        verify(cacheInvalidator).evictUser(1L, "john@example.com");
+        verify(outboxWriter).cardChanged(ChangeEventType.CARD_CREATED, 1L, 1L);
+    }
+
+    @Test
+    void getCardsByIds_skipsMissingAndDenied() {
+        ReflectionTestUtils.setField(cardService, "maxIds", 100);
+        CardView own = new CardView(1L, "1234", "John Doe", null, 0L, 2L, "owner@example.com");
+        CardView foreign = new CardView(2L, "5678", "Jane Doe", null, 0L, 3L, "other@example.com");
+        CardInfoDto ownDto = new CardInfoDto();
+
+        when(cardLookup.findAllById(List.of(2L, 1L, 9L))).thenReturn(Map.of(1L, own, 2L, foreign));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
+        when(accessChecker.canAccessOwner(auth, "other@example.com")).thenReturn(false);
+        when(cardMapper.toDto(own)).thenReturn(ownDto);
+
+        List<CardInfoDto> result = cardService.getCardsByIds(auth, List.of(2L, 1L, 9L));
+
+        assertEquals(List.of(ownDto), result);
+        verify(cardMapper, never()).toDto(foreign);
+    }
+
+    @Test
+    void getCardsByIds_tooManyIds_throwsBadRequest() {
+        ReflectionTestUtils.setField(cardService, "maxIds", 1);
+        assertThrows(BadRequestException.class, () -> cardService.getCardsByIds(auth, List.of(1L, 2L)));
+        verifyNoInteractions(cardLookup);
     }
 
     @Test
@@ -84,8 +129,7 @@ public class CardServiceImplTest {
 
         User user = new User();
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(false);
+        when(accessChecker.canAccessOwner(auth, null)).thenReturn(false);
 
         assertThrows(AccessDeniedException.class, () -> cardService.createCard(auth, dto));
     }
@@ -98,8 +142,7 @@ public class CardServiceImplTest {
 
         User user = new User();
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+        when(accessChecker.canAccessOwner(auth, null)).thenReturn(true);
         when(cardRepository.findByNumber("1234")).thenReturn(Optional.of(new CardInfo()));
 
         assertThrows(AlreadyExistsException.class, () -> cardService.createCard(auth, dto));
@@ -107,14 +150,11 @@ public class CardServiceImplTest {
 
     @Test
     void getCardById_success() {
-        CardInfo card = new CardInfo();
-        User user = new User();
-        card.setUser(user);
-
+        CardView card = new CardView(1L, "1234", "John Doe", null, 0L, 2L, "owner@example.com");
         CardInfoDto cardDto = new CardInfoDto();
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+
+        when(cardLookup.findById(1L)).thenReturn(card);
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
         when(cardMapper.toDto(card)).thenReturn(cardDto);
 
         CardInfoDto result = cardService.getCardById(auth, 1L);
@@ -123,19 +163,16 @@ public class CardServiceImplTest {
 
     @Test
     void getCardById_notFound() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cardLookup.findById(1L)).thenThrow(new NotFoundException("card with id 1 not found"));
         assertThrows(NotFoundException.class, () -> cardService.getCardById(auth, 1L));
     }
 
     @Test
     void getCardById_accessDenied() {
-        CardInfo card = new CardInfo();
-        User user = new User();
-        card.setUser(user);
+        CardView card = new CardView(1L, "1234", "John Doe", null, 0L, 2L, "other@example.com");
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(false);
+        when(cardLookup.findById(1L)).thenReturn(card);
+        when(accessChecker.canAccessOwner(auth, "other@example.com")).thenReturn(false);
 
         assertThrows(AccessDeniedException.class, () -> cardService.getCardById(auth, 1L));
     }
@@ -158,26 +195,50 @@ public class CardServiceImplTest {
 
         CardInfo card = new CardInfo();
         User user = new User();
+        user.setId(2L);
+        user.setEmail("owner@example.com");
         card.setUser(user);
         CardInfo saved = new CardInfo();
         saved.setId(id);
         CardInfoDto cardDto = new CardInfoDto();
 
-        when(cardRepository.findById(id)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+        when(cardRepository.findByIdWithUser(id)).thenReturn(Optional.of(card));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
         when(cardRepository.findByNumber("5678")).thenReturn(Optional.empty());
         when(cardRepository.save(card)).thenReturn(saved);
         when(cardMapper.toDto(saved)).thenReturn(cardDto);
 
-        CardInfoDto result = cardService.updateCard(auth, id, dto);
+        CardInfoDto result = cardService.updateCard(auth, id, dto, null);
         assertNotNull(result);
+        verify(userRepository).incrementVersion(2L);
+        verify(cacheInvalidator).evictCards(List.of(id));
+        verify(cacheInvalidator).evictUser(2L, "owner@example.com");
+        verify(outboxWriter).cardChanged(ChangeEventType.CARD_UPDATED, 2L, id);
+    }
+
+    @Test
+    void updateCard_versionMismatch() {
+        Long id = 1L;
+        CardInfo card = new CardInfo();
+        card.setVersion(5L);
+        User user = new User();
+        user.setId(2L);
+        user.setEmail("owner@example.com");
+        card.setUser(user);
+
+        when(cardRepository.findByIdWithUser(id)).thenReturn(Optional.of(card));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> cardService.updateCard(auth, id, new CardInfoUpdateDto(), 4L));
+        verify(cardRepository, never()).save(any());
+        verify(userRepository, never()).incrementVersion(any());
     }
 
     @Test
     void updateCard_notFound() {
-        when(cardRepository.findById(999L)).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> cardService.updateCard(auth, 999L, new CardInfoUpdateDto()));
+        when(cardRepository.findByIdWithUser(999L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> cardService.updateCard(auth, 999L, new CardInfoUpdateDto(), null));
     }
 
     @Test
@@ -188,14 +249,15 @@ public class CardServiceImplTest {
 
         CardInfo card = new CardInfo();
         User user = new User();
+        user.setId(2L);
+        user.setEmail("owner@example.com");
         card.setUser(user);
 
-        when(cardRepository.findById(id)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+        when(cardRepository.findByIdWithUser(id)).thenReturn(Optional.of(card));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
         when(cardRepository.findByNumber("1234")).thenReturn(Optional.of(new CardInfo()));
 
-        assertThrows(AlreadyExistsException.class, () -> cardService.updateCard(auth, id, dto));
+        assertThrows(AlreadyExistsException.class, () -> cardService.updateCard(auth, id, dto, null));
     }
 
     @Test
@@ -205,45 +267,46 @@ public class CardServiceImplTest {
 
         CardInfo card = new CardInfo();
         User user = new User();
+        user.setId(2L);
+        user.setEmail("owner@example.com");
         card.setUser(user);
 
-        when(cardRepository.findById(id)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(false);
+        when(cardRepository.findByIdWithUser(id)).thenReturn(Optional.of(card));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(false);
 
-        assertThrows(AccessDeniedException.class, () -> cardService.updateCard(auth, id, dto));
+        assertThrows(AccessDeniedException.class, () -> cardService.updateCard(auth, id, dto, null));
     }
 
     @Test
     void deleteCard_success() {
-        CardInfo card = new CardInfo();
-        User user = new User();
-        card.setUser(user);
+        CardOwnerView owner = new CardOwnerView(2L, "owner@example.com");
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(true);
+        when(cardRepository.findOwnerById(1L)).thenReturn(Optional.of(owner));
+        when(accessChecker.canAccessOwner(auth, "owner@example.com")).thenReturn(true);
 
         cardService.deleteCard(auth, 1L);
-        verify(cardRepository).delete(card);
+        verify(cardRepository).deleteCardById(1L, 2L);
+        verify(cacheInvalidator).evictCards(List.of(1L));
+        verify(cacheInvalidator).evictUser(2L, "owner@example.com");
+        verify(userRepository).incrementVersion(2L);
+        verifyNoMoreInteractions(userRepository);
+        verify(outboxWriter).cardChanged(ChangeEventType.CARD_DELETED, 2L, 1L);
     }
 
     @Test
     void deleteCard_notFound() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cardRepository.findOwnerById(1L)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> cardService.deleteCard(auth, 1L));
     }
 
     @Test
     void deleteCard_accessDenied() {
-        CardInfo card = new CardInfo();
-        User user = new User();
-        card.setUser(user);
+        CardOwnerView owner = new CardOwnerView(2L, "other@example.com");
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(userMapper.toDto(user)).thenReturn(new UserDto());
-        when(accessChecker.canAccessUser(auth, new UserDto())).thenReturn(false);
+        when(cardRepository.findOwnerById(1L)).thenReturn(Optional.of(owner));
+        when(accessChecker.canAccessOwner(auth, "other@example.com")).thenReturn(false);
 
         assertThrows(AccessDeniedException.class, () -> cardService.deleteCard(auth, 1L));
+        verify(cardRepository, never()).deleteCardById(any(), any());
     }
 }
@@ -0,0 +1,83 @@
+package org.oldvabik.userservice.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.ChangeEventDto;
+import org.oldvabik.userservice.dto.ChangeFeedDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.exception.GoneException;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.repository.OutboxRepository;
+import org.oldvabik.userservice.service.impl.ChangeFeedServiceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedServiceImplTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Spy
+    private UserShards userShards = UserShards.unsharded();
+
+    @InjectMocks
+    private ChangeFeedServiceImpl changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(changeFeedService, "defaultLimit", 2);
+        ReflectionTestUtils.setField(changeFeedService, "maxLimit", 10);
+    }
+
+    private static ChangeEventDto event(long seq) {
+        return new ChangeEventDto(seq, ChangeEventType.CARD_CREATED, 1L, seq * 10, LocalDateTime.now());
+    }
+
+    @Test
+    void getChanges_morePending_returnsPageAndCursor() {
+        when(outboxRepository.findPublishedAfter(5L, 3)).thenReturn(List.of(event(6), event(7), event(8)));
+
+        ChangeFeedDto feed = changeFeedService.getChanges(null, 5L, null);
+
+        assertEquals(List.of(6L, 7L), feed.getEvents().stream().map(ChangeEventDto::getSeq).toList());
+        assertEquals(7L, feed.getNext());
+        assertTrue(feed.isHasMore());
+    }
+
+    @Test
+    void getChanges_caughtUp_keepsCursor() {
+        when(outboxRepository.findPublishedAfter(8L, 3)).thenReturn(List.of());
+
+        ChangeFeedDto feed = changeFeedService.getChanges(null, 8L, null);
+
+        assertTrue(feed.getEvents().isEmpty());
+        assertEquals(8L, feed.getNext());
+        assertFalse(feed.isHasMore());
+    }
+
+    @Test
+    void getChanges_cursorBehindRetention_throwsGone() {
+        when(outboxRepository.findPublishedAfter(0L, 6)).thenReturn(List.of(event(42)));
+
+        assertThrows(GoneException.class, () -> changeFeedService.getChanges(null, null, 5));
+    }
+
+    @Test
+    void getChanges_invalidLimit_throwsBadRequest() {
+        assertThrows(BadRequestException.class, () -> changeFeedService.getChanges(null, 0L, 11));
+        assertThrows(BadRequestException.class, () -> changeFeedService.getChanges(null, -1L, 1));
+        verify(outboxRepository, never()).findPublishedAfter(anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,106 @@
+package org.oldvabik.userservice.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.datasource.UserShards;
+import org.oldvabik.userservice.dto.UserSearchResultDto;
+import org.oldvabik.userservice.dto.UserSummaryDto;
+import org.oldvabik.userservice.exception.BadRequestException;
+import org.oldvabik.userservice.repository.UserSearchRepository;
+import org.oldvabik.userservice.service.UserSearchService;
+import org.oldvabik.userservice.service.impl.UserSearchServiceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchServiceImplTest {
+
+    @Mock
+    private UserSearchRepository userSearchRepository;
+    @Mock
+    private UserShards userShards;
+    @InjectMocks
+    private UserSearchServiceImpl userSearchService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userSearchService, "defaultLimit", 2);
+        ReflectionTestUtils.setField(userSearchService, "maxLimit", 100);
+        ReflectionTestUtils.setField(userSearchService, "fuzzyThreshold", 0.3f);
+    }
+
+    private static UserSummaryDto summary(long id, String sortKey) {
+        return new UserSummaryDto(id, "John", "Doe", "john" + id + "@example.com", 0.5f, sortKey);
+    }
+
+    private static UserSummaryDto scored(long id, float score) {
+        return new UserSummaryDto(id, "John", "Doe", "john" + id + "@example.com", score, null);
+    }
+
+    @Test
+    void search_fullPage_returnsCursorForNextPage() {
+        when(userSearchRepository.searchByPrefix("jo", null, null, 3))
+                .thenReturn(List.of(summary(1, "joanna roe"), summary(2, "john: doe"), summary(3, "john: doe")));
+
+        UserSearchResultDto first = userSearchService.search(" Jo ", UserSearchService.Mode.PREFIX, null, null);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        when(userSearchRepository.searchByPrefix("jo", "john: doe", 2L, 3)).thenReturn(List.of(summary(3, "john: doe")));
+
+        UserSearchResultDto second = userSearchService.search("jo", UserSearchService.Mode.PREFIX, null, first.getNextCursor());
+
+        assertEquals(List.of(3L), second.getItems().stream().map(UserSummaryDto::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void search_fuzzy_usesFuzzyQuery() {
+        when(userSearchRepository.searchFuzzy("jon doe", 0.3f, null, null, 11)).thenReturn(List.of(scored(1, 0.7f)));
+
+        UserSearchResultDto result = userSearchService.search("Jon   Doe", UserSearchService.Mode.FUZZY, 10, null);
+
+        assertEquals(1, result.getItems().size());
+        verify(userSearchRepository, never()).searchByPrefix(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void search_fuzzyFullPage_continuesAfterScore() {
+        when(userSearchRepository.searchFuzzy("jon", 0.3f, null, null, 3))
+                .thenReturn(List.of(scored(1, 0.7f), scored(2, 0.4f), scored(3, 0.4f)));
+
+        UserSearchResultDto first = userSearchService.search("jon", UserSearchService.Mode.FUZZY, null, null);
+
+        when(userSearchRepository.searchFuzzy("jon", 0.3f, 0.4f, 2L, 3)).thenReturn(List.of(scored(3, 0.4f)));
+
+        UserSearchResultDto second = userSearchService.search("jon", UserSearchService.Mode.FUZZY, null, first.getNextCursor());
+
+        assertEquals(List.of(3L), second.getItems().stream().map(UserSummaryDto::getId).toList());
+    }
+
+    @Test
+    void search_shortQuery_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> userSearchService.search("j", UserSearchService.Mode.PREFIX, null, null));
+    }
+
+    @Test
+    void search_limitTooLarge_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> userSearchService.search("john", UserSearchService.Mode.PREFIX, 101, null));
+    }
+
+    @Test
+    void search_invalidCursor_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> userSearchService.search("john", UserSearchService.Mode.PREFIX, null, "not-a-cursor"));
+    }
+}
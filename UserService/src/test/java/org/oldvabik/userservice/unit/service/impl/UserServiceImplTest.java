@@ -4,16 +4,27 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.oldvabik.userservice.cache.CacheInvalidator;
+import org.oldvabik.userservice.cache.HotKeyTracker;
+import org.oldvabik.userservice.cache.UserLookup;
+import org.oldvabik.userservice.datasource.UserShards;
 import org.oldvabik.userservice.dto.*;
+import org.oldvabik.userservice.entity.CardInfo;
 import org.oldvabik.userservice.entity.User;
 import org.oldvabik.userservice.exception.*;
 import org.oldvabik.userservice.mapper.UserMapper;
+import org.oldvabik.userservice.outbox.ChangeEventType;
+import org.oldvabik.userservice.outbox.OutboxWriter;
+import org.oldvabik.userservice.repository.CardRepository;
 import org.oldvabik.userservice.repository.UserRepository;
+import org.oldvabik.userservice.repository.projection.UserVersionView;
+import org.oldvabik.userservice.repository.projection.UserView;
 import org.oldvabik.userservice.security.AccessChecker;
 import org.oldvabik.userservice.service.impl.UserServiceImpl;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,11 +36,23 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private CardRepository cardRepository;
+    @Mock
     private UserMapper userMapper;
     @Mock
     private AccessChecker accessChecker;
     @Mock
+    private UserLookup userLookup;
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+    @Mock
+    private OutboxWriter outboxWriter;
+    @Mock
     private Authentication auth;
+    @Mock
+    private UserShards userShards;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -51,6 +74,7 @@ public class UserServiceImplTest {
 
         assertNotNull(result);
         verify(userRepository).save(user);
+        verify(outboxWriter).userChanged(ChangeEventType.USER_CREATED, 1L);
     }
 
     @Test
@@ -63,39 +87,97 @@ public class UserServiceImplTest {
         assertThrows(AlreadyExistsException.class, () -> userService.createUser(dto));
     }
 
+    private static UserDto user(String email) {
+        UserDto user = new UserDto();
+        user.setId(1L);
+        user.setEmail(email);
+        return user;
+    }
+
     @Test
     void getUserById_found() {
-        User user = new User();
-        user.setEmail("test@example.com");
-        UserDto dto = new UserDto();
-        dto.setEmail("test@example.com");
+        UserDto user = user("test@example.com");
 
-        when(userRepository.findByIdWithCards(1L)).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(dto);
-        when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(true);
+        when(userLookup.findById(1L)).thenReturn(user);
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(true);
 
-        UserDto result = userService.getUserById(auth, 1L);
-        assertNotNull(result);
+        UserDto result = userService.getUserById(auth, 1L, true);
+        assertSame(user, result);
+        verify(hotKeyTracker).recordUser(1L);
+    }
+
+    @Test
+    void getUserById_withoutCards_usesProfileLookup() {
+        UserDto user = user("test@example.com");
+
+        when(userLookup.findProfileById(1L)).thenReturn(user);
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(true);
+
+        assertSame(user, userService.getUserById(auth, 1L, false));
+        verify(userLookup, never()).findById(any());
+        verifyNoInteractions(hotKeyTracker);
     }
 
     @Test
     void getUserById_accessDenied() {
-        User user = new User();
-        user.setEmail("other@example.com");
-        UserDto dto = new UserDto();
-        dto.setEmail("other@example.com");
+        UserDto user = user("other@example.com");
 
-        when(userRepository.findByIdWithCards(1L)).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(dto);
-        when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(false);
+        when(userLookup.findById(1L)).thenReturn(user);
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(false);
 
-        assertThrows(AccessDeniedException.class, () -> userService.getUserById(auth, 1L));
+        assertThrows(AccessDeniedException.class, () -> userService.getUserById(auth, 1L, true));
     }
 
     @Test
     void getUserById_notFound() {
-        when(userRepository.findByIdWithCards(1L)).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> userService.getUserById(auth, 1L));
+        when(userLookup.findById(1L)).thenThrow(new NotFoundException("user with id 1 not found"));
+        assertThrows(NotFoundException.class, () -> userService.getUserById(auth, 1L, true));
+    }
+
+    @Test
+    void getUserVersion_returnsCachedStamp() {
+        when(userLookup.findVersionById(1L)).thenReturn(new UserVersionView(1L, 7L, "test@example.com"));
+        when(accessChecker.canAccessOwner(auth, "test@example.com")).thenReturn(true);
+
+        assertEquals(7L, userService.getUserVersion(auth, 1L));
+        verify(userLookup, never()).findById(any());
+    }
+
+    @Test
+    void getUserVersion_accessDenied() {
+        when(userLookup.findVersionById(1L)).thenReturn(new UserVersionView(1L, 7L, "other@example.com"));
+        when(accessChecker.canAccessOwner(auth, "other@example.com")).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> userService.getUserVersion(auth, 1L));
+    }
+
+    @Test
+    void getUsersByIds_keepsRequestOrderAndSkipsMissingAndDenied() {
+        ReflectionTestUtils.setField(userService, "maxIds", 100);
+        UserDto first = new UserDto();
+        first.setId(1L);
+        UserDto denied = new UserDto();
+        denied.setId(2L);
+        UserDto third = new UserDto();
+        third.setId(3L);
+
+        when(userLookup.findAllById(List.of(3L, 2L, 1L, 4L))).thenReturn(Map.of(1L, first, 2L, denied, 3L, third));
+        when(accessChecker.canAccessUser(auth, first)).thenReturn(true);
+        when(accessChecker.canAccessUser(auth, denied)).thenReturn(false);
+        when(accessChecker.canAccessUser(auth, third)).thenReturn(true);
+
+        List<UserDto> result = userService.getUsersByIds(auth, Arrays.asList(3L, 2L, null, 1L, 3L, 4L), true);
+
+        assertEquals(List.of(third, first), result);
+        verify(hotKeyTracker, times(3)).recordUser(any());
+    }
+
+    @Test
+    void getUsersByIds_tooManyIds_throwsBadRequest() {
+        ReflectionTestUtils.setField(userService, "maxIds", 2);
+        assertThrows(BadRequestException.class, () -> userService.getUsersByIds(auth, List.of(1L, 2L, 3L), true));
+        assertThrows(BadRequestException.class, () -> userService.getUsersByIds(auth, List.of(), true));
+        verifyNoInteractions(userLookup);
     }
 
     @Test
@@ -103,43 +185,46 @@ public class UserServiceImplTest {
         when(userRepository.findAllWithCards(any())).thenReturn(new PageImpl<>(List.of(new User())));
         when(userMapper.toDto(any())).thenReturn(new UserDto());
 
-        var result = userService.getAllUsers(0, 10);
+        var result = userService.getAllUsers(0, 10, true);
+        assertEquals(1, result.getContent().size());
+    }
+
+    @Test
+    void getAllUsers_withoutCards_usesProfileQuery() {
+        UserView view = new UserView(1L, "John", "Doe", null, "test@example.com", 0L);
+        when(userRepository.findAllProfiles(any())).thenReturn(new PageImpl<>(List.of(view)));
+        when(userMapper.fromView(view)).thenReturn(new UserDto());
+
+        var result = userService.getAllUsers(0, 10, false);
         assertEquals(1, result.getContent().size());
+        verify(userRepository, never()).findAllWithCards(any());
     }
 
     @Test
     void getUserByEmail_found() {
-        User user = new User();
-        user.setEmail("test@example.com");
-        UserDto dto = new UserDto();
-        dto.setEmail("test@example.com");
+        UserDto user = user("test@example.com");
 
-        when(userRepository.findByEmailWithCards("test@example.com")).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(dto);
-        when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(true);
+        when(userLookup.findByEmail("test@example.com")).thenReturn(user);
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(true);
 
-        UserDto result = userService.getUserByEmail(auth, "test@example.com");
-        assertNotNull(result);
+        UserDto result = userService.getUserByEmail(auth, "test@example.com", true);
+        assertSame(user, result);
     }
 
     @Test
     void getUserByEmail_accessDenied() {
-        User user = new User();
-        user.setEmail("other@example.com");
-        UserDto dto = new UserDto();
-        dto.setEmail("other@example.com");
+        UserDto user = user("other@example.com");
 
-        when(userRepository.findByEmailWithCards("other@example.com")).thenReturn(Optional.of(user));
-        when(userMapper.toDto(user)).thenReturn(dto);
-        when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(false);
+        when(userLookup.findByEmail("other@example.com")).thenReturn(user);
+        when(accessChecker.canAccessUser(auth, user)).thenReturn(false);
 
-        assertThrows(AccessDeniedException.class, () -> userService.getUserByEmail(auth, "other@example.com"));
+        assertThrows(AccessDeniedException.class, () -> userService.getUserByEmail(auth, "other@example.com", true));
     }
 
     @Test
     void getUserByEmail_notFound() {
-        when(userRepository.findByEmailWithCards("email@test.com")).thenReturn(Optional.empty());
-        assertThrows(NotFoundException.class, () -> userService.getUserByEmail(auth, "email@test.com"));
+        when(userLookup.findByEmail("email@test.com")).thenThrow(new NotFoundException("user with email email@test.com not found"));
+        assertThrows(NotFoundException.class, () -> userService.getUserByEmail(auth, "email@test.com", true));
     }
 
     @Test
@@ -150,19 +235,75 @@ public class UserServiceImplTest {
         dto.setSurname("NewSurname");
         User user = new User();
         user.setId(id);
+        user.setVersion(0L);
         UserDto dtoUser = new UserDto();
         User savedUser = new User();
         savedUser.setId(id);
+        savedUser.setVersion(1L);
         UserDto userDto = new UserDto();
 
         when(userRepository.findByIdWithCards(id)).thenReturn(Optional.of(user));
         when(userMapper.toDto(user)).thenReturn(dtoUser);
         when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(true);
-        when(userRepository.save(user)).thenReturn(savedUser);
+        when(userRepository.saveAndFlush(user)).thenReturn(savedUser);
         when(userMapper.toDto(savedUser)).thenReturn(userDto);
 
-        UserDto result = userService.updateUser(auth, id, dto);
+        UserDto result = userService.updateUser(auth, id, dto, null);
         assertNotNull(result);
+        verify(cardRepository, never()).updateHolderByUserId(any(), any());
+        verify(outboxWriter).userChanged(ChangeEventType.USER_UPDATED, id);
+        verify(outboxWriter, never()).cardsChanged(any(), any(), any());
+    }
+
+    @Test
+    void updateUser_nameChanged_updatesCardHoldersInOneStatement() {
+        Long id = 1L;
+        UserUpdateDto dto = new UserUpdateDto();
+        dto.setName("NewName");
+        User user = new User();
+        user.setId(id);
+        user.setName("OldName");
+        user.setSurname("Surname");
+        CardInfo card = new CardInfo();
+        card.setId(10L);
+        user.getCards().add(card);
+        CardInfoDto cardDto = new CardInfoDto();
+        cardDto.setVersion(0L);
+        UserDto userDto = new UserDto();
+        userDto.setCards(List.of(cardDto));
+
+        when(userRepository.findByIdWithCards(id)).thenReturn(Optional.of(user));
+        when(accessChecker.canAccessUser(any(Authentication.class), any())).thenReturn(true);
+        doAnswer(invocation -> {
+            user.setName(dto.getName());
+            return null;
+        }).when(userMapper).updateEntityFromDto(dto, user);
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
+        when(userMapper.toDto(user)).thenReturn(userDto);
+
+        UserDto result = userService.updateUser(auth, id, dto, null);
+
+        verify(cardRepository).updateHolderByUserId(id, "NewName Surname");
+        verify(cacheInvalidator).evictCards(List.of(10L));
+        verify(outboxWriter).cardsChanged(ChangeEventType.CARD_UPDATED, id, List.of(10L));
+        assertEquals("NewName Surname", result.getCards().get(0).getHolder());
+        assertEquals(1L, result.getCards().get(0).getVersion());
+    }
+
+    @Test
+    void updateUser_versionMismatch_throwsPreconditionFailed() {
+        Long id = 1L;
+        UserUpdateDto dto = new UserUpdateDto();
+        User user = new User();
+        user.setId(id);
+        user.setVersion(3L);
+
+        when(userRepository.findByIdWithCards(id)).thenReturn(Optional.of(user));
+        when(userMapper.toDto(user)).thenReturn(new UserDto());
+        when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(auth, id, dto, 2L));
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -177,16 +318,23 @@ public class UserServiceImplTest {
         when(userMapper.toDto(user)).thenReturn(dtoUser);
         when(accessChecker.canAccessUser(any(Authentication.class), any(UserDto.class))).thenReturn(false);
 
-        assertThrows(AccessDeniedException.class, () -> userService.updateUser(auth, id, dto));
+        assertThrows(AccessDeniedException.class, () -> userService.updateUser(auth, id, dto, null));
+        verifyNoInteractions(outboxWriter);
     }
 
     @Test
     void deleteUser_success() {
         User user = new User();
+        user.setEmail("test@example.com");
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(10L));
 
         userService.deleteUser(1L);
         verify(userRepository).delete(user);
+        verify(userRepository).flush();
+        verify(cacheInvalidator).evictUser(1L, "test@example.com");
+        verify(cacheInvalidator).evictCards(List.of(10L));
+        verify(outboxWriter).userChanged(ChangeEventType.USER_DELETED, 1L);
     }
 
     @Test